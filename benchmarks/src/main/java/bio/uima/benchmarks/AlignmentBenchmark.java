@@ -0,0 +1,92 @@
+package bio.uima.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bio.uima.AlignmentEngine;
+import bio.uima.Cigar;
+import bio.uima.SubstitutionMatrix;
+
+/*
+ * Pairwise global alignment of two proteins of a family: the quadratic
+ * space score matrix (computeNWScore), the linear space score pass, the
+ * banded score, and a full Hirschberg alignment, each on the scalar and on
+ * the striped kernel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlignmentBenchmark {
+
+	private static final int BAND = 16;
+
+	@Param({"100", "300", "1000"})
+	public int length;																// Residues per protein
+
+	@Param({"0.3", "0.9"})
+	public double identity;															// Identity of the two proteins
+
+	@Param({"SCALAR", "STRIPED"})
+	public AlignmentEngine.Kernel kernel;
+
+	private AlignmentEngine engine;
+	private String protein1;
+	private String protein2;
+	private byte[] encoded1;
+	private byte[] encoded2;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		SubstitutionMatrix matrix = Baselines.substitutionMatrix();
+		engine = new AlignmentEngine(matrix, Baselines.GAP_PENALTY, kernel);
+		String root = SequenceGenerator.protein(random, length);
+		protein1 = SequenceGenerator.mutate(random, root, Math.sqrt(identity));
+		protein2 = SequenceGenerator.mutate(random, root, Math.sqrt(identity));
+		encoded1 = matrix.encode(protein1);
+		encoded2 = matrix.encode(protein2);
+	}
+
+	/*
+	 * Kernel independent reference: the whole score matrix
+	 */
+	@Benchmark
+	public int[][] computeNWScore() {
+		return engine.computeNWScore(encoded1, 0, encoded1.length, encoded2, 0, encoded2.length);
+	}
+
+	@Benchmark
+	public int score() {
+		return engine.score(encoded1, encoded2);
+	}
+
+	@Benchmark
+	public int bandedScore() {
+		return engine.bandedScore(encoded1, encoded2, BAND, true);
+	}
+
+	@Benchmark
+	public String[] hirschberg() {
+		return engine.hirschberg(protein1, protein2);
+	}
+
+	@Benchmark
+	public Cigar align() {
+		return engine.align(encoded1, encoded2);
+	}
+}
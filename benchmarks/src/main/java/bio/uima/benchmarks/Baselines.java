@@ -0,0 +1,124 @@
+package bio.uima.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import bio.uima.CodonTranslator;
+import bio.uima.SubstitutionMatrix;
+import bio.uima.Utils;
+
+/*
+ * Data files shared by the benchmarks, and the straightforward
+ * implementations the optimized kernels replaced, kept as the reference
+ * side of the scalar-vs-optimized comparisons: translation through a map of
+ * codon strings and column similarity through a map of residue pairs.
+ */
+public final class Baselines {
+
+	public static final int GAP_PENALTY = -2;										// Gap penalty of the pipeline
+
+	private static final String DISTANCES_RESOURCE = "/distances.txt";
+	private static final String CODON_RESOURCE = "/codonTable.txt";
+
+	private Baselines() {
+	}
+
+	public static SubstitutionMatrix substitutionMatrix() {
+		return Utils.initSubstitutionMatrix();
+	}
+
+	public static CodonTranslator codonTranslator() {
+		return Utils.initCodonTranslator();
+	}
+
+	/*
+	 * Returns the codon table as a map of codon strings to amino acids
+	 */
+	public static HashMap<String, Character> codonMap() {
+		HashMap<String, Character> codons = new HashMap<String, Character>();
+		for(String line : readResource(CODON_RESOURCE).split("\n")) {
+			if(line.trim().isEmpty()) continue;
+			String[] temp = line.split("\t");
+			codons.put(temp[0], temp[1].charAt(0));
+		}
+		return codons;
+	}
+
+	/*
+	 * Returns the substitution matrix as a map of residue pairs to scores
+	 */
+	public static HashMap<Character, HashMap<Character, Integer>> distanceMap() {
+		String[] lines = readResource(DISTANCES_RESOURCE).split("\n");
+		String[] header = lines[0].split("\t");
+		HashMap<Character, HashMap<Character, Integer>> distances = new HashMap<Character, HashMap<Character, Integer>>();
+		for(int iii = 1; iii < lines.length && iii <= header.length; iii++) {
+			String[] row = lines[iii].split("\t");
+			HashMap<Character, Integer> scores = new HashMap<Character, Integer>();
+			for(int jjj = 0; jjj < header.length; jjj++) {
+				scores.put(header[jjj].trim().charAt(0), Integer.parseInt(row[jjj].trim()));
+			}
+			distances.put(header[iii - 1].trim().charAt(0), scores);
+		}
+		return distances;
+	}
+
+	/*
+	 * Translates the three forward frames of a DNA sequence one codon
+	 * string at a time
+	 */
+	public static String[] translate(String dna, HashMap<String, Character> codons) {
+		String[] proteins = new String[CodonTranslator.NUM_FORWARD_FRAMES];
+		for(int frame = 0; frame < CodonTranslator.NUM_FORWARD_FRAMES; frame++) {
+			StringBuilder protein = new StringBuilder(dna.length() / 3 + 1);
+			for(int iii = frame; iii + 3 <= dna.length(); iii += 3) {
+				Character aminoAcid = codons.get(dna.substring(iii, iii + 3));
+				protein.append((aminoAcid == null) ? 'X' : aminoAcid.charValue());
+			}
+			proteins[frame] = protein.toString();
+		}
+		return proteins;
+	}
+
+	/*
+	 * Column similarity of two aligned proteins, looked up residue by residue
+	 */
+	public static int similarity(String protein1, String protein2, HashMap<Character, HashMap<Character, Integer>> distances) {
+		int similarity = 0;
+		int length = Math.max(protein1.length(), protein2.length());
+		for(int iii = 0; iii < length; iii++) {
+			char p1 = (iii < protein1.length()) ? protein1.charAt(iii) : '-';
+			char p2 = (iii < protein2.length()) ? protein2.charAt(iii) : '-';
+			if(p1 == '-' || p2 == '-') {
+				similarity += GAP_PENALTY;
+			} else {
+				similarity += distances.get(p1).get(p2);
+			}
+		}
+		return similarity;
+	}
+
+	private static String readResource(String name) {
+		InputStream in = Baselines.class.getResourceAsStream(name);
+		if(in == null) {
+			throw new IllegalStateException("Missing benchmark resource " + name);
+		}
+		try {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int read;
+				while((read = in.read(buffer)) > 0) {
+					bytes.write(buffer, 0, read);
+				}
+				return new String(bytes.toByteArray(), StandardCharsets.US_ASCII).replace("\r", "");
+			} finally {
+				in.close();
+			}
+		} catch(IOException e) {
+			throw new IllegalStateException("Could not read benchmark resource " + name, e);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package bio.uima.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bio.uima.AllPairsScheduler;
+import bio.uima.Dbscan;
+import bio.uima.SimilarityCache;
+import bio.uima.SubstitutionMatrix;
+
+/*
+ * DBSCAN over families of proteins (ClusterAnnotator): filling the
+ * similarity cache, and clustering it with the sequential and with the
+ * parallel union-find DBSCAN.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusteringBenchmark {
+
+	private static final int EPSILON = 30;											// ClusterAnnotator settings
+	private static final int MIN_POINTS = 3;
+	private static final int FAMILY_SIZE = 8;
+
+	@Param({"500", "2000"})
+	public int count;																// Number of points
+
+	@Param({"100"})
+	public int length;
+
+	@Param({"0.5", "0.9"})
+	public double identity;
+
+	private AllPairsScheduler scheduler;
+	private int[] lengths;
+	private SimilarityCache.Measure measure;
+	private SimilarityCache similarities;
+
+	@Setup
+	public void setUp() {
+		final SubstitutionMatrix matrix = Baselines.substitutionMatrix();
+		String[] proteins = SequenceGenerator.families(new Random(42), count, length, identity, FAMILY_SIZE);
+		final byte[][] encoded = new byte[count][];
+		lengths = new int[count];
+		for(int iii = 0; iii < count; iii++) {
+			encoded[iii] = matrix.encode(proteins[iii]);
+			lengths[iii] = encoded[iii].length;
+		}
+		measure = new SimilarityCache.Measure() {
+			public int similarity(int point1, int point2) {
+				return matrix.columnScore(encoded[point1], encoded[point2], Baselines.GAP_PENALTY);
+			}
+		};
+		scheduler = new AllPairsScheduler(0);
+		similarities = SimilarityCache.compute(lengths, measure, scheduler);
+	}
+
+	@TearDown
+	public void tearDown() {
+		scheduler.shutdown();
+	}
+
+	@Benchmark
+	public SimilarityCache similarityCache() {
+		return SimilarityCache.compute(lengths, measure, scheduler);
+	}
+
+	@Benchmark
+	public int[] dbscan() {
+		return Dbscan.cluster(similarities, EPSILON, MIN_POINTS);
+	}
+
+	@Benchmark
+	public int[] dbscanParallel() {
+		return Dbscan.clusterParallel(similarities, EPSILON, MIN_POINTS, scheduler);
+	}
+}
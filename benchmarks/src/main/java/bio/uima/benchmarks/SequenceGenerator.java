@@ -0,0 +1,91 @@
+package bio.uima.benchmarks;
+
+import java.util.Random;
+
+/*
+ * Synthetic sequences for the benchmarks, with a controllable length, count
+ * and identity. All generators take their Random from the caller, so a
+ * benchmark seeded with a constant always measures the same data.
+ */
+public final class SequenceGenerator {
+
+	private static final String NUCLEOTIDES = "ACGT";
+	private static final String AMINO_ACIDS = "ARNDCQEGHILKMFPSTWYV";
+	private static final double INDEL_SHARE = 0.1;									// Share of the mutations that are indels
+
+	private SequenceGenerator() {
+	}
+
+	/*
+	 * Returns a uniformly random DNA sequence
+	 */
+	public static String dna(Random random, int length) {
+		return randomString(random, NUCLEOTIDES, length);
+	}
+
+	/*
+	 * Returns a uniformly random protein sequence
+	 */
+	public static String protein(Random random, int length) {
+		return randomString(random, AMINO_ACIDS, length);
+	}
+
+	/*
+	 * Returns a copy of a protein in which about (1 - identity) of the
+	 * positions are mutated. Most mutations are substitutions; the rest
+	 * delete the residue or insert a random one after it.
+	 *
+	 * @param	random			Source of randomness
+	 * @param	protein			Protein to mutate
+	 * @param	identity		Expected fraction of unchanged positions, between 0 and 1
+	 * @return					Mutated protein
+	 */
+	public static String mutate(Random random, String protein, double identity) {
+		StringBuilder mutated = new StringBuilder(protein.length() + 8);
+		for(int iii = 0; iii < protein.length(); iii++) {
+			char residue = protein.charAt(iii);
+			if(random.nextDouble() < identity) {
+				mutated.append(residue);
+			} else if(random.nextDouble() >= INDEL_SHARE) {
+				mutated.append(AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+			} else if(random.nextBoolean()) {
+				mutated.append(residue).append(AMINO_ACIDS.charAt(random.nextInt(AMINO_ACIDS.length())));
+			}
+		}
+		return mutated.toString();
+	}
+
+	/*
+	 * Returns a set of proteins made of families: every family is a random
+	 * protein and mutated copies of it, so proteins of a family share about
+	 * identity of their residues and proteins of different families are
+	 * unrelated.
+	 *
+	 * @param	random			Source of randomness
+	 * @param	count			Number of proteins
+	 * @param	length			Length of the family roots
+	 * @param	identity		Identity of a family member to its root
+	 * @param	familySize		Number of proteins per family
+	 * @return					Proteins, families interleaved
+	 */
+	public static String[] families(Random random, int count, int length, double identity, int familySize) {
+		int familyCount = Math.max(1, (count + familySize - 1) / familySize);
+		String[] roots = new String[familyCount];
+		for(int iii = 0; iii < familyCount; iii++) {
+			roots[iii] = protein(random, length);
+		}
+		String[] proteins = new String[count];
+		for(int iii = 0; iii < count; iii++) {
+			proteins[iii] = mutate(random, roots[iii % familyCount], identity);
+		}
+		return proteins;
+	}
+
+	private static String randomString(Random random, String alphabet, int length) {
+		char[] characters = new char[length];
+		for(int iii = 0; iii < length; iii++) {
+			characters[iii] = alphabet.charAt(random.nextInt(alphabet.length()));
+		}
+		return new String(characters);
+	}
+}
@@ -0,0 +1,72 @@
+package bio.uima.benchmarks;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bio.uima.AlignmentEngine;
+import bio.uima.SubstitutionMatrix;
+
+/*
+ * Column similarity of two aligned proteins (ClusterAnnotator.similarity):
+ * on encoded residues through the flat score table, against char residues
+ * through a map of residue pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimilarityBenchmark {
+
+	@Param({"100", "1000"})
+	public int length;																// Residues per protein
+
+	@Param({"0.3", "0.9"})
+	public double identity;
+
+	private SubstitutionMatrix matrix;
+	private HashMap<Character, HashMap<Character, Integer>> distances;
+	private String aligned1;
+	private String aligned2;
+	private byte[] encoded1;
+	private byte[] encoded2;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		matrix = Baselines.substitutionMatrix();
+		distances = Baselines.distanceMap();
+		String root = SequenceGenerator.protein(random, length);
+		String[] alignment = new AlignmentEngine(matrix, Baselines.GAP_PENALTY).hirschberg(
+				SequenceGenerator.mutate(random, root, Math.sqrt(identity)),
+				SequenceGenerator.mutate(random, root, Math.sqrt(identity)));
+		aligned1 = alignment[0];
+		aligned2 = alignment[1];
+		encoded1 = matrix.encode(aligned1);
+		encoded2 = matrix.encode(aligned2);
+	}
+
+	@Benchmark
+	public int encoded() {
+		return matrix.columnScore(encoded1, encoded2, Baselines.GAP_PENALTY);
+	}
+
+	@Benchmark
+	public int distanceMap() {
+		return Baselines.similarity(aligned1, aligned2, distances);
+	}
+}
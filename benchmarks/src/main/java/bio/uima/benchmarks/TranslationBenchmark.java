@@ -0,0 +1,73 @@
+package bio.uima.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bio.uima.CodonTranslator;
+
+/*
+ * DNA to protein translation (ProteinSequenceAnnotator.dnaToProtein): the
+ * rolling-codon CodonTranslator fed with a string or with raw ASCII bytes,
+ * against translation through a map of codon strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslationBenchmark {
+
+	@Param({"1000", "100000"})
+	public int length;																// Nucleotides per sequence
+
+	@Param({"false", "true"})
+	public boolean bothStrands;
+
+	private String dna;
+	private byte[] dnaBytes;
+	private CodonTranslator translator;
+	private HashMap<String, Character> codons;
+
+	@Setup
+	public void setUp() {
+		dna = SequenceGenerator.dna(new Random(42), length);
+		dnaBytes = dna.getBytes(StandardCharsets.US_ASCII);
+		translator = Baselines.codonTranslator();
+		codons = Baselines.codonMap();
+	}
+
+	@Benchmark
+	public String[] codonTranslator() {
+		return translator.translate(dna, bothStrands);
+	}
+
+	@Benchmark
+	public String[] codonTranslatorBytes() {
+		CodonTranslator.Translation translation = translator.newTranslation(dnaBytes.length, bothStrands);
+		translation.feed(dnaBytes, 0, dnaBytes.length);
+		return translation.finish();
+	}
+
+	/*
+	 * Forward frames only, so compare it with bothStrands = false
+	 */
+	@Benchmark
+	public String[] codonMap() {
+		return Baselines.translate(dna, codons);
+	}
+}
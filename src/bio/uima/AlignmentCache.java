@@ -0,0 +1,238 @@
+package bio.uima;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Content-addressed cache of pair alignment results, so runs over
+ * overlapping data sets only pay for the pairs they have not seen before.
+ *
+ * A result is keyed by a 128-bit hash of the residues of both sequences (in
+ * order) and of the scoring parameters, so it is found again whatever the
+ * position of the sequences in a batch. Results live in a size-bounded LRU
+ * tier in memory and, optionally, in a MappedPairStore on disk that
+ * survives restarts. Alignments are kept as 2-bit column operations and
+ * turned back into a Cigar on a hit.
+ */
+public class AlignmentCache {
+
+	private static final long ENTRY_OVERHEAD = 96;									// Bytes of a memory entry besides its operations
+
+	/*
+	 * 128-bit key of an ordered pair of sequences under some scoring parameters
+	 */
+	public static final class Key {
+		final long high;
+		final long low;
+
+		Key(long high, long low) {
+			this.high = high;
+			this.low = low;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (low ^ (low >>> 32));
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof Key)) return false;
+			Key key = (Key) other;
+			return key.high == high && key.low == low;
+		}
+	}
+
+	/*
+	 * Score of a pair and, unless the pair was only scored, its alignment as
+	 * one 2-bit Cigar operation per column, four columns per byte
+	 */
+	public static final class Result {
+		final int score;
+		final int columns;
+		final byte[] operations;													// null if the pair was only scored
+
+		Result(int score, int columns, byte[] operations) {
+			this.score = score;
+			this.columns = columns;
+			this.operations = operations;
+		}
+
+		/*
+		 * Returns the result of a pair that was only scored
+		 */
+		public static Result scoreOnly(int score) {
+			return new Result(score, 0, null);
+		}
+
+		/*
+		 * Returns the result of an aligned pair
+		 *
+		 * @param	cigar			Alignment of the whole sequences of the pair
+		 * @return					Result holding the columns and score of the alignment
+		 */
+		public static Result aligned(Cigar cigar) {
+			int columns = cigar.getColumns();
+			byte[] operations = new byte[(columns + 3) >> 2];
+			int column = 0;
+			for(int run = 0; run < cigar.getRunCount(); run++) {
+				int operation = cigar.getOperation(run);
+				for(int iii = cigar.getLength(run); iii > 0; iii--, column++) {
+					operations[column >> 2] |= operation << ((column & 3) << 1);
+				}
+			}
+			return new Result(cigar.getScore(), columns, operations);
+		}
+
+		public int getScore() {
+			return score;
+		}
+
+		public boolean hasAlignment() {
+			return operations != null;
+		}
+
+		/*
+		 * Returns the alignment of the pair this result was computed for
+		 */
+		public Cigar cigar() {
+			Cigar.Builder builder = new Cigar.Builder();
+			for(int iii = 0; iii < columns; iii++) {
+				builder.add((operations[iii >> 2] >> ((iii & 3) << 1)) & 3, 1);
+			}
+			return builder.build(score, 0, 0);
+		}
+
+		long size() {
+			return ENTRY_OVERHEAD + ((operations == null) ? 0 : operations.length);
+		}
+	}
+
+	private final long parameters;													// Hash of the scoring parameters
+	private final long memoryBudget;												// Bytes of the memory tier, 0 for none
+	private final LinkedHashMap<Key, Result> memory;								// Access ordered, eldest first
+	private long memoryUsed = 0;
+	private final MappedPairStore disk;												// null if there is no disk tier
+
+	/*
+	 * @param	parameters		Hash of the scoring parameters, see parameters()
+	 * @param	memoryBudget	Bytes of results to keep in memory, 0 for no memory tier
+	 * @param	directory		Directory of the disk tier, created if needed, or null for no disk tier
+	 */
+	public AlignmentCache(long parameters, long memoryBudget, File directory) throws IOException {
+		this.parameters = parameters;
+		this.memoryBudget = memoryBudget;
+		this.memory = new LinkedHashMap<Key, Result>(16, 0.75f, true);
+		this.disk = (directory == null) ? null : MappedPairStore.open(directory);
+	}
+
+	/*
+	 * Returns the hash of a set of scoring parameters
+	 *
+	 * @param	matrix			Substitution matrix
+	 * @param	gapPenalty		Penalty for insertion or deletion
+	 * @param	band			Half-width of the band if scores are only bounded by it, else 0
+	 * @return					Hash to build the cache with
+	 */
+	public static long parameters(SubstitutionMatrix matrix, int gapPenalty, int band) {
+		return mix(mix(matrix.fingerprint() ^ gapPenalty) ^ ((long) band << 32));
+	}
+
+	/*
+	 * Returns the 128-bit content hash of a sequence, computed once per
+	 * sequence and combined into the keys of its pairs
+	 */
+	public static long[] digest(String sequence) {
+		MessageDigest md5;
+		try {
+			md5 = MessageDigest.getInstance("MD5");
+		} catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] hash = md5.digest(sequence.getBytes(StandardCharsets.US_ASCII));
+		long high = 0;
+		long low = 0;
+		for(int iii = 0; iii < 8; iii++) {
+			high = (high << 8) | (hash[iii] & 0xff);
+			low = (low << 8) | (hash[iii + 8] & 0xff);
+		}
+		return new long[] {high, low};
+	}
+
+	/*
+	 * Returns the key of an ordered pair of sequences
+	 *
+	 * @param	digest1			Content hash of the first sequence
+	 * @param	digest2			Content hash of the second sequence
+	 * @return					Key of the pair under the parameters of this cache
+	 */
+	public Key key(long[] digest1, long[] digest2) {
+		long high = mix(digest1[0] ^ mix(digest2[0] ^ parameters));
+		long low = mix(digest1[1] ^ mix(digest2[1] ^ ~parameters));
+		return new Key(high, low);
+	}
+
+	/*
+	 * Finalizer of MurmurHash3, spreads every input bit over the output
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+
+	/*
+	 * Returns the cached result of a pair, or null. A result found on disk
+	 * is promoted to the memory tier.
+	 */
+	public Result get(Key key) throws IOException {
+		Result result = null;
+		if(memoryBudget > 0) {
+			synchronized(memory) {
+				result = memory.get(key);
+			}
+		}
+		if(result == null && disk != null) {
+			result = disk.get(key.high, key.low);
+			if(result != null) remember(key, result);
+		}
+		return result;
+	}
+
+	/*
+	 * Stores the result of a pair in both tiers
+	 */
+	public void put(Key key, Result result) throws IOException {
+		remember(key, result);
+		if(disk != null) disk.put(key.high, key.low, result);
+	}
+
+	private void remember(Key key, Result result) {
+		if(memoryBudget <= 0) return;
+		synchronized(memory) {
+			Result previous = memory.put(key, result);
+			memoryUsed += result.size() - ((previous == null) ? 0 : previous.size());
+			Iterator<Map.Entry<Key, Result>> eldest = memory.entrySet().iterator();
+			while(memoryUsed > memoryBudget && eldest.hasNext()) {
+				memoryUsed -= eldest.next().getValue().size();
+				eldest.remove();
+			}
+		}
+	}
+
+	/*
+	 * Flushes the disk tier and releases it
+	 */
+	public void close() throws IOException {
+		if(disk != null) disk.release();
+	}
+}
@@ -0,0 +1,633 @@
+package bio.uima;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Global (Needleman-Wunsch) alignment of protein sequences with a linear
+ * gap penalty. Optimal alignments are computed with Hirschberg's algorithm
+ * in linear space: sequences are encoded once, every recursion level works
+ * on index ranges of the shared encoded arrays, and the forward and reverse
+ * score passes keep a single row each in buffers that are pooled per thread.
+ * An alignment comes out as the run-length operations of a Cigar; gapped
+ * strings are only rendered on request.
+ *
+ * The score passes run either on the scalar reference kernel or on the
+ * striped kernel, see StripedKernel.
+ *
+ * Given a fork/join pool, a large pair is also aligned in parallel, so a
+ * few very long pairs still keep every worker busy: the two score passes of
+ * a Hirschberg step and the two halves it splits into run as parallel
+ * tasks, and a score pass is cut into square blocks that run as an
+ * anti-diagonal wavefront, every block of a diagonal in parallel once the
+ * diagonal before it is done. Parallel steps allocate their own rows instead
+ * of using the per-thread buffers, as a thread waiting for its subtasks may
+ * run other tasks meanwhile. Results are the same as sequential ones.
+ *
+ * An engine is immutable apart from its per-thread buffers, so one instance
+ * can be shared by all threads.
+ */
+public class AlignmentEngine {
+
+	/*
+	 * Implementation of the linear-space score passes
+	 */
+	public enum Kernel {
+		SCALAR,
+		STRIPED
+	}
+
+	private static final int STRIPED_MIN_LENGTH = 16;								// Shorter ranges are not worth a query profile
+	private static final int NEGATIVE_INFINITY = Integer.MIN_VALUE / 2;			// Score of cells outside the band
+	private static final long PARALLEL_MIN_CELLS = 1L << 22;						// Smaller problems are not worth forking
+	private static final int WAVEFRONT_BLOCK = 512;									// Rows and columns of a wavefront block
+
+	private final SubstitutionMatrix matrix;
+	private final int gapPenalty;
+	private final Kernel kernel;
+	private final StripedKernel striped;
+	private final ForkJoinPool pool;												// Pool for large pairs, or null
+	private final ThreadLocal<ScoreBuffers> buffers = new ThreadLocal<ScoreBuffers>() {
+		@Override
+		protected ScoreBuffers initialValue() {
+			return new ScoreBuffers();
+		}
+	};
+
+	/*
+	 * @param	matrix			Substitution matrix to score matches with
+	 * @param	gapPenalty		Penalty for insertion or deletion (negative)
+	 */
+	public AlignmentEngine(SubstitutionMatrix matrix, int gapPenalty) {
+		this(matrix, gapPenalty, Kernel.SCALAR);
+	}
+
+	/*
+	 * @param	matrix			Substitution matrix to score matches with
+	 * @param	gapPenalty		Penalty for insertion or deletion (negative)
+	 * @param	kernel			Kernel for the score passes
+	 */
+	public AlignmentEngine(SubstitutionMatrix matrix, int gapPenalty, Kernel kernel) {
+		this(matrix, gapPenalty, kernel, null);
+	}
+
+	/*
+	 * @param	matrix			Substitution matrix to score matches with
+	 * @param	gapPenalty		Penalty for insertion or deletion (negative)
+	 * @param	kernel			Kernel for the score passes
+	 * @param	pool			Pool to align large pairs on in parallel, or null to align every pair
+	 * 							on the calling thread. May be the pool the pairs themselves run on.
+	 */
+	public AlignmentEngine(SubstitutionMatrix matrix, int gapPenalty, Kernel kernel, ForkJoinPool pool) {
+		this.matrix = matrix;
+		this.gapPenalty = gapPenalty;
+		this.kernel = kernel;
+		this.striped = (kernel == Kernel.STRIPED) ? new StripedKernel(matrix, gapPenalty) : null;
+		this.pool = pool;
+	}
+
+	public SubstitutionMatrix getMatrix() {
+		return matrix;
+	}
+
+	public int getGapPenalty() {
+		return gapPenalty;
+	}
+
+	public Kernel getKernel() {
+		return kernel;
+	}
+
+	/*
+	 * Computes and returns the optimal alignment of two sequences using
+	 * the Hirschberg's algorithm.
+	 *
+	 * @param	sequence1			Sequence to align
+	 * @param	sequence2			Sequence to align
+	 * @return						Array of strings that holds the optimal alignment of input strings
+	 */
+	public String[] hirschberg(String sequence1, String sequence2) {
+		return align(sequence1, sequence2).render(sequence1, sequence2);
+	}
+
+	/*
+	 * Computes the optimal alignment of two sequences using Hirschberg's
+	 * algorithm, as edit operations
+	 *
+	 * @param	sequence1			Sequence to align
+	 * @param	sequence2			Sequence to align
+	 * @return						Operations and score of the alignment of the whole sequences
+	 */
+	public Cigar align(String sequence1, String sequence2) {
+		return align(matrix.encode(sequence1), matrix.encode(sequence2));
+	}
+
+	/*
+	 * Computes the optimal alignment of two encoded sequences, as edit operations
+	 */
+	public Cigar align(byte[] sequence1, byte[] sequence2) {
+		Cigar.Builder operations = new Cigar.Builder();
+		hirschberg(sequence1, 0, sequence1.length, sequence2, 0, sequence2.length, operations);
+		Cigar cigar = operations.build(0, 0, 0);
+		return cigar.withScore(alignmentScore(cigar, sequence1, sequence2));
+	}
+
+	/*
+	 * Returns the optimal global alignment score of two sequences without
+	 * computing the alignment itself
+	 */
+	public int score(String sequence1, String sequence2) {
+		return score(matrix.encode(sequence1), matrix.encode(sequence2));
+	}
+
+	/*
+	 * Returns the optimal global alignment score of two encoded sequences
+	 * without computing the alignment itself
+	 */
+	public int score(byte[] sequence1, byte[] sequence2) {
+		int[] row = isParallel((long) sequence1.length * sequence2.length)
+				? new int[sequence2.length + 1] : buffers.get().left(sequence2.length + 1);
+		computeLastNWScore(sequence1, 0, sequence1.length, sequence2, 0, sequence2.length, false, row);
+		return row[sequence2.length];
+	}
+
+	/*
+	 * Returns the global alignment score of two encoded sequences, restricted
+	 * to the diagonal band of cells whose offset (jjj - iii) is at most band
+	 * away from the offsets between 0 and (length2 - length1). This takes
+	 * O(length * band) instead of O(length1 * length2).
+	 *
+	 * The band is hit when a path leaving it might beat the banded score. That
+	 * is checked against an upper bound on every such path: leaving the band
+	 * costs a minimum number of gaps, and the remaining diagonal steps score
+	 * at most the best scores of the residues involved.
+	 *
+	 * @param	band				Half-width of the band
+	 * @param	fallback			Whether to recompute the full score when the band is hit
+	 * @return						The optimal score, or the best score within the band if the
+	 * 								band is hit and fallback is off
+	 */
+	public int bandedScore(byte[] sequence1, byte[] sequence2, int band, boolean fallback) {
+		int length1 = sequence1.length;
+		int length2 = sequence2.length;
+		int low = Math.min(0, length2 - length1) - band;
+		int high = Math.max(0, length2 - length1) + band;
+		if(low <= -length1 && high >= length2) {
+			return score(sequence1, sequence2);
+		}
+		int[] row = buffers.get().left(length2 + 1);
+		for(int jjj = 0; jjj <= length2; jjj++) {
+			row[jjj] = (jjj <= high) ? jjj * gapPenalty : NEGATIVE_INFINITY;
+		}
+		for(int iii = 1; iii <= length1; iii++) {
+			byte residue = sequence1[iii - 1];
+			int from = Math.max(0, iii + low);
+			int to = Math.min(length2, iii + high);
+			int diagonal;
+			int left;
+			int jjj;
+			if(from == 0) {
+				diagonal = row[0];
+				row[0] = iii * gapPenalty;
+				left = row[0];
+				jjj = 1;
+			} else {
+				diagonal = row[from - 1];
+				left = NEGATIVE_INFINITY;
+				jjj = from;
+			}
+			for(; jjj <= to; jjj++) {
+				int match = diagonal + matrix.score(residue, sequence2[jjj - 1]);
+				int delete = row[jjj] + gapPenalty;
+				int insert = left + gapPenalty;
+				diagonal = row[jjj];
+				left = Utils.max(match, delete, insert);
+				row[jjj] = left;
+			}
+		}
+		int bandScore = row[length2];
+		if(fallback && bandScore < outOfBandBound(sequence1, sequence2, low, high)) {
+			return score(sequence1, sequence2);
+		}
+		return bandScore;
+	}
+
+	/*
+	 * Returns an upper bound on the score of any path that leaves the band of
+	 * offsets [low, high], or Integer.MIN_VALUE if no path can leave it.
+	 */
+	private int outOfBandBound(byte[] sequence1, byte[] sequence2, int low, int high) {
+		int length1 = sequence1.length;
+		int length2 = sequence2.length;
+		int offset = length2 - length1;
+		int gaps = Integer.MAX_VALUE;
+		if(high + 1 <= length2) gaps = Math.min(gaps, 2 * (high + 1) - offset);
+		if(low - 1 >= -length1) gaps = Math.min(gaps, offset - 2 * (low - 1));
+		if(gaps == Integer.MAX_VALUE) return Integer.MIN_VALUE;
+		int diagonals = Math.min(Math.min(length1, length2), (length1 + length2 - gaps) / 2);
+		int best = Math.min(bestScores(sequence1, diagonals), bestScores(sequence2, diagonals));
+		return best + gaps * gapPenalty;
+	}
+
+	/*
+	 * Returns the sum of the count highest (non-negative) best scores of the
+	 * residues of a sequence
+	 */
+	private int bestScores(byte[] sequence, int count) {
+		int[] histogram = new int[Math.max(0, matrix.maxScore()) + 1];
+		for(byte residue : sequence) {
+			histogram[Math.max(0, matrix.maxScore(residue))]++;
+		}
+		int sum = 0;
+		for(int value = histogram.length - 1; value > 0 && count > 0; value--) {
+			int taken = Math.min(count, histogram[value]);
+			sum += taken * value;
+			count -= taken;
+		}
+		return sum;
+	}
+
+	/*
+	 * Returns the score of an alignment of two encoded sequences given as
+	 * edit operations
+	 */
+	public int alignmentScore(Cigar cigar, byte[] sequence1, byte[] sequence2) {
+		int score = 0;
+		int position1 = cigar.getStart1();
+		int position2 = cigar.getStart2();
+		for(int run = 0; run < cigar.getRunCount(); run++) {
+			int length = cigar.getLength(run);
+			if(cigar.getOperation(run) != Cigar.MATCH) {
+				score += length * gapPenalty;
+				if(cigar.getOperation(run) == Cigar.INSERTION) {
+					position2 += length;
+				} else {
+					position1 += length;
+				}
+				continue;
+			}
+			for(int iii = 0; iii < length; iii++) {
+				score += matrix.score(sequence1[position1++], sequence2[position2++]);
+			}
+		}
+		return score;
+	}
+
+	/*
+	 * Returns the score of an alignment given as two gapped strings
+	 */
+	public int alignmentScore(String aligned1, String aligned2) {
+		int score = 0;
+		for(int iii = 0; iii < aligned1.length(); iii++) {
+			byte a = matrix.encode(aligned1.charAt(iii));
+			byte b = matrix.encode(aligned2.charAt(iii));
+			score += (a == SubstitutionMatrix.GAP || b == SubstitutionMatrix.GAP) ? gapPenalty : matrix.score(a, b);
+		}
+		return score;
+	}
+
+	/*
+	 * Appends the operations of the optimal alignment of sequence1[start1, end1)
+	 * and sequence2[start2, end2) to operations.
+	 */
+	private void hirschberg(byte[] sequence1, int start1, int end1, byte[] sequence2, int start2, int end2,
+			Cigar.Builder operations) {
+		int length1 = end1 - start1;
+		int length2 = end2 - start2;
+		if(length1 == 0) {
+			operations.add(Cigar.INSERTION, length2);
+		} else if(length2 == 0) {
+			operations.add(Cigar.DELETION, length1);
+		} else if(length1 == 1 || length2 == 1) {
+			getAlignment(sequence1, start1, end1, sequence2, start2, end2, operations);
+		} else if(isParallel((long) length1 * length2)) {
+			parallelHirschberg(sequence1, start1, end1, sequence2, start2, end2, operations);
+		} else {
+			int mid1 = start1 + (length1 / 2);
+			ScoreBuffers pool = buffers.get();
+			int[] scoreL = pool.left(length2 + 1);
+			int[] scoreR = pool.right(length2 + 1);
+			computeLastNWScore(sequence1, start1, mid1, sequence2, start2, end2, false, scoreL);
+			computeLastNWScore(sequence1, mid1, end1, sequence2, start2, end2, true, scoreR);
+			int mid2 = start2 + partition(scoreL, scoreR, length2 + 1);
+			// the score rows are consumed, so deeper levels may reuse the buffers
+			hirschberg(sequence1, start1, mid1, sequence2, start2, mid2, operations);
+			hirschberg(sequence1, mid1, end1, sequence2, mid2, end2, operations);
+		}
+	}
+
+	/*
+	 * Hirschberg step of a large problem: runs the forward and reverse score
+	 * passes in parallel, then aligns the two halves in parallel, the second
+	 * one into a builder of its own that is appended once both are done.
+	 */
+	private void parallelHirschberg(final byte[] sequence1, final int start1, final int end1,
+			final byte[] sequence2, final int start2, final int end2, final Cigar.Builder operations) {
+		final int length2 = end2 - start2;
+		final int mid1 = start1 + ((end1 - start1) / 2);
+		final int[] scoreL = new int[length2 + 1];
+		final int[] scoreR = new int[length2 + 1];
+		runInParallel(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				computeLastNWScore(sequence1, start1, mid1, sequence2, start2, end2, false, scoreL);
+			}
+		}, new RecursiveAction() {
+			@Override
+			protected void compute() {
+				computeLastNWScore(sequence1, mid1, end1, sequence2, start2, end2, true, scoreR);
+			}
+		});
+		final int mid2 = start2 + partition(scoreL, scoreR, length2 + 1);
+		final Cigar.Builder second = new Cigar.Builder();
+		runInParallel(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				hirschberg(sequence1, start1, mid1, sequence2, start2, mid2, operations);
+			}
+		}, new RecursiveAction() {
+			@Override
+			protected void compute() {
+				hirschberg(sequence1, mid1, end1, sequence2, mid2, end2, second);
+			}
+		});
+		operations.add(second);
+	}
+
+	/*
+	 * Aligns two sequences by full dynamic programming and appends the
+	 * operations of the optimal alignment. Only used on ranges where one side
+	 * has a single residue, so the matrix stays linear in size.
+	 *
+	 * Scores are kept in a single rolling row; the traceback only needs the
+	 * move into every cell, kept as its 2-bit operation, four cells per byte.
+	 * Ties prefer a match, then a deletion, then an insertion.
+	 */
+	private void getAlignment(byte[] sequence1, int start1, int end1, byte[] sequence2, int start2, int end2,
+			Cigar.Builder operations) {
+		int length1 = end1 - start1;
+		int length2 = end2 - start2;
+		int width = length2 + 1;
+		byte[] moves = new byte[((length1 + 1) * width + 3) >> 2];
+		int[] row = new int[width];
+		for(int jjj = 0; jjj <= length2; jjj++) {
+			row[jjj] = jjj * gapPenalty;
+			setMove(moves, jjj, Cigar.INSERTION);
+		}
+		for(int iii = 1; iii <= length1; iii++) {
+			byte residue = sequence1[start1 + iii - 1];
+			int diagonal = row[0];
+			row[0] = iii * gapPenalty;
+			setMove(moves, iii * width, Cigar.DELETION);
+			for(int jjj = 1; jjj <= length2; jjj++) {
+				int match = diagonal + matrix.score(residue, sequence2[start2 + jjj - 1]);
+				int delete = row[jjj] + gapPenalty;
+				int insert = row[jjj - 1] + gapPenalty;
+				diagonal = row[jjj];
+				if(match >= delete && match >= insert) {
+					row[jjj] = match;
+					setMove(moves, iii * width + jjj, Cigar.MATCH);
+				} else if(delete >= insert) {
+					row[jjj] = delete;
+					setMove(moves, iii * width + jjj, Cigar.DELETION);
+				} else {
+					row[jjj] = insert;
+					setMove(moves, iii * width + jjj, Cigar.INSERTION);
+				}
+			}
+		}
+
+		// Trace the moves back from the last cell, then append them in order
+		byte[] path = new byte[length1 + length2];
+		int pos = path.length;
+		int iii = length1;
+		int jjj = length2;
+		while(iii > 0 || jjj > 0) {
+			int move = (moves[(iii * width + jjj) >> 2] >> (((iii * width + jjj) & 3) << 1)) & 3;
+			path[--pos] = (byte) move;
+			if(move != Cigar.INSERTION) iii--;
+			if(move != Cigar.DELETION) jjj--;
+		}
+		for(; pos < path.length; pos++) {
+			operations.add(path[pos], 1);
+		}
+	}
+
+	private static void setMove(byte[] moves, int cell, int move) {
+		moves[cell >> 2] |= move << ((cell & 3) << 1);
+	}
+
+	/*
+	 * Computes and returns the Needleman-Wunsch score matrix which contains
+	 * the optimal alignment scores for sequence1[start1, end1) and
+	 * sequence2[start2, end2)
+	 *
+	 * @return						calculated alignment score matrix
+	 */
+	public int[][] computeNWScore(byte[] sequence1, int start1, int end1, byte[] sequence2, int start2, int end2) {
+		int[][] scores = Utils.initDistanceMatrix(end1 - start1, end2 - start2, gapPenalty);
+		for(int iii = 1; iii <= end1 - start1; iii++) {
+			byte residue = sequence1[start1 + iii - 1];
+			for(int jjj = 1; jjj <= end2 - start2; jjj++) {
+				int value = matrix.score(residue, sequence2[start2 + jjj - 1]);
+				int match = scores[iii - 1][jjj - 1] + value;
+				int delete = scores[iii - 1][jjj] + gapPenalty;
+				int insert = scores[iii][jjj - 1] + gapPenalty;
+				scores[iii][jjj] = Utils.max(match, delete, insert);
+			}
+		}
+		return scores;
+	}
+
+	/*
+	 * Computes the last row of the Needleman-Wunsch score matrix of
+	 * sequence1[start1, end1) and sequence2[start2, end2) in linear space,
+	 * keeping a single rolling row. With reverse set, both ranges are read
+	 * back to front, which scores the reversed sequences without copying them.
+	 *
+	 * @param	row					Buffer of at least (end2 - start2 + 1) elements to hold the last row
+	 */
+	public void computeLastNWScore(byte[] sequence1, int start1, int end1, byte[] sequence2, int start2, int end2,
+			boolean reverse, int[] row) {
+		int length1 = end1 - start1;
+		int length2 = end2 - start2;
+		if(isParallel((long) length1 * length2) && length1 >= 2 * WAVEFRONT_BLOCK && length2 >= 2 * WAVEFRONT_BLOCK) {
+			wavefrontLastNWScore(sequence1, start1, end1, sequence2, start2, end2, reverse, row);
+		} else if(striped != null && end1 - start1 >= STRIPED_MIN_LENGTH && end2 - start2 >= STRIPED_MIN_LENGTH) {
+			striped.computeLastNWScore(sequence1, start1, end1, sequence2, start2, end2, reverse, row);
+		} else {
+			scalarLastNWScore(sequence1, start1, end1, sequence2, start2, end2, reverse, row);
+		}
+	}
+
+	/*
+	 * Scalar reference kernel of computeLastNWScore
+	 */
+	private void scalarLastNWScore(byte[] sequence1, int start1, int end1, byte[] sequence2, int start2, int end2,
+			boolean reverse, int[] row) {
+		int length1 = end1 - start1;
+		int length2 = end2 - start2;
+		for(int jjj = 0; jjj <= length2; jjj++) {
+			row[jjj] = jjj * gapPenalty;
+		}
+		for(int iii = 1; iii <= length1; iii++) {
+			byte residue = reverse ? sequence1[end1 - iii] : sequence1[start1 + iii - 1];
+			int diagonal = row[0];
+			row[0] = iii * gapPenalty;
+			for(int jjj = 1; jjj <= length2; jjj++) {
+				byte other = reverse ? sequence2[end2 - jjj] : sequence2[start2 + jjj - 1];
+				int match = diagonal + matrix.score(residue, other);
+				int delete = row[jjj] + gapPenalty;
+				int insert = row[jjj - 1] + gapPenalty;
+				diagonal = row[jjj];
+				row[jjj] = Utils.max(match, delete, insert);
+			}
+		}
+	}
+
+	/*
+	 * Wavefront kernel of computeLastNWScore. The score matrix is cut into
+	 * blocks of WAVEFRONT_BLOCK rows and columns; block (bi, bj) needs the
+	 * bottom row of block (bi - 1, bj) and the right column of block
+	 * (bi, bj - 1), so all blocks of an anti-diagonal bi + bj are independent.
+	 * The row holds the bottom row of the last block of every column range,
+	 * and every row range keeps the right column of its last block, so the
+	 * pass still takes linear space.
+	 */
+	private void wavefrontLastNWScore(final byte[] sequence1, final int start1, final int end1,
+			final byte[] sequence2, final int start2, final int end2, final boolean reverse, final int[] row) {
+		final int length1 = end1 - start1;
+		final int length2 = end2 - start2;
+		final int blocks1 = (length1 + WAVEFRONT_BLOCK - 1) / WAVEFRONT_BLOCK;
+		final int blocks2 = (length2 + WAVEFRONT_BLOCK - 1) / WAVEFRONT_BLOCK;
+		for(int jjj = 0; jjj <= length2; jjj++) {
+			row[jjj] = jjj * gapPenalty;
+		}
+		final int[][] columns = new int[blocks1][WAVEFRONT_BLOCK + 1];				// Column left of the next block of a row range
+		for(int bi = 0; bi < blocks1; bi++) {
+			for(int kkk = 0; kkk <= WAVEFRONT_BLOCK; kkk++) {
+				columns[bi][kkk] = (bi * WAVEFRONT_BLOCK + kkk) * gapPenalty;
+			}
+		}
+		runInParallel(new RecursiveAction() {
+			@Override
+			protected void compute() {
+				for(int diagonal = 0; diagonal < blocks1 + blocks2 - 1; diagonal++) {
+					int firstBlock = Math.max(0, diagonal - (blocks2 - 1));
+					int lastBlock = Math.min(diagonal, blocks1 - 1);
+					RecursiveAction[] blocks = new RecursiveAction[lastBlock - firstBlock + 1];
+					for(int bi = firstBlock; bi <= lastBlock; bi++) {
+						final int blockRow = bi;
+						final int blockColumn = diagonal - bi;
+						blocks[bi - firstBlock] = new RecursiveAction() {
+							@Override
+							protected void compute() {
+								wavefrontBlock(sequence1, start1, end1, sequence2, start2, end2, reverse, row,
+										columns[blockRow], blockRow * WAVEFRONT_BLOCK, blockColumn * WAVEFRONT_BLOCK);
+							}
+						};
+					}
+					invokeAll(blocks);
+				}
+			}
+		});
+		row[0] = length1 * gapPenalty;
+	}
+
+	/*
+	 * Scores the block of the score matrix whose top left cell is (row0,
+	 * column0), reading its top row from row and its left column from column,
+	 * and leaving its bottom row in row and its right column in column.
+	 */
+	private void wavefrontBlock(byte[] sequence1, int start1, int end1, byte[] sequence2, int start2, int end2,
+			boolean reverse, int[] row, int[] column, int row0, int column0) {
+		int row1 = Math.min(end1 - start1, row0 + WAVEFRONT_BLOCK);
+		int column1 = Math.min(end2 - start2, column0 + WAVEFRONT_BLOCK);
+		int corner = column[0];
+		column[0] = row[column1];
+		for(int iii = row0 + 1; iii <= row1; iii++) {
+			byte residue = reverse ? sequence1[end1 - iii] : sequence1[start1 + iii - 1];
+			int diagonal = corner;
+			int left = column[iii - row0];
+			corner = left;
+			for(int jjj = column0 + 1; jjj <= column1; jjj++) {
+				byte other = reverse ? sequence2[end2 - jjj] : sequence2[start2 + jjj - 1];
+				int match = diagonal + matrix.score(residue, other);
+				int delete = row[jjj] + gapPenalty;
+				int insert = left + gapPenalty;
+				diagonal = row[jjj];
+				left = Utils.max(match, delete, insert);
+				row[jjj] = left;
+			}
+			column[iii - row0] = left;
+		}
+	}
+
+	/*
+	 * Returns whether a problem of a number of cells is split into parallel tasks
+	 */
+	private boolean isParallel(long cells) {
+		return pool != null && pool.getParallelism() > 1 && cells >= PARALLEL_MIN_CELLS;
+	}
+
+	/*
+	 * Runs tasks in parallel on the pool and returns when all are done. From
+	 * a worker of the pool the tasks are forked directly, so a pair running
+	 * on the pool spreads its own work over the idle workers.
+	 */
+	private void runInParallel(final ForkJoinTask<?>... tasks) {
+		if(ForkJoinTask.getPool() == pool) {
+			ForkJoinTask.invokeAll(tasks);
+		} else {
+			pool.invoke(new RecursiveAction() {
+				@Override
+				protected void compute() {
+					invokeAll(tasks);
+				}
+			});
+		}
+	}
+
+	/*
+	 * Returns the index of the two input score arrays that yield the maximum
+	 * sum of the elements at that index.
+	 * In other words, returns argmax iii (scoreL[iii] + reverse(scoreR[iii])
+	 *
+	 * @param	scoreL			Score row for left side of partition
+	 * @param	scoreR			Score row for right side of partition
+	 * @param	length			Number of valid elements in both rows
+	 * @return					The index that maximizes the sum of the two array elements
+	 */
+	private static int partition(int[] scoreL, int[] scoreR, int length) {
+		int maxSum = Integer.MIN_VALUE;
+		int index = 0;
+		for(int iii = 0; iii < length; iii++) {
+			int sum = scoreL[iii] + scoreR[length - iii - 1];
+			if(sum >= maxSum) {
+				maxSum = sum;
+				index = iii;
+			}
+		}
+		return index;
+	}
+
+	/*
+	 * Per-thread score rows for the forward and reverse Hirschberg passes,
+	 * grown on demand and reused by every recursion level and every pair.
+	 */
+	private static class ScoreBuffers {
+		private int[] left = new int[0];
+		private int[] right = new int[0];
+
+		int[] left(int length) {
+			if(left.length < length) left = new int[Math.max(length, left.length * 2)];
+			return left;
+		}
+
+		int[] right(int length) {
+			if(right.length < length) right = new int[Math.max(length, right.length * 2)];
+			return right;
+		}
+	}
+}
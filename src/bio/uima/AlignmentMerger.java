@@ -0,0 +1,172 @@
+package bio.uima;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.apache.uima.analysis_component.JCasMultiplier_ImplBase;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.AbstractCas;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.ByteArray;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.util.CasCopier;
+
+/*
+ * CAS multiplier that collects the aligned work units of a PairTileSegmenter
+ * and, once every tile of a batch has arrived, outputs one merged CAS holding
+ * the sequences of the batch and all of its AlignmentPairs. The document text
+ * and the DNA sequences are kept from the first tile, the only one that has
+ * them, the proteins are copied from the last unit.
+ * Work units may arrive in any order and interleaved with other batches.
+ */
+public class AlignmentMerger extends JCasMultiplier_ImplBase {
+	
+	private static final Metrics.Timer STAGE = Metrics.timer("merge");
+	
+	/*
+	 * Pairs collected so far for one batch, indexed by pair
+	 */
+	private static final class PendingBatch {
+		private final int tileCount;
+		private int tilesDone = 0;
+		private final int[] first;
+		private final int[] second;
+		private final int[] scores;
+		private final byte[][] alignment1;
+		private final byte[][] alignment2;
+		private final String[] cigars;
+		private String text;																// Document text, from the first tile
+		private final ArrayList<DnaRecord> dna = new ArrayList<DnaRecord>();
+		
+		PendingBatch(int tileCount, int pairs) {
+			this.tileCount = tileCount;
+			this.first = new int[pairs];
+			this.second = new int[pairs];
+			this.scores = new int[pairs];
+			this.alignment1 = new byte[pairs][];
+			this.alignment2 = new byte[pairs][];
+			this.cigars = new String[pairs];
+		}
+	}
+	
+	/*
+	 * DNA sequence of the first tile, kept until the merged CAS is created
+	 */
+	private static final class DnaRecord {
+		private final int begin;
+		private final int end;
+		private final String value;															// null if the bases are in the store
+		private final long storeHandle;
+		private final int storeLength;
+		
+		DnaRecord(DNASequence dna) {
+			this.begin = dna.getBegin();
+			this.end = dna.getEnd();
+			this.value = dna.getValue();
+			this.storeHandle = dna.getStoreHandle();
+			this.storeLength = dna.getStoreLength();
+		}
+	}
+	
+	private final HashMap<Integer, PendingBatch> pending = new HashMap<Integer, PendingBatch>();
+	private JCas lastUnit;																	// Last unit of a complete batch
+	private PendingBatch completed;															// Its batch, null if none
+	
+	@Override
+	public void process(JCas unit) throws AnalysisEngineProcessException {
+		long start = STAGE.start();
+		try {
+			PairTile tile = Utils.getPairTile(unit);
+			if(tile == null) {
+				throw new AnalysisEngineProcessException(new IllegalStateException(
+						"AlignmentMerger needs work units cut by a PairTileSegmenter"));
+			}
+			PendingBatch batch = pending.get(tile.getBatch());
+			if(batch == null) {
+				batch = new PendingBatch(tile.getTileCount(), AllPairsScheduler.pairCount(tile.getProteinCount()));
+				pending.put(tile.getBatch(), batch);
+			}
+			if(tile.getTile() == 0) {
+				batch.text = unit.getDocumentText();
+				for(FSIterator<Annotation> it = unit.getAnnotationIndex(DNASequence.type).iterator(); it.hasNext(); ) {
+					batch.dna.add(new DnaRecord((DNASequence) it.next()));
+				}
+			}
+			for(AlignmentPair pair : Utils.getAlignmentPairs(unit)) {
+				int index = AllPairsScheduler.pairIndex(pair.getFirst(), pair.getSecond(), tile.getProteinCount());
+				batch.first[index] = pair.getFirst();
+				batch.second[index] = pair.getSecond();
+				batch.scores[index] = pair.getScore();
+				batch.cigars[index] = pair.getCigar();
+				if(pair.getAlignment1() != null) {
+					batch.alignment1[index] = pair.getAlignment1().toArray();
+					batch.alignment2[index] = pair.getAlignment2().toArray();
+				}
+			}
+			if(++batch.tilesDone == batch.tileCount) {
+				pending.remove(tile.getBatch());
+				lastUnit = unit;
+				completed = batch;
+			}
+		} finally {
+			STAGE.stop(start, unit);
+		}
+	}
+	
+	public boolean hasNext() throws AnalysisEngineProcessException {
+		return completed != null;
+	}
+	
+	public AbstractCas next() throws AnalysisEngineProcessException {
+		JCas merged = getEmptyJCas();
+		try {
+			// the proteins are the same in every unit, copy them from the last one
+			merged.setDocumentText(completed.text);
+			for(DnaRecord record : completed.dna) {
+				DNASequence dna = new DNASequence(merged, record.begin, record.end);
+				if(record.value != null) {
+					dna.setValue(record.value);
+				} else {
+					dna.setStoreHandle(record.storeHandle);
+					dna.setStoreLength(record.storeLength);
+				}
+				dna.addToIndexes();
+			}
+			CasCopier copier = new CasCopier(lastUnit.getCas(), merged.getCas());
+			copyAnnotations(copier, lastUnit, merged, ProteinSequence.type);
+			for(int iii = 0; iii < completed.scores.length; iii++) {
+				AlignmentPair pair = new AlignmentPair(merged);
+				pair.setFirst(completed.first[iii]);
+				pair.setSecond(completed.second[iii]);
+				pair.setScore(completed.scores[iii]);
+				pair.setCigar(completed.cigars[iii]);
+				if(completed.alignment1[iii] != null) {
+					pair.setAlignment1(toByteArray(merged, completed.alignment1[iii]));
+					pair.setAlignment2(toByteArray(merged, completed.alignment2[iii]));
+				}
+				pair.addToIndexes();
+			}
+		} catch(RuntimeException e) {
+			merged.release();
+			throw new AnalysisEngineProcessException(e);
+		} finally {
+			lastUnit = null;
+			completed = null;
+		}
+		return merged;
+	}
+	
+	private static void copyAnnotations(CasCopier copier, JCas from, JCas to, int type) {
+		FSIterator<Annotation> it = from.getAnnotationIndex(type).iterator();
+		while(it.hasNext()) {
+			to.addFsToIndexes(copier.copyFs(it.next()));
+		}
+	}
+	
+	private static ByteArray toByteArray(JCas cas, byte[] bytes) {
+		ByteArray array = new ByteArray(cas, bytes.length);
+		array.copyFromArray(bytes, 0, 0, bytes.length);
+		return array;
+	}
+}
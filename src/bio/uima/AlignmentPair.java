@@ -0,0 +1,198 @@
+
+
+/* First created by JCasGen Sun Oct 18 10:12:44 EDT 2026 */
+package bio.uima;
+
+import org.apache.uima.jcas.JCas; 
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+import org.apache.uima.jcas.cas.ByteArray;
+import org.apache.uima.jcas.cas.TOP;
+
+
+/** 
+ * Updated by JCasGen Sun Oct 18 10:12:44 EDT 2026
+ * XML source: desc/DNASequenceTypeSystemDescriptor.xml
+ * @generated */
+public class AlignmentPair extends TOP {
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = JCasRegistry.register(AlignmentPair.class);
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int type = typeIndexID;
+  /** @generated  */
+  @Override
+  public              int getTypeIndexID() {return typeIndexID;}
+ 
+  /** Never called.  Disable default constructor
+   * @generated */
+  protected AlignmentPair() {/* intentionally empty block */}
+    
+  /** Internal - constructor used by generator 
+   * @generated */
+  public AlignmentPair(int addr, TOP_Type type) {
+    super(addr, type);
+    readObject();
+  }
+  
+  /** @generated */
+  public AlignmentPair(JCas jcas) {
+    super(jcas);
+    readObject();   
+  } 
+
+  /** <!-- begin-user-doc -->
+    * Write your own initialization here
+    * <!-- end-user-doc -->
+  @generated modifiable */
+  private void readObject() {/*default - does nothing empty block */}
+     
+ 
+    
+  //*--------------*
+  //* Feature: first
+
+  /** getter for first - gets Index of the first protein of the pair
+   * @generated */
+  public int getFirst() {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_first == null)
+      jcasType.jcas.throwFeatMissing("first", "bio.uima.AlignmentPair");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_first);}
+    
+  /** setter for first - sets Index of the first protein of the pair 
+   * @generated */
+  public void setFirst(int v) {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_first == null)
+      jcasType.jcas.throwFeatMissing("first", "bio.uima.AlignmentPair");
+    jcasType.ll_cas.ll_setIntValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_first, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: second
+
+  /** getter for second - gets Index of the second protein of the pair
+   * @generated */
+  public int getSecond() {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_second == null)
+      jcasType.jcas.throwFeatMissing("second", "bio.uima.AlignmentPair");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_second);}
+    
+  /** setter for second - sets Index of the second protein of the pair 
+   * @generated */
+  public void setSecond(int v) {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_second == null)
+      jcasType.jcas.throwFeatMissing("second", "bio.uima.AlignmentPair");
+    jcasType.ll_cas.ll_setIntValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_second, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: score
+
+  /** getter for score - gets Alignment score of the pair
+   * @generated */
+  public int getScore() {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_score == null)
+      jcasType.jcas.throwFeatMissing("score", "bio.uima.AlignmentPair");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_score);}
+    
+  /** setter for score - sets Alignment score of the pair 
+   * @generated */
+  public void setScore(int v) {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_score == null)
+      jcasType.jcas.throwFeatMissing("score", "bio.uima.AlignmentPair");
+    jcasType.ll_cas.ll_setIntValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_score, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: alignment1
+
+  /** getter for alignment1 - gets Aligned first protein, gaps as '-'
+   * @generated */
+  public ByteArray getAlignment1() {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_alignment1 == null)
+      jcasType.jcas.throwFeatMissing("alignment1", "bio.uima.AlignmentPair");
+    return (ByteArray)(jcasType.ll_cas.ll_getFSForRef(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment1)));}
+    
+  /** setter for alignment1 - sets Aligned first protein, gaps as '-' 
+   * @generated */
+  public void setAlignment1(ByteArray v) {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_alignment1 == null)
+      jcasType.jcas.throwFeatMissing("alignment1", "bio.uima.AlignmentPair");
+    jcasType.ll_cas.ll_setRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment1, jcasType.ll_cas.ll_getFSRef(v));}    
+    
+  /** indexed getter for alignment1 - gets an indexed value - Aligned first protein, gaps as '-'
+   * @generated */
+  public byte getAlignment1(int i) {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_alignment1 == null)
+      jcasType.jcas.throwFeatMissing("alignment1", "bio.uima.AlignmentPair");
+    jcasType.jcas.checkArrayBounds(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment1), i);
+    return jcasType.ll_cas.ll_getByteArrayValue(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment1), i);}
+
+  /** indexed setter for alignment1 - sets an indexed value - Aligned first protein, gaps as '-'
+   * @generated */
+  public void setAlignment1(int i, byte v) { 
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_alignment1 == null)
+      jcasType.jcas.throwFeatMissing("alignment1", "bio.uima.AlignmentPair");
+    jcasType.jcas.checkArrayBounds(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment1), i);
+    jcasType.ll_cas.ll_setByteArrayValue(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment1), i, v);}
+ 
+    
+  //*--------------*
+  //* Feature: alignment2
+
+  /** getter for alignment2 - gets Aligned second protein, gaps as '-'
+   * @generated */
+  public ByteArray getAlignment2() {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_alignment2 == null)
+      jcasType.jcas.throwFeatMissing("alignment2", "bio.uima.AlignmentPair");
+    return (ByteArray)(jcasType.ll_cas.ll_getFSForRef(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment2)));}
+    
+  /** setter for alignment2 - sets Aligned second protein, gaps as '-' 
+   * @generated */
+  public void setAlignment2(ByteArray v) {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_alignment2 == null)
+      jcasType.jcas.throwFeatMissing("alignment2", "bio.uima.AlignmentPair");
+    jcasType.ll_cas.ll_setRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment2, jcasType.ll_cas.ll_getFSRef(v));}    
+    
+  /** indexed getter for alignment2 - gets an indexed value - Aligned second protein, gaps as '-'
+   * @generated */
+  public byte getAlignment2(int i) {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_alignment2 == null)
+      jcasType.jcas.throwFeatMissing("alignment2", "bio.uima.AlignmentPair");
+    jcasType.jcas.checkArrayBounds(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment2), i);
+    return jcasType.ll_cas.ll_getByteArrayValue(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment2), i);}
+
+  /** indexed setter for alignment2 - sets an indexed value - Aligned second protein, gaps as '-'
+   * @generated */
+  public void setAlignment2(int i, byte v) { 
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_alignment2 == null)
+      jcasType.jcas.throwFeatMissing("alignment2", "bio.uima.AlignmentPair");
+    jcasType.jcas.checkArrayBounds(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment2), i);
+    jcasType.ll_cas.ll_setByteArrayValue(jcasType.ll_cas.ll_getRefValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_alignment2), i, v);}
+   
+    
+  //*--------------*
+  //* Feature: cigar
+
+  /** getter for cigar - gets Alignment of the pair as run-length operations (M, I, D), in place of alignment1 and alignment2
+   * @generated */
+  public String getCigar() {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_cigar == null)
+      jcasType.jcas.throwFeatMissing("cigar", "bio.uima.AlignmentPair");
+    return jcasType.ll_cas.ll_getStringValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_cigar);}
+    
+  /** setter for cigar - sets Alignment of the pair as run-length operations (M, I, D), in place of alignment1 and alignment2 
+   * @generated */
+  public void setCigar(String v) {
+    if (AlignmentPair_Type.featOkTst && ((AlignmentPair_Type)jcasType).casFeat_cigar == null)
+      jcasType.jcas.throwFeatMissing("cigar", "bio.uima.AlignmentPair");
+    jcasType.ll_cas.ll_setStringValue(addr, ((AlignmentPair_Type)jcasType).casFeatCode_cigar, v);}    
+  }
+
+    
\ No newline at end of file
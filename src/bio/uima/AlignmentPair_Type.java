@@ -0,0 +1,227 @@
+
+/* First created by JCasGen Sun Oct 18 10:12:44 EDT 2026 */
+package bio.uima;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSGenerator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.FeatureImpl;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+/** 
+ * Updated by JCasGen Sun Oct 18 10:12:44 EDT 2026
+ * @generated */
+public class AlignmentPair_Type extends TOP_Type {
+  /** @generated */
+  @Override
+  protected FSGenerator getFSGenerator() {return fsGenerator;}
+  /** @generated */
+  private final FSGenerator fsGenerator = 
+    new FSGenerator() {
+      public FeatureStructure createFS(int addr, CASImpl cas) {
+  			 if (AlignmentPair_Type.this.useExistingInstance) {
+  			   // Return eq fs instance if already created
+  		     FeatureStructure fs = AlignmentPair_Type.this.jcas.getJfsFromCaddr(addr);
+  		     if (null == fs) {
+  		       fs = new AlignmentPair(addr, AlignmentPair_Type.this);
+  			   AlignmentPair_Type.this.jcas.putJfsFromCaddr(addr, fs);
+  			   return fs;
+  		     }
+  		     return fs;
+        } else return new AlignmentPair(addr, AlignmentPair_Type.this);
+  	  }
+    };
+  /** @generated */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = AlignmentPair.typeIndexID;
+  /** @generated 
+     @modifiable */
+  @SuppressWarnings ("hiding")
+  public final static boolean featOkTst = JCasRegistry.getFeatOkTst("bio.uima.AlignmentPair");
+ 
+  /** @generated */
+  final Feature casFeat_first;
+  /** @generated */
+  final int     casFeatCode_first;
+  /** @generated */ 
+  public int getFirst(int addr) {
+        if (featOkTst && casFeat_first == null)
+      jcas.throwFeatMissing("first", "bio.uima.AlignmentPair");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_first);
+  }
+  /** @generated */    
+  public void setFirst(int addr, int v) {
+        if (featOkTst && casFeat_first == null)
+      jcas.throwFeatMissing("first", "bio.uima.AlignmentPair");
+    ll_cas.ll_setIntValue(addr, casFeatCode_first, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_second;
+  /** @generated */
+  final int     casFeatCode_second;
+  /** @generated */ 
+  public int getSecond(int addr) {
+        if (featOkTst && casFeat_second == null)
+      jcas.throwFeatMissing("second", "bio.uima.AlignmentPair");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_second);
+  }
+  /** @generated */    
+  public void setSecond(int addr, int v) {
+        if (featOkTst && casFeat_second == null)
+      jcas.throwFeatMissing("second", "bio.uima.AlignmentPair");
+    ll_cas.ll_setIntValue(addr, casFeatCode_second, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_score;
+  /** @generated */
+  final int     casFeatCode_score;
+  /** @generated */ 
+  public int getScore(int addr) {
+        if (featOkTst && casFeat_score == null)
+      jcas.throwFeatMissing("score", "bio.uima.AlignmentPair");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_score);
+  }
+  /** @generated */    
+  public void setScore(int addr, int v) {
+        if (featOkTst && casFeat_score == null)
+      jcas.throwFeatMissing("score", "bio.uima.AlignmentPair");
+    ll_cas.ll_setIntValue(addr, casFeatCode_score, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_alignment1;
+  /** @generated */
+  final int     casFeatCode_alignment1;
+  /** @generated */ 
+  public int getAlignment1(int addr) {
+        if (featOkTst && casFeat_alignment1 == null)
+      jcas.throwFeatMissing("alignment1", "bio.uima.AlignmentPair");
+    return ll_cas.ll_getRefValue(addr, casFeatCode_alignment1);
+  }
+  /** @generated */    
+  public void setAlignment1(int addr, int v) {
+        if (featOkTst && casFeat_alignment1 == null)
+      jcas.throwFeatMissing("alignment1", "bio.uima.AlignmentPair");
+    ll_cas.ll_setRefValue(addr, casFeatCode_alignment1, v);}
+    
+   /** @generated */
+  public byte getAlignment1(int addr, int i) {
+        if (featOkTst && casFeat_alignment1 == null)
+      jcas.throwFeatMissing("alignment1", "bio.uima.AlignmentPair");
+    if (lowLevelTypeChecks)
+      return ll_cas.ll_getByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_alignment1), i, true);
+    jcas.checkArrayBounds(ll_cas.ll_getRefValue(addr, casFeatCode_alignment1), i);
+    return ll_cas.ll_getByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_alignment1), i);
+  }
+   
+  /** @generated */ 
+  public void setAlignment1(int addr, int i, byte v) {
+        if (featOkTst && casFeat_alignment1 == null)
+      jcas.throwFeatMissing("alignment1", "bio.uima.AlignmentPair");
+    if (lowLevelTypeChecks)
+      ll_cas.ll_setByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_alignment1), i, v, true);
+    jcas.checkArrayBounds(ll_cas.ll_getRefValue(addr, casFeatCode_alignment1), i);
+    ll_cas.ll_setByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_alignment1), i, v);
+  }
+  
+ 
+  /** @generated */
+  final Feature casFeat_alignment2;
+  /** @generated */
+  final int     casFeatCode_alignment2;
+  /** @generated */ 
+  public int getAlignment2(int addr) {
+        if (featOkTst && casFeat_alignment2 == null)
+      jcas.throwFeatMissing("alignment2", "bio.uima.AlignmentPair");
+    return ll_cas.ll_getRefValue(addr, casFeatCode_alignment2);
+  }
+  /** @generated */    
+  public void setAlignment2(int addr, int v) {
+        if (featOkTst && casFeat_alignment2 == null)
+      jcas.throwFeatMissing("alignment2", "bio.uima.AlignmentPair");
+    ll_cas.ll_setRefValue(addr, casFeatCode_alignment2, v);}
+    
+   /** @generated */
+  public byte getAlignment2(int addr, int i) {
+        if (featOkTst && casFeat_alignment2 == null)
+      jcas.throwFeatMissing("alignment2", "bio.uima.AlignmentPair");
+    if (lowLevelTypeChecks)
+      return ll_cas.ll_getByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_alignment2), i, true);
+    jcas.checkArrayBounds(ll_cas.ll_getRefValue(addr, casFeatCode_alignment2), i);
+    return ll_cas.ll_getByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_alignment2), i);
+  }
+   
+  /** @generated */ 
+  public void setAlignment2(int addr, int i, byte v) {
+        if (featOkTst && casFeat_alignment2 == null)
+      jcas.throwFeatMissing("alignment2", "bio.uima.AlignmentPair");
+    if (lowLevelTypeChecks)
+      ll_cas.ll_setByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_alignment2), i, v, true);
+    jcas.checkArrayBounds(ll_cas.ll_getRefValue(addr, casFeatCode_alignment2), i);
+    ll_cas.ll_setByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_alignment2), i, v);
+  }
+  
+ 
+  /** @generated */
+  final Feature casFeat_cigar;
+  /** @generated */
+  final int     casFeatCode_cigar;
+  /** @generated */ 
+  public String getCigar(int addr) {
+        if (featOkTst && casFeat_cigar == null)
+      jcas.throwFeatMissing("cigar", "bio.uima.AlignmentPair");
+    return ll_cas.ll_getStringValue(addr, casFeatCode_cigar);
+  }
+  /** @generated */    
+  public void setCigar(int addr, String v) {
+        if (featOkTst && casFeat_cigar == null)
+      jcas.throwFeatMissing("cigar", "bio.uima.AlignmentPair");
+    ll_cas.ll_setStringValue(addr, casFeatCode_cigar, v);}
+    
+  
+
+
+
+  /** initialize variables to correspond with Cas Type and Features
+	* @generated */
+  public AlignmentPair_Type(JCas jcas, Type casType) {
+    super(jcas, casType);
+    casImpl.getFSClassRegistry().addGeneratorForType((TypeImpl)this.casType, getFSGenerator());
+
+ 
+    casFeat_first = jcas.getRequiredFeatureDE(casType, "first", "uima.cas.Integer", featOkTst);
+    casFeatCode_first  = (null == casFeat_first) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_first).getCode();
+
+ 
+    casFeat_second = jcas.getRequiredFeatureDE(casType, "second", "uima.cas.Integer", featOkTst);
+    casFeatCode_second  = (null == casFeat_second) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_second).getCode();
+
+ 
+    casFeat_score = jcas.getRequiredFeatureDE(casType, "score", "uima.cas.Integer", featOkTst);
+    casFeatCode_score  = (null == casFeat_score) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_score).getCode();
+
+ 
+    casFeat_alignment1 = jcas.getRequiredFeatureDE(casType, "alignment1", "uima.cas.ByteArray", featOkTst);
+    casFeatCode_alignment1  = (null == casFeat_alignment1) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_alignment1).getCode();
+
+ 
+    casFeat_alignment2 = jcas.getRequiredFeatureDE(casType, "alignment2", "uima.cas.ByteArray", featOkTst);
+    casFeatCode_alignment2  = (null == casFeat_alignment2) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_alignment2).getCode();
+
+ 
+    casFeat_cigar = jcas.getRequiredFeatureDE(casType, "cigar", "uima.cas.String", featOkTst);
+    casFeatCode_cigar  = (null == casFeat_cigar) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_cigar).getCode();
+
+  }
+}
+
+
+
+    
\ No newline at end of file
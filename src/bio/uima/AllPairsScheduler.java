@@ -0,0 +1,245 @@
+package bio.uima;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Runs a task on every pair (iii, jjj), iii < jjj, of a set of sequences on
+ * a work-stealing fork/join pool.
+ *
+ * Pairs are numbered row by row through the upper triangle, so pair (iii, jjj)
+ * of n sequences has index iii * n - iii * (iii + 1) / 2 + (jjj - iii - 1).
+ * The triangle is cut into contiguous tiles of roughly equal estimated cost
+ * (the product of the two sequence lengths) and tiles are split recursively
+ * between workers. Each pair hands its index to the task, so results can be
+ * written into preallocated slots and come out in the same order as a
+ * sequential run.
+ */
+public class AllPairsScheduler {
+
+	private static final int TILES_PER_THREAD = 8;									// Tiles per worker, for stealing slack
+
+	/*
+	 * Work done on a single pair of sequences. Called concurrently from
+	 * several threads, each call with a different pair.
+	 */
+	public interface PairTask {
+		void run(int first, int second, int pairIndex);
+	}
+
+	/*
+	 * Work done on a single point (sequence). Called concurrently from
+	 * several threads, each call with a different point.
+	 */
+	public interface PointTask {
+		void run(int point);
+	}
+
+	private final ForkJoinPool pool;
+
+	/*
+	 * @param	threads			Number of worker threads, or 0 to use all available processors
+	 */
+	public AllPairsScheduler(int threads) {
+		this.pool = (threads > 0) ? new ForkJoinPool(threads) : new ForkJoinPool();
+	}
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/*
+	 * Returns the pool the pairs run on, for work a pair forks itself
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/*
+	 * Returns the number of pairs of n sequences
+	 */
+	public static int pairCount(int n) {
+		long count = (long) n * (n - 1) / 2;
+		if(count > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many pairs for " + n + " sequences");
+		}
+		return (int) count;
+	}
+
+	/*
+	 * Returns the index of pair (first, second), first < second, of n sequences
+	 */
+	public static int pairIndex(int first, int second, int n) {
+		return (int) ((long) first * n - (long) first * (first + 1) / 2 + (second - first - 1));
+	}
+
+	/*
+	 * Runs task on all pairs of sequences and returns when every pair is done.
+	 *
+	 * @param	lengths			Length of every sequence, used to estimate the cost of a pair
+	 * @param	task			Task to run on every pair
+	 */
+	public void forEachPair(int[] lengths, PairTask task) {
+		forEachPair(lengths, 0, pairCount(lengths.length), task);
+	}
+
+	/*
+	 * Runs task on the pairs of sequences whose index is in [fromPair, toPair)
+	 * and returns when every one of them is done.
+	 *
+	 * @param	lengths			Length of every sequence, used to estimate the cost of a pair
+	 * @param	fromPair		Index of the first pair to run
+	 * @param	toPair			Index one past the last pair to run
+	 * @param	task			Task to run on every pair
+	 */
+	public void forEachPair(int[] lengths, int fromPair, int toPair, PairTask task) {
+		int[] tiles = partition(lengths, fromPair, toPair, pool.getParallelism() * TILES_PER_THREAD);
+		if(tiles.length > 1) {
+			pool.invoke(new TileRange(lengths.length, tiles, 0, tiles.length - 1, task));
+		}
+	}
+
+	/*
+	 * Runs task on every point 0..count-1 and returns when every point is done.
+	 *
+	 * @param	count			Number of points
+	 * @param	task			Task to run on every point
+	 */
+	public void forEachPoint(int count, PointTask task) {
+		if(count > 0) {
+			int grain = Math.max(1, count / (pool.getParallelism() * TILES_PER_THREAD));
+			pool.invoke(new PointRange(0, count, grain, task));
+		}
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/*
+	 * Cuts the pair triangle into at most tileCount contiguous tiles of about
+	 * equal estimated cost.
+	 *
+	 * @return					Index of the first pair of every tile, followed by toPair, pairCount(lengths.length)
+	 */
+	static int[] partition(int[] lengths, int tileCount) {
+		return partition(lengths, 0, pairCount(lengths.length), tileCount);
+	}
+
+	/*
+	 * Cuts the pairs [fromPair, toPair) of the pair triangle into at most
+	 * tileCount contiguous tiles of about equal estimated cost.
+	 *
+	 * @return					Index of the first pair of every tile, followed by toPair
+	 */
+	static int[] partition(int[] lengths, int fromPair, int toPair, int tileCount) {
+		int n = lengths.length;
+		int pairs = toPair - fromPair;
+		if(pairs <= 0) return new int[] {fromPair};
+		long total = 0;
+		int index = 0;
+		for(int iii = 0; iii < n && index < toPair; iii++) {
+			for(int jjj = iii + 1; jjj < n && index < toPair; jjj++, index++) {
+				if(index >= fromPair) total += cost(lengths[iii], lengths[jjj]);
+			}
+		}
+		int[] starts = new int[Math.min(tileCount, pairs) + 1];
+		starts[0] = fromPair;
+		int tiles = 1;
+		long target = Math.max(1, total / (starts.length - 1));
+		long accumulated = 0;
+		index = 0;
+		for(int iii = 0; iii < n && index < toPair; iii++) {
+			for(int jjj = iii + 1; jjj < n && index < toPair; jjj++, index++) {
+				if(index < fromPair) continue;
+				if(accumulated >= target && tiles < starts.length - 1) {
+					starts[tiles++] = index;
+					accumulated = 0;
+				}
+				accumulated += cost(lengths[iii], lengths[jjj]);
+			}
+		}
+		starts[tiles++] = toPair;
+		int[] result = new int[tiles];
+		System.arraycopy(starts, 0, result, 0, tiles);
+		return result;
+	}
+
+	private static long cost(int length1, int length2) {
+		return (long) (length1 + 1) * (length2 + 1);
+	}
+
+	/*
+	 * Runs a range of tiles, splitting it in halves until a single tile is left
+	 */
+	private static class TileRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int n;
+		private final int[] tiles;
+		private final int fromTile;
+		private final int toTile;
+		private final PairTask task;
+
+		TileRange(int n, int[] tiles, int fromTile, int toTile, PairTask task) {
+			this.n = n;
+			this.tiles = tiles;
+			this.fromTile = fromTile;
+			this.toTile = toTile;
+			this.task = task;
+		}
+
+		@Override
+		protected void compute() {
+			if(toTile - fromTile > 1) {
+				int mid = (fromTile + toTile) >>> 1;
+				invokeAll(new TileRange(n, tiles, fromTile, mid, task), new TileRange(n, tiles, mid, toTile, task));
+				return;
+			}
+			int index = tiles[fromTile];
+			int end = tiles[toTile];
+			// locate the first pair of the tile, then walk the triangle row by row
+			int first = 0;
+			while(pairIndex(first, n - 1, n) < index) first++;
+			int second = index - pairIndex(first, first + 1, n) + first + 1;
+			for(; index < end; index++) {
+				task.run(first, second, index);
+				if(++second == n) {
+					first++;
+					second = first + 1;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Runs a range of points, splitting it in halves down to the grain size
+	 */
+	private static class PointRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int grain;
+		private final PointTask task;
+
+		PointRange(int from, int to, int grain, PointTask task) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.task = task;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > grain) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new PointRange(from, mid, grain, task), new PointRange(mid, to, grain, task));
+				return;
+			}
+			for(int point = from; point < to; point++) {
+				task.run(point);
+			}
+		}
+	}
+}
@@ -0,0 +1,380 @@
+package bio.uima;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.collection.CollectionReaderDescription;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceManager;
+
+/*
+ * Runs the pipeline over many FASTA files at once, e.g. a nightly batch of
+ * thousands of small files, writing the clusters of every file to its own
+ * result file as soon as that file is done.
+ *
+ * The pipeline is set up once: a fixed pool of analysis engines, sharing one
+ * resource manager, each with its own CAS, is created up front and reused
+ * for every file. A file is dispatched to a worker thread only once an
+ * engine is free, so no more files are in flight than there are engines,
+ * however many files are listed. Files are independent, so every file is
+ * clustered on its own, exactly as a BioUima run on that file alone.
+ *
+ * Inputs are FASTA files, directories (all files directly in them, in name
+ * order) and manifests ("@list.txt", one path per line). The result of
+ * "dir/name.fa" is "output/name.fa.clusters.tsv" (".clusters.binary" in the
+ * binary format), streamed by a ResultWriter of its own, as the engines are
+ * shared by all files, to a temporary file first, so only complete results
+ * are ever seen.
+ *
+ * An engine that failed on a file may still hold work units of it, so it
+ * is destroyed and replaced by a new one before the next file.
+ */
+public class BatchRunner {
+
+	private static final String READER_DESCRIPTOR = "/desc/FastaCollectionReaderDescriptor.xml";
+	private static final String PARAM_NUM_THREADS = "NumThreads";
+	private static final String PARAM_NUM_FRAMES = "NumFrames";
+	private static final String PARAM_MIN_ORF_LENGTH = "MinOrfLength";
+	private static final String PARAM_OUTPUT_FILE = "OutputFile";
+	private static final String[] SHARED_PARAMETERS = {"CheckpointDirectory", "ClusterStateFile"};	// Files an engine numbers or rewrites on its own
+	private static final String RESULT_SUFFIX = ".clusters.";
+	private static final String USAGE =
+			"Usage: java -cp biouima.jar bio.uima.BatchRunner -o outputDir [-f format] [-w workers] [-t threads] [-m residues] [-s storeDir] [-d descriptor] [-p name=value]... input...\n"
+			+ "  input       FASTA file, directory of FASTA files, or @manifest listing one path per line\n"
+			+ "  -o dir      directory to write the clusters of every input file to\n"
+			+ "  -f format   tsv (default) or binary\n"
+			+ "  -w workers  files processed at once, each with its own engine, all processors by default\n"
+			+ "  -t threads  threads of every engine for alignment and clustering, 1 by default\n"
+			+ "  -m residues translate only open reading frames of at least this many residues, on both strands\n"
+			+ "  -s dir      keep the DNA sequences off-heap, packed in a scratch store in dir\n"
+			+ "  -d file     pipeline descriptor to run instead of the packaged BioDescriptor.xml\n"
+			+ "  -p n=v      set a parameter of the pipeline descriptor, as for BioUima; CheckpointDirectory\n"
+			+ "              and ClusterStateFile need -w 1, as the engines would share them";
+
+	private static final Metrics.Timer FILE = Metrics.timer("batch.file");
+	private static final Metrics.Counter FAILURES = Metrics.counter("batch.failures");
+
+	private final int workerCount;
+	private final AnalysisEngineDescription desc;
+	private final ResourceManager resourceManager;
+	private final ArrayBlockingQueue<Engine> engines;								// Engines not processing a file
+	private final AtomicInteger engineCount = new AtomicInteger();					// Engines in the pool or in use
+	private final CollectionReaderDescription readerDesc;
+	private final File outputDirectory;
+	private final ResultWriter.Format format;
+
+	/*
+	 * An analysis engine and the CAS it processes files in
+	 */
+	private static final class Engine {
+		final AnalysisEngine ae;
+		final JCas jCas;
+
+		Engine(AnalysisEngine ae) throws Exception {
+			this.ae = ae;
+			this.jCas = ae.newJCas();
+		}
+	}
+
+	/*
+	 * Creates the engine pool
+	 *
+	 * @param	workers			Number of engines, i.e. of files processed at once
+	 * @param	desc			Pipeline descriptor, without an output file
+	 * @param	outputDirectory	Directory to write the results to
+	 * @param	format			Format of the results
+	 * @param	storeDirectory	Directory of the sequence store, or null to keep sequences in the CAS
+	 */
+	public BatchRunner(int workers, AnalysisEngineDescription desc, File outputDirectory, ResultWriter.Format format,
+			String storeDirectory) throws Exception {
+		this.outputDirectory = outputDirectory;
+		this.format = format;
+		this.workerCount = workers;
+		this.desc = desc;
+		readerDesc = UIMAFramework.getXMLParser().parseCollectionReaderDescription(BioUima.descriptor(READER_DESCRIPTOR));
+		if(storeDirectory != null) {
+			readerDesc.getCollectionReaderMetaData().getConfigurationParameterSettings()
+					.setParameterValue(FastaCollectionReader.PARAM_SEQUENCE_STORE, storeDirectory);
+		}
+		resourceManager = UIMAFramework.newDefaultResourceManager();					// one matrix and codon table for all engines
+		engines = new ArrayBlockingQueue<Engine>(workers);
+		for(int iii = 0; iii < workers; iii++) {
+			engines.add(newEngine());
+			engineCount.incrementAndGet();
+		}
+	}
+
+	private Engine newEngine() throws Exception {
+		return new Engine(UIMAFramework.produceAnalysisEngine(desc, resourceManager, null));
+	}
+
+	/*
+	 * Destroys an engine that failed on a file and returns a new one, or
+	 * null if none could be created
+	 */
+	private Engine replaceEngine(Engine failed) {
+		failed.ae.destroy();
+		try {
+			return newEngine();
+		} catch(Exception e) {
+			System.err.println("Could not replace a failed engine: " + e);
+			engineCount.decrementAndGet();
+			return null;
+		}
+	}
+
+	/*
+	 * Waits for a free engine, or returns null once every engine is lost
+	 */
+	private Engine takeEngine() throws InterruptedException {
+		while(engineCount.get() > 0) {
+			Engine engine = engines.poll(1, TimeUnit.SECONDS);
+			if(engine != null) return engine;
+		}
+		return null;
+	}
+
+	/*
+	 * Processes every file and returns the number of files that failed. A
+	 * failed file is reported on stderr and has no result file. If no
+	 * engine is left, the remaining files fail as well.
+	 */
+	public int run(ArrayList<File> files) throws InterruptedException {
+		final AtomicInteger failures = new AtomicInteger();
+		ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+		try {
+			for(int iii = 0; iii < files.size(); iii++) {
+				final File file = files.get(iii);
+				final Engine engine = takeEngine();
+				if(engine == null) {
+					System.err.println("No engine left, " + (files.size() - iii) + " files not processed");
+					failures.addAndGet(files.size() - iii);
+					break;
+				}
+				workers.execute(new Runnable() {
+					public void run() {
+						long start = FILE.start();
+						Engine next = engine;
+						try {
+							processFile(engine, file);
+						} catch(Exception e) {
+							failures.incrementAndGet();
+							FAILURES.increment();
+							System.err.println("Failed to process " + file + ": " + e);
+							next = replaceEngine(engine);
+						} finally {
+							FILE.stop(start);
+							if(next != null) engines.add(next);
+						}
+					}
+				});
+			}
+		} finally {
+			workers.shutdown();
+			workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		return failures.get();
+	}
+
+	/*
+	 * Runs the pipeline over one file and writes its result file
+	 */
+	private void processFile(Engine engine, File file) throws Exception {
+		File result = new File(outputDirectory, resultName(file, format));
+		File temp = new File(result.getPath() + ".tmp");
+		CollectionReaderDescription fileReaderDesc = (CollectionReaderDescription) readerDesc.clone();
+		fileReaderDesc.getCollectionReaderMetaData().getConfigurationParameterSettings()
+				.setParameterValue(FastaCollectionReader.PARAM_INPUT_FILES, new String[] {file.getPath()});
+		CollectionReader reader = UIMAFramework.produceCollectionReader(fileReaderDesc);
+		ResultWriter writer = new ResultWriter(FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), format);
+		boolean written = false;
+		try {
+			while(reader.hasNext()) {
+				engine.jCas.reset();
+				reader.getNext(engine.jCas.getCas());
+				BioUima.process(engine.ae, engine.jCas, writer);
+			}
+			writer.close();
+			Files.move(temp.toPath(), result.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			written = true;
+		} finally {
+			reader.close();
+			reader.destroy();
+			if(!written) {
+				try {
+					writer.close();
+				} catch(IOException e) {
+					// the result is dropped anyway, the failure that got here is reported
+				}
+				temp.delete();
+			}
+		}
+	}
+
+	/*
+	 * Returns the name of the result file of an input file
+	 */
+	static String resultName(File file, ResultWriter.Format format) {
+		return file.getName() + RESULT_SUFFIX + format.name().toLowerCase();
+	}
+	
+	public void destroy() {
+		for(Engine engine : engines) {
+			engine.ae.destroy();
+		}
+	}
+
+	/*
+	 * Expands the inputs to the files to process, in order
+	 */
+	static ArrayList<File> listFiles(ArrayList<String> inputs) throws IOException {
+		ArrayList<File> files = new ArrayList<File>();
+		for(String input : inputs) {
+			if(input.startsWith("@")) {
+				File manifest = new File(input.substring(1));
+				for(String line : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+					if(line.trim().isEmpty() || line.trim().startsWith("#")) continue;
+					File listed = new File(line.trim());
+					files.add(listed.isAbsolute() ? listed : new File(manifest.getAbsoluteFile().getParentFile(), line.trim()));
+				}
+			} else if(new File(input).isDirectory()) {
+				File[] entries = new File(input).listFiles();
+				Arrays.sort(entries);
+				for(File entry : entries) {
+					if(entry.isFile() && !entry.isHidden()) files.add(entry);
+				}
+			} else {
+				files.add(new File(input));
+			}
+		}
+		return files;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String output = null;
+		int workers = Runtime.getRuntime().availableProcessors();
+		int threads = 1;
+		int minOrfLength = 0;
+		ResultWriter.Format format = ResultWriter.Format.TSV;
+		String storeDirectory = null;
+		String descriptorFile = null;
+		ArrayList<String> parameters = new ArrayList<String>();
+		ArrayList<String> inputs = new ArrayList<String>();
+		for(int iii = 0; iii < args.length; iii++) {
+			if(args[iii].equals("-o") && iii + 1 < args.length) {
+				output = args[++iii];
+			} else if(args[iii].equals("-f") && iii + 1 < args.length) {
+				format = parseFormat(args[++iii]);
+			} else if(args[iii].equals("-w") && iii + 1 < args.length) {
+				workers = parseCount(args[++iii], 1);
+			} else if(args[iii].equals("-t") && iii + 1 < args.length) {
+				threads = parseCount(args[++iii], 0);
+			} else if(args[iii].equals("-m") && iii + 1 < args.length) {
+				minOrfLength = parseCount(args[++iii], 1);
+			} else if(args[iii].equals("-s") && iii + 1 < args.length) {
+				storeDirectory = args[++iii];
+			} else if(args[iii].equals("-d") && iii + 1 < args.length) {
+				descriptorFile = args[++iii];
+			} else if(args[iii].equals("-p") && iii + 1 < args.length) {
+				parameters.add(args[++iii]);
+			} else if(args[iii].startsWith("-")) {
+				exitWithUsage("Unknown option " + args[iii]);
+			} else {
+				inputs.add(args[iii]);
+			}
+		}
+		if(output == null) exitWithUsage("No output directory given");
+		if(inputs.isEmpty()) exitWithUsage("No input given");
+
+		ArrayList<File> files = listFiles(inputs);
+		HashSet<String> names = new HashSet<String>();
+		for(File file : files) {
+			if(!names.add(file.getName())) {
+				exitWithUsage("Two inputs would have the same result file: " + resultName(file, format));
+			}
+		}
+		File outputDirectory = new File(output);
+		if(!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+			exitWithUsage("Could not create output directory " + output);
+		}
+
+		workers = Math.min(workers, Math.max(1, files.size()));
+		AnalysisEngineDescription desc = BioUima.parsePipeline(descriptorFile);
+		desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().setParameterValue(PARAM_NUM_THREADS, threads);
+		if(minOrfLength > 0) {
+			desc.getAnalysisEngineMetaData().getConfigurationParameterSettings()
+					.setParameterValue(PARAM_MIN_ORF_LENGTH, minOrfLength);
+			desc.getAnalysisEngineMetaData().getConfigurationParameterSettings()
+					.setParameterValue(PARAM_NUM_FRAMES, CodonTranslator.NUM_FRAMES);
+		}
+		for(String parameter : parameters) {
+			try {
+				BioUima.setParameter(desc, parameter);
+			} catch(IllegalArgumentException e) {
+				exitWithUsage(e.getMessage());
+			}
+		}
+		if(desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().getParameterValue(PARAM_OUTPUT_FILE) != null) {
+			exitWithUsage("The results of every file are written to the -o directory, " + PARAM_OUTPUT_FILE + " cannot be set");
+		}
+		for(String shared : SHARED_PARAMETERS) {
+			if(workers > 1 && desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().getParameterValue(shared) != null) {
+				exitWithUsage(shared + " would be shared by " + workers + " engines, it needs -w 1");
+			}
+		}
+
+		BatchRunner runner = new BatchRunner(workers, desc, outputDirectory, format, storeDirectory);
+		int failures;
+		try {
+			failures = runner.run(files);
+		} finally {
+			runner.destroy();
+		}
+		System.err.println("Processed " + files.size() + " files, " + failures + " failed");
+		if(failures > 0) System.exit(1);
+	}
+
+	private static ResultWriter.Format parseFormat(String value) {
+		try {
+			return ResultWriter.Format.valueOf(value.toUpperCase());
+		} catch(IllegalArgumentException e) {
+			exitWithUsage("Unknown output format " + value);
+			return null;
+		}
+	}
+	
+	private static int parseCount(String value, int minimum) {
+		try {
+			int count = Integer.parseInt(value);
+			if(count >= minimum) return count;
+		} catch(NumberFormatException e) {
+			// reported below
+		}
+		exitWithUsage("Expected a number >= " + minimum + ", not " + value);
+		return minimum;
+	}
+
+	private static void exitWithUsage(String message) {
+		System.err.println(message);
+		System.err.println(USAGE);
+		System.exit(-1);
+	}
+}
@@ -0,0 +1,114 @@
+package bio.uima;
+
+import java.util.Map;
+
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.analysis_engine.metadata.AnalysisEngineMetaData;
+import org.apache.uima.flow.FinalStep;
+import org.apache.uima.flow.Flow;
+import org.apache.uima.flow.FlowControllerContext;
+import org.apache.uima.flow.JCasFlowController_ImplBase;
+import org.apache.uima.flow.JCasFlow_ImplBase;
+import org.apache.uima.flow.SimpleStep;
+import org.apache.uima.flow.Step;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+
+/*
+ * Flow controller of BioDescriptor that pipelines the all-pairs alignment
+ * as work units:
+ *
+ *   input CAS:		translation, translation checkpoint, pair tile segmenter
+ *   work unit:		alignment, merger, then dropped
+ *   merged CAS:	alignment checkpoint, clustering, result writer, then output
+ *
+ * An input CAS resumed from a checkpoint skips the stages whose output it
+ * already holds: it goes straight to clustering if it is aligned, and only
+ * through the result writer if it is clustered.
+ */
+public class BioFlowController extends JCasFlowController_ImplBase {
+	
+	public static final String TRANSLATION = "ProteinSequenceDescriptor";				// Delegate keys
+	public static final String TRANSLATION_CHECKPOINT = "TranslationCheckpoint";
+	public static final String SEGMENTER = "PairTileSegmenterDescriptor";
+	public static final String ALIGNMENT = "SequenceAlignmentDescriptor";
+	public static final String MERGER = "AlignmentMergerDescriptor";
+	public static final String ALIGNMENT_CHECKPOINT = "AlignmentCheckpoint";
+	public static final String CLUSTERING = "ClusterDescriptor";
+	public static final String RESULT_WRITER = "ResultWriterDescriptor";
+	
+	private static final String[] INPUT_STEPS = {TRANSLATION, TRANSLATION_CHECKPOINT};
+	private static final String[] ALIGNED_STEPS = {ALIGNMENT_CHECKPOINT, CLUSTERING, RESULT_WRITER};
+	private static final String[] CLUSTERED_STEPS = {RESULT_WRITER};
+	private static final String[] UNIT_STEPS = {ALIGNMENT, MERGER};
+	
+	@Override
+	public void initialize(FlowControllerContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		Map<String, AnalysisEngineMetaData> delegates = context.getAnalysisEngineMetaDataMap();
+		for(String key : new String[] {TRANSLATION, TRANSLATION_CHECKPOINT, SEGMENTER, ALIGNMENT, MERGER,
+				ALIGNMENT_CHECKPOINT, CLUSTERING, RESULT_WRITER}) {
+			if(!delegates.containsKey(key)) {
+				throw new ResourceInitializationException(new IllegalArgumentException(
+						"BioFlowController needs a delegate named " + key));
+			}
+		}
+	}
+	
+	@Override
+	public Flow computeFlow(JCas cas) throws AnalysisEngineProcessException {
+		return new InputFlow();
+	}
+	
+	/*
+	 * Flow through a fixed list of delegates, then a final step
+	 */
+	private static class SequenceFlow extends JCasFlow_ImplBase {
+		private final String[] steps;
+		private final boolean drop;														// Drop the CAS at the end
+		private int nextStep = 0;
+		
+		SequenceFlow(String[] steps, boolean drop) {
+			this.steps = steps;
+			this.drop = drop;
+		}
+		
+		public Step next() throws AnalysisEngineProcessException {
+			return (nextStep < steps.length) ? new SimpleStep(steps[nextStep++]) : new FinalStep(drop);
+		}
+	}
+	
+	/*
+	 * Flow of an input CAS: it is translated, then cut into work units, or
+	 * clustered directly if it already holds alignments
+	 */
+	private static class InputFlow extends JCasFlow_ImplBase {
+		private int nextStep = 0;
+		private SequenceFlow rest = null;												// Steps after translation
+		
+		public Step next() throws AnalysisEngineProcessException {
+			if(nextStep < INPUT_STEPS.length) return new SimpleStep(INPUT_STEPS[nextStep++]);
+			if(rest == null) {
+				JCas cas = getJCas();
+				if(Utils.hasIndexed(cas, Utils.CLUSTER_INDEX)) {
+					rest = new SequenceFlow(CLUSTERED_STEPS, false);
+				} else if(Utils.hasIndexed(cas, Utils.ALIGNMENT_INDEX)) {
+					rest = new SequenceFlow(ALIGNED_STEPS, false);
+				} else {
+					rest = new SequenceFlow(new String[] {SEGMENTER}, false);
+				}
+			}
+			return rest.next();
+		}
+		
+		@Override
+		protected Flow newCasProduced(JCas newCas, String producedBy) throws AnalysisEngineProcessException {
+			return new SequenceFlow(UNIT_STEPS, true) {
+				@Override
+				protected Flow newCasProduced(JCas mergedCas, String mergedBy) throws AnalysisEngineProcessException {
+					return new SequenceFlow(ALIGNED_STEPS, false);
+				}
+			};
+		}
+	}
+}
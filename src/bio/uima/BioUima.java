@@ -1,15 +1,21 @@
 package bio.uima;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+
 import org.apache.uima.UIMAFramework;
 import org.apache.uima.analysis_engine.AnalysisEngine;
 import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.JCasIterator;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.collection.CollectionReaderDescription;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.metadata.ConfigurationParameter;
+import org.apache.uima.resource.metadata.ConfigurationParameterSettings;
 import org.apache.uima.util.XMLInputSource;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-
 public class BioUima {
 
 	/**
@@ -53,29 +59,268 @@ public class BioUima {
 	 * @param args
 	 */
 	
-	private static final String INPUT_XML_FILE = "desc/BioDescriptor.xml";
-	private static final String INPUT_DNA_FILE = "/home/farhang/workspace/BioUIMA/data/dna.txt";
+	private static final String PIPELINE_DESCRIPTOR = "/desc/BioDescriptor.xml";			// Classpath resources, from desc/
+	private static final String READER_DESCRIPTOR = "/desc/FastaCollectionReaderDescriptor.xml";
+	private static final String PARAM_NUM_THREADS = "NumThreads";
+	private static final String PARAM_NUM_FRAMES = "NumFrames";
+	private static final String PARAM_MIN_ORF_LENGTH = "MinOrfLength";
+	private static final String PARAM_OUTPUT_FILE = "OutputFile";
+	private static final String PARAM_OUTPUT_FORMAT = "OutputFormat";
+	private static final String USAGE =
+			"Usage: java -jar biouima.jar [-o output] [-f format] [-t threads] [-m residues] [-s storeDir] [-d descriptor] [-p name=value]... input...\n"
+			+ "       java -jar biouima.jar [-o output] [-f format] [-t threads] [-d descriptor] [-p name=value]... -r checkpoint...\n"
+			+ "  input       FASTA file of DNA sequences, read in order\n"
+			+ "  -r          resume the pipeline from checkpoint files instead\n"
+			+ "  -o output   file to write the pairs and clusters to, stdout by default\n"
+			+ "  -f format   tsv (default) or binary\n"
+			+ "  -t threads  threads for alignment and clustering, 0 (default) for all processors\n"
+			+ "  -m residues translate only open reading frames of at least this many residues, on both strands\n"
+			+ "  -s dir      keep the DNA sequences off-heap, packed in a scratch store in dir\n"
+			+ "  -d file     pipeline descriptor to run instead of the packaged BioDescriptor.xml\n"
+			+ "  -p n=v      set a parameter of the pipeline descriptor, e.g. -p CheckpointDirectory=checkpoints,\n"
+			+ "              -p PrefilterSeed=1101, -p BandWidth=16 or -p ScoreOnly=true; repeat for more";
 	
+	/*
+	 * Runs the pipeline on the input DNA files or, with -r, resumes it from
+	 * checkpoint files. Stages whose output is already in a checkpoint are
+	 * skipped. The results of every batch are streamed out by the result
+	 * writer of the pipeline as soon as the batch is clustered.
+	 */
 	public static void main(String[] args) throws Exception {
+		String output = ResultWriterAnnotator.STDOUT;
+		String format = null;
+		Integer threads = null;
+		Integer minOrfLength = null;
+		String storeDirectory = null;
+		String descriptorFile = null;
+		boolean resume = false;
+		ArrayList<String> parameters = new ArrayList<String>();
+		ArrayList<String> inputs = new ArrayList<String>();
+		for(int iii = 0; iii < args.length; iii++) {
+			if(args[iii].equals("-o") && iii + 1 < args.length) {
+				output = args[++iii];
+			} else if(args[iii].equals("-f") && iii + 1 < args.length) {
+				format = parseFormat(args[++iii]);
+			} else if(args[iii].equals("-t") && iii + 1 < args.length) {
+				threads = parseThreads(args[++iii]);
+			} else if(args[iii].equals("-m") && iii + 1 < args.length) {
+				minOrfLength = parseOrfLength(args[++iii]);
+			} else if(args[iii].equals("-s") && iii + 1 < args.length) {
+				storeDirectory = args[++iii];
+			} else if(args[iii].equals("-d") && iii + 1 < args.length) {
+				descriptorFile = args[++iii];
+			} else if(args[iii].equals("-p") && iii + 1 < args.length) {
+				parameters.add(args[++iii]);
+			} else if(args[iii].equals("-r")) {
+				resume = true;
+			} else if(args[iii].startsWith("-")) {
+				exitWithUsage("Unknown option " + args[iii]);
+			} else {
+				inputs.add(args[iii]);
+			}
+		}
+		if(inputs.isEmpty()) {
+			exitWithUsage(resume ? "No checkpoint given" : "No input file given");
+		}
+		
 		// create the AE
-		XMLInputSource input = new XMLInputSource(INPUT_XML_FILE);
-		AnalysisEngineDescription desc = UIMAFramework.getXMLParser().parseAnalysisEngineDescription(input);
+		AnalysisEngineDescription desc = parsePipeline(descriptorFile);
+		ConfigurationParameterSettings settings = desc.getAnalysisEngineMetaData().getConfigurationParameterSettings();
+		if(threads != null) {
+			settings.setParameterValue(PARAM_NUM_THREADS, threads);
+		}
+		if(minOrfLength != null) {
+			settings.setParameterValue(PARAM_MIN_ORF_LENGTH, minOrfLength);
+			settings.setParameterValue(PARAM_NUM_FRAMES, CodonTranslator.NUM_FRAMES);
+		}
+		settings.setParameterValue(PARAM_OUTPUT_FILE, output);
+		if(format != null) {
+			settings.setParameterValue(PARAM_OUTPUT_FORMAT, format);
+		}
+		for(String parameter : parameters) {
+			try {
+				setParameter(desc, parameter);
+			} catch(IllegalArgumentException e) {
+				exitWithUsage(e.getMessage());
+			}
+		}
 		AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(desc);
-
-		// init a CAS
 		JCas jCas = ae.newJCas();
-		String fileText = Utils.readInputFile(INPUT_DNA_FILE);
-		jCas.setDocumentText(fileText);
-
-		// process the CAS
-		ae.process(jCas);
-
-		// print results to stdout
-		JCas clusterView = jCas.getView("clusters");
-		JCas alignmentView = jCas.getView("alignments");
-		String[] alignments = alignmentView.getDocumentText().split(" ");
-		String[] clusters = clusterView.getDocumentText().split(" ");
-		System.out.println("Cluster\tProtein alignment");
-		Utils.printTwoStringArrays(clusters, alignments);
+		try {
+			if(resume) {
+				// resume every checkpoint
+				for(String checkpoint : inputs) {
+					jCas.reset();
+					CasCheckpoint.read(jCas.getCas(), new File(checkpoint));
+					process(ae, jCas, null);
+				}
+			} else {
+				CollectionReader reader = createReader(inputs.toArray(new String[inputs.size()]), storeDirectory);
+				
+				// process every batch of records in a CAS, the pipeline writes the results
+				while(reader.hasNext()) {
+					jCas.reset();
+					reader.getNext(jCas.getCas());
+					process(ae, jCas, null);
+				}
+				reader.close();
+			}
+			ae.collectionProcessComplete();
+		} finally {
+			ae.destroy();
+		}
+	}
+	
+	/*
+	 * Runs the pipeline on a CAS and writes its results, unless writer is
+	 * null because the result writer of the pipeline is configured. The
+	 * clustered result comes out as a new CAS, unless the input was resumed
+	 * after alignment and is clustered in place.
+	 */
+	static void process(AnalysisEngine ae, JCas jCas, ResultWriter writer) throws Exception {
+		JCasIterator results = ae.processAndOutputNewCASes(jCas);
+		while(results.hasNext()) {
+			JCas result = results.next();
+			if(writer != null) writer.write(result);
+			result.release();
+		}
+		if(writer != null && Utils.hasIndexed(jCas, Utils.CLUSTER_INDEX)) writer.write(jCas);
+	}
+	
+	/*
+	 * Creates the collection reader streaming the input files, packing their
+	 * sequences into a store if storeDirectory is not null
+	 */
+	static CollectionReader createReader(String[] inputFiles, String storeDirectory) throws Exception {
+		CollectionReaderDescription readerDesc = UIMAFramework.getXMLParser().parseCollectionReaderDescription(descriptor(READER_DESCRIPTOR));
+		readerDesc.getCollectionReaderMetaData().getConfigurationParameterSettings()
+				.setParameterValue(FastaCollectionReader.PARAM_INPUT_FILES, inputFiles);
+		if(storeDirectory != null) {
+			readerDesc.getCollectionReaderMetaData().getConfigurationParameterSettings()
+					.setParameterValue(FastaCollectionReader.PARAM_SEQUENCE_STORE, storeDirectory);
+		}
+		return UIMAFramework.produceCollectionReader(readerDesc);
+	}
+	
+	/*
+	 * Parses the pipeline descriptor from a file or, if descriptorFile is
+	 * null, the one packaged on the classpath
+	 */
+	static AnalysisEngineDescription parsePipeline(String descriptorFile) throws Exception {
+		XMLInputSource source = (descriptorFile == null) ? descriptor(PIPELINE_DESCRIPTOR) : new XMLInputSource(new File(descriptorFile));
+		return UIMAFramework.getXMLParser().parseAnalysisEngineDescription(source);
+	}
+	
+	/*
+	 * Sets a parameter of the pipeline from a "name=value" option. The value
+	 * is converted to the type the descriptor declares for the parameter;
+	 * multi-valued parameters take comma separated values.
+	 *
+	 * @param	desc			Pipeline descriptor
+	 * @param	assignment		Name and value of the parameter, e.g. "BandWidth=16"
+	 * @throws	IllegalArgumentException if the parameter is not declared or the value is not of its type
+	 */
+	static void setParameter(AnalysisEngineDescription desc, String assignment) {
+		int split = assignment.indexOf('=');
+		if(split <= 0) {
+			throw new IllegalArgumentException("Expected a parameter as name=value, not " + assignment);
+		}
+		String name = assignment.substring(0, split).trim();
+		String value = assignment.substring(split + 1).trim();
+		ConfigurationParameter declaration = desc.getAnalysisEngineMetaData().getConfigurationParameterDeclarations()
+				.getConfigurationParameter(null, name);
+		if(declaration == null) {
+			StringBuilder names = new StringBuilder();
+			for(ConfigurationParameter parameter : desc.getAnalysisEngineMetaData().getConfigurationParameterDeclarations()
+					.getConfigurationParameters()) {
+				names.append(' ').append(parameter.getName());
+			}
+			throw new IllegalArgumentException("Unknown parameter " + name + ", the pipeline has:" + names);
+		}
+		Object setting;
+		if(declaration.isMultiValued()) {
+			String[] values = value.isEmpty() ? new String[0] : value.split(",");
+			Object[] settings = newArray(declaration.getType(), values.length);
+			for(int iii = 0; iii < values.length; iii++) {
+				settings[iii] = parseValue(declaration, values[iii].trim());
+			}
+			setting = settings;
+		} else {
+			setting = parseValue(declaration, value);
+		}
+		desc.getAnalysisEngineMetaData().getConfigurationParameterSettings().setParameterValue(name, setting);
+	}
+	
+	private static Object[] newArray(String type, int length) {
+		if(type.equals(ConfigurationParameter.TYPE_INTEGER)) return new Integer[length];
+		if(type.equals(ConfigurationParameter.TYPE_FLOAT)) return new Float[length];
+		if(type.equals(ConfigurationParameter.TYPE_BOOLEAN)) return new Boolean[length];
+		return new String[length];
+	}
+	
+	private static Object parseValue(ConfigurationParameter declaration, String value) {
+		String type = declaration.getType();
+		try {
+			if(type.equals(ConfigurationParameter.TYPE_INTEGER)) return Integer.valueOf(value);
+			if(type.equals(ConfigurationParameter.TYPE_FLOAT)) return Float.valueOf(value);
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException(declaration.getName() + " must be " + type + ", not " + value);
+		}
+		if(type.equals(ConfigurationParameter.TYPE_BOOLEAN)) {
+			if(value.equalsIgnoreCase("true")) return Boolean.TRUE;
+			if(value.equalsIgnoreCase("false")) return Boolean.FALSE;
+			throw new IllegalArgumentException(declaration.getName() + " must be true or false, not " + value);
+		}
+		return value;
+	}
+	
+	/*
+	 * Opens a descriptor packaged on the classpath. Imports by location
+	 * resolve against its URL, so the descriptors it imports are read from
+	 * the same jar or directory.
+	 */
+	static XMLInputSource descriptor(String name) throws IOException {
+		URL url = BioUima.class.getResource(name);
+		if(url == null) {
+			throw new IllegalStateException("Descriptor not found on the classpath: " + name);
+		}
+		return new XMLInputSource(url);
+	}
+	
+	private static String parseFormat(String value) {
+		try {
+			ResultWriter.Format.valueOf(value.toUpperCase());
+		} catch(IllegalArgumentException e) {
+			exitWithUsage("Unknown output format " + value);
+		}
+		return value;
+	}
+	
+	private static Integer parseOrfLength(String value) {
+		try {
+			int residues = Integer.parseInt(value);
+			if(residues >= 1) return residues;
+		} catch(NumberFormatException e) {
+			// reported below
+		}
+		exitWithUsage("ORF length must be a number >= 1, not " + value);
+		return null;
+	}
+	
+	private static Integer parseThreads(String value) {
+		try {
+			int threads = Integer.parseInt(value);
+			if(threads >= 0) return threads;
+		} catch(NumberFormatException e) {
+			// reported below
+		}
+		exitWithUsage("Thread count must be a number >= 0, not " + value);
+		return null;
+	}
+	
+	private static void exitWithUsage(String message) {
+		System.err.println(message);
+		System.err.println(USAGE);
+		System.exit(-1);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package bio.uima;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.activemq.broker.BrokerService;
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.aae.client.UimaAsBaseCallbackListener;
+import org.apache.uima.aae.client.UimaAsynchronousEngine;
+import org.apache.uima.adapter.jms.client.BaseUIMAAsynchronousEngine_impl;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.collection.EntityProcessStatus;
+import org.apache.uima.jcas.JCas;
+
+/*
+ * Runs the pipeline as UIMA-AS services on an embedded, in-process ActiveMQ
+ * broker: the alignment stage is deployed as a scaled-out service
+ * (desc/deploy/SequenceAlignmentService.xml) and the rest of the pipeline
+ * as a service whose alignment delegate is remote
+ * (desc/deploy/BioScaleOutService.xml). Every input CAS is cut into pair
+ * tiles, the tiles are aligned by the service instances, and the merged and
+ * clustered CAS comes back to this client as a new CAS.
+ *
+ * To scale out over several nodes, run a broker of your own, deploy
+ * SequenceAlignmentService.xml on every node with defaultBrokerURL pointing
+ * at it (deployAsyncService.sh), and pass the broker URL with -b. The
+ * other arguments are the FASTA files to read.
+ *
+ * Deploying needs a UIMA-AS installation in UIMA_HOME for dd2spring.xsl
+ * and saxon8.jar. Without one, and without -b, the pipeline the services
+ * would run, desc/BioScaleOutDescriptor.xml, runs in this process instead.
+ */
+public class BioUimaScaleOut {
+	
+	private static final String EMBEDDED_BROKER_URL = "vm://localhost?broker.persistent=false";
+	private static final String ALIGNMENT_SERVICE_XML = "desc/deploy/SequenceAlignmentService.xml";
+	private static final String PIPELINE_SERVICE_XML = "desc/deploy/BioScaleOutService.xml";
+	private static final String SCALE_OUT_DESCRIPTOR = "/desc/BioScaleOutDescriptor.xml";
+	private static final String PIPELINE_QUEUE = "BioUimaQueue";
+	private static final int CLIENT_CAS_POOL_SIZE = 2;
+	
+	public static void main(String[] args) throws Exception {
+		String brokerUrl = null;
+		ArrayList<String> inputs = new ArrayList<String>();
+		for(int iii = 0; iii < args.length; iii++) {
+			if(args[iii].equals("-b") && iii + 1 < args.length) {
+				brokerUrl = args[++iii];
+			} else {
+				inputs.add(args[iii]);
+			}
+		}
+		if(inputs.isEmpty()) {
+			System.err.println("Usage: BioUimaScaleOut [-b brokerUrl] input...");
+			System.exit(-1);
+		}
+		String uimaHome = System.getenv("UIMA_HOME");
+		if(uimaHome == null && brokerUrl != null) {
+			System.err.println("UIMA_HOME must point to a UIMA-AS installation to deploy the services");
+			System.exit(-1);
+		}
+		
+		ResultWriter writer = new ResultWriter(new FileOutputStream(FileDescriptor.out).getChannel(), ResultWriter.Format.TSV);
+		String[] inputFiles = inputs.toArray(new String[inputs.size()]);
+		if(uimaHome == null) {
+			System.err.println("UIMA_HOME is not set, running the pipeline of the services in this process");
+			runInProcess(inputFiles, writer);
+		} else {
+			runServices(brokerUrl, uimaHome, inputFiles, writer);
+		}
+		writer.flush();
+	}
+	
+	/*
+	 * Runs the pipeline of the services, with its alignment stage cut into
+	 * work units, in this process
+	 *
+	 * @param	inputFiles		FASTA files to read
+	 * @param	writer			Writer of the results
+	 */
+	static void runInProcess(String[] inputFiles, ResultWriter writer) throws Exception {
+		AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(
+				UIMAFramework.getXMLParser().parseAnalysisEngineDescription(BioUima.descriptor(SCALE_OUT_DESCRIPTOR)));
+		try {
+			JCas jCas = ae.newJCas();
+			CollectionReader reader = BioUima.createReader(inputFiles, null);
+			while(reader.hasNext()) {
+				jCas.reset();
+				reader.getNext(jCas.getCas());
+				BioUima.process(ae, jCas, writer);
+			}
+			reader.close();
+			ae.collectionProcessComplete();
+		} finally {
+			ae.destroy();
+		}
+	}
+	
+	/*
+	 * Deploys the services and sends them the input
+	 *
+	 * @param	brokerUrl		Broker the alignment services are deployed on, or null to start an embedded broker and deploy them here
+	 * @param	uimaHome		UIMA-AS installation
+	 * @param	inputFiles		FASTA files to read
+	 * @param	writer			Writer of the results, called from the threads of the client
+	 */
+	static void runServices(String brokerUrl, String uimaHome, String[] inputFiles, final ResultWriter writer) throws Exception {
+		// start the embedded broker, unless an external one is given
+		BrokerService broker = null;
+		if(brokerUrl == null) {
+			brokerUrl = EMBEDDED_BROKER_URL;
+			broker = new BrokerService();
+			broker.setBrokerName("localhost");
+			broker.setPersistent(false);
+			broker.setUseJmx(false);
+			broker.start();
+		}
+		System.setProperty("defaultBrokerURL", brokerUrl);
+		
+		try {
+			// deploy the services, then connect to the pipeline
+			final UimaAsynchronousEngine engine = new BaseUIMAAsynchronousEngine_impl();
+			Map<String, Object> context = new HashMap<String, Object>();
+			context.put(UimaAsynchronousEngine.DD2SpringXsltFilePath, new File(uimaHome, "bin/dd2spring.xsl").getPath());
+			context.put(UimaAsynchronousEngine.SaxonClasspath, new File(uimaHome, "saxon/saxon8.jar").toURI().toString());
+			if(broker != null) {
+				engine.deploy(ALIGNMENT_SERVICE_XML, context);
+			}
+			engine.deploy(PIPELINE_SERVICE_XML, context);
+			context.put(UimaAsynchronousEngine.ServerUri, brokerUrl);
+			context.put(UimaAsynchronousEngine.ENDPOINT, PIPELINE_QUEUE);
+			context.put(UimaAsynchronousEngine.CasPoolSize, CLIENT_CAS_POOL_SIZE);
+			engine.addStatusCallbackListener(new UimaAsBaseCallbackListener() {
+				@Override
+				public void entityProcessComplete(CAS cas, EntityProcessStatus status) {
+					if(status != null && status.isException()) {
+						System.err.println(status.getExceptions());
+						return;
+					}
+					try {
+						// only the merged CASes carry clusters, the input CASes come back translated
+						if(Utils.hasIndexed(cas.getJCas(), Utils.CLUSTER_INDEX)) {
+							synchronized(writer) {
+								writer.write(cas.getJCas());
+							}
+						}
+					} catch(CASException e) {
+						e.printStackTrace();
+					} catch(IOException e) {
+						e.printStackTrace();
+					}
+				}
+			});
+			engine.initialize(context);
+			
+			// send every batch of records and wait for its results; no sequence store, services in other JVMs could not read it
+			CollectionReader reader = BioUima.createReader(inputFiles, null);
+			while(reader.hasNext()) {
+				CAS cas = engine.getCAS();
+				reader.getNext(cas);
+				engine.sendAndReceiveCAS(cas);
+				cas.release();
+			}
+			reader.close();
+			engine.stop();
+		} finally {
+			if(broker != null) broker.stop();
+		}
+	}
+}
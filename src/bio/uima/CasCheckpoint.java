@@ -0,0 +1,66 @@
+package bio.uima;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.Serialization;
+import org.apache.uima.resource.ResourceInitializationException;
+
+/*
+ * Saves and restores a whole CAS in UIMA's compressed binary serialization
+ * (Form 6), so a pipeline can be resumed from the last stage that finished.
+ *
+ * A checkpoint is written to a temporary file next to its target and then
+ * renamed, so an interrupted write never leaves a truncated checkpoint.
+ */
+public final class CasCheckpoint {
+
+	public static final String EXTENSION = ".form6";
+
+	private CasCheckpoint() {
+	}
+
+	/*
+	 * Writes a CAS, all of its views included, to a checkpoint file
+	 *
+	 * @param	cas				CAS to save
+	 * @param	file			Checkpoint file, replaced if it exists
+	 */
+	public static void write(CAS cas, File file) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(temp));
+		try {
+			Serialization.serializeWithCompression(cas, out, cas.getTypeSystem());
+		} catch(ResourceInitializationException e) {
+			throw new IOException("Could not serialize CAS to " + file, e);
+		} finally {
+			out.close();
+		}
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/*
+	 * Replaces the content of a CAS with a checkpoint file. The CAS must
+	 * have the type system the checkpoint was written with.
+	 *
+	 * @param	cas				CAS to restore into
+	 * @param	file			Checkpoint file
+	 */
+	public static void read(CAS cas, File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			Serialization.deserializeCAS(cas, in);
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package bio.uima;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+
+/*
+ * Writes every CAS that passes through it to a Form 6 checkpoint file named
+ * after the CAS number and the last stage the CAS went through, e.g.
+ * "cas-000000-aligned.form6". Does nothing unless a checkpoint directory
+ * is configured.
+ */
+public class CheckpointAnnotator extends JCasAnnotator_ImplBase {
+	
+	public static final String PARAM_CHECKPOINT_DIRECTORY = "CheckpointDirectory";
+	private static final Metrics.Timer STAGE = Metrics.timer("checkpoint");
+	
+	private File directory;																	// null when checkpoints are off
+	private int casCount = 0;																// CASes seen by this instance
+	
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		String path = (String) context.getConfigParameterValue(PARAM_CHECKPOINT_DIRECTORY);
+		if(path == null || path.trim().isEmpty()) return;
+		directory = new File(path.trim());
+		if(!directory.isDirectory() && !directory.mkdirs()) {
+			throw new ResourceInitializationException(ResourceInitializationException.COULD_NOT_ACCESS_DATA,
+					new Object[] {path});
+		}
+	}
+	
+	@Override
+	public void process(JCas cas) throws AnalysisEngineProcessException {
+		long start = STAGE.start();
+		try {
+			if(directory == null) return;
+			String name = String.format("cas-%06d-%s%s", casCount++, stage(cas), CasCheckpoint.EXTENSION);
+			try {
+				CasCheckpoint.write(cas.getCas(), new File(directory, name));
+			} catch(IOException e) {
+				throw new AnalysisEngineProcessException(e);
+			}
+		} finally {
+			STAGE.stop(start, cas);
+		}
+	}
+	
+	/*
+	 * Returns the name of the last stage whose output is in the CAS
+	 */
+	private static String stage(JCas cas) {
+		if(Utils.hasIndexed(cas, Utils.CLUSTER_INDEX)) return "clustered";
+		if(Utils.hasIndexed(cas, Utils.ALIGNMENT_INDEX)) return "aligned";
+		if(Utils.hasIndexed(cas, Utils.PROTEIN_INDEX)) return "translated";
+		return "read";
+	}
+}
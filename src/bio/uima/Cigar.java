@@ -0,0 +1,207 @@
+package bio.uima;
+
+import java.util.Arrays;
+
+/*
+ * Alignment of two sequences as run-length edit operations, CIGAR style,
+ * with its score and the ranges of both sequences it covers.
+ *
+ * "5M2I3M1D" reads as 5 columns pairing a residue of each sequence, 2
+ * columns holding a residue of the second sequence only (a gap in the
+ * first), 3 more pairs and a column holding a residue of the first sequence
+ * only (a gap in the second). A run is stored as one int, its length shifted
+ * left twice over its operation, so an alignment takes a few bytes per gap
+ * instead of two gapped strings; the gapped strings are rendered on request.
+ */
+public final class Cigar {
+
+	public static final int MATCH = 0;												// Residue of both sequences
+	public static final int INSERTION = 1;											// Residue of the second sequence only
+	public static final int DELETION = 2;											// Residue of the first sequence only
+	private static final String OPERATIONS = "MID";
+
+	private final int[] runs;														// (length << 2) | operation
+	private final int score;
+	private final int start1;
+	private final int end1;
+	private final int start2;
+	private final int end2;
+
+	private Cigar(int[] runs, int score, int start1, int start2) {
+		this.runs = runs;
+		this.score = score;
+		this.start1 = start1;
+		this.start2 = start2;
+		int length1 = 0;
+		int length2 = 0;
+		for(int run : runs) {
+			if((run & 3) != INSERTION) length1 += run >>> 2;
+			if((run & 3) != DELETION) length2 += run >>> 2;
+		}
+		this.end1 = start1 + length1;
+		this.end2 = start2 + length2;
+	}
+
+	/*
+	 * Parses the runs of an alignment, e.g. "5M2I3M1D"
+	 *
+	 * @param	cigar			Runs of the alignment
+	 * @param	score			Score of the alignment
+	 * @param	start1			Start of the alignment in the first sequence
+	 * @param	start2			Start of the alignment in the second sequence
+	 */
+	public static Cigar parse(String cigar, int score, int start1, int start2) {
+		Builder builder = new Builder();
+		int length = 0;
+		for(int iii = 0; iii < cigar.length(); iii++) {
+			char c = cigar.charAt(iii);
+			if(c >= '0' && c <= '9') {
+				length = length * 10 + (c - '0');
+				continue;
+			}
+			int operation = OPERATIONS.indexOf(c);
+			if(operation < 0 || length == 0) {
+				throw new IllegalArgumentException("Invalid CIGAR at " + iii + ": " + cigar);
+			}
+			builder.add(operation, length);
+			length = 0;
+		}
+		if(length != 0) {
+			throw new IllegalArgumentException("CIGAR ends in a count: " + cigar);
+		}
+		return builder.build(score, start1, start2);
+	}
+
+	/*
+	 * Reads the operations of an alignment off its two gapped strings
+	 *
+	 * @param	aligned1		First sequence with gaps
+	 * @param	aligned2		Second sequence with gaps, as long as the first
+	 * @param	score			Score of the alignment
+	 */
+	public static Cigar fromGapped(CharSequence aligned1, CharSequence aligned2, int score) {
+		Builder builder = new Builder();
+		for(int iii = 0; iii < aligned1.length(); iii++) {
+			builder.add((aligned1.charAt(iii) == '-') ? INSERTION : (aligned2.charAt(iii) == '-') ? DELETION : MATCH, 1);
+		}
+		return builder.build(score, 0, 0);
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	/*
+	 * Returns the same alignment with another score
+	 */
+	public Cigar withScore(int score) {
+		return new Cigar(runs, score, start1, start2);
+	}
+
+	public int getStart1() {
+		return start1;
+	}
+
+	public int getEnd1() {
+		return end1;
+	}
+
+	public int getStart2() {
+		return start2;
+	}
+
+	public int getEnd2() {
+		return end2;
+	}
+
+	public int getRunCount() {
+		return runs.length;
+	}
+
+	public int getOperation(int run) {
+		return runs[run] & 3;
+	}
+
+	public int getLength(int run) {
+		return runs[run] >>> 2;
+	}
+
+	/*
+	 * Returns the number of columns of the alignment
+	 */
+	public int getColumns() {
+		int columns = 0;
+		for(int run : runs) {
+			columns += run >>> 2;
+		}
+		return columns;
+	}
+
+	/*
+	 * Renders the alignment as two gapped strings
+	 *
+	 * @param	sequence1		First sequence, without gaps
+	 * @param	sequence2		Second sequence, without gaps
+	 * @return					Both sequences over the aligned ranges, with gaps
+	 */
+	public String[] render(CharSequence sequence1, CharSequence sequence2) {
+		int columns = getColumns();
+		StringBuilder aligned1 = new StringBuilder(columns);
+		StringBuilder aligned2 = new StringBuilder(columns);
+		int position1 = start1;
+		int position2 = start2;
+		for(int run : runs) {
+			int operation = run & 3;
+			for(int iii = run >>> 2; iii > 0; iii--) {
+				aligned1.append((operation == INSERTION) ? '-' : sequence1.charAt(position1++));
+				aligned2.append((operation == DELETION) ? '-' : sequence2.charAt(position2++));
+			}
+		}
+		return new String[] {aligned1.toString(), aligned2.toString()};
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(runs.length * 4);
+		for(int run : runs) {
+			text.append(run >>> 2).append(OPERATIONS.charAt(run & 3));
+		}
+		return text.toString();
+	}
+
+	/*
+	 * Collects the operations of an alignment in order, merging runs
+	 */
+	public static final class Builder {
+		private int[] runs = new int[16];
+		private int count = 0;
+
+		/*
+		 * Appends count columns of an operation
+		 */
+		public void add(int operation, int count) {
+			if(count <= 0) return;
+			if(this.count > 0 && (runs[this.count - 1] & 3) == operation) {
+				runs[this.count - 1] += count << 2;
+				return;
+			}
+			if(this.count == runs.length) {
+				runs = Arrays.copyOf(runs, runs.length * 2);
+			}
+			runs[this.count++] = (count << 2) | operation;
+		}
+
+		/*
+		 * Appends all operations of another builder
+		 */
+		public void add(Builder other) {
+			for(int iii = 0; iii < other.count; iii++) {
+				add(other.runs[iii] & 3, other.runs[iii] >>> 2);
+			}
+		}
+
+		public Cigar build(int score, int start1, int start2) {
+			return new Cigar(Arrays.copyOf(runs, count), score, start1, start2);
+		}
+	}
+}
@@ -1,142 +1,295 @@
 package bio.uima;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
 
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
-import org.apache.uima.cas.CASException;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Level;
 
 public class ClusterAnnotator extends JCasAnnotator_ImplBase {
 	private static int GAP_PENALTY = -2;													// Penalty for insertion or deletion
-	private static HashMap<Character, HashMap<Character, Integer>> distances = Utils.initSimilarityMap();		// BLOSUM62 matrix
 	private static int currentEpsilon = 30;
 	private static int minPoints = 3;
 	
+	public static final String PARAM_NUM_THREADS = "NumThreads";
+	public static final String PARAM_PARALLEL_DBSCAN = "ParallelDbscan";
+	public static final String PARAM_CLUSTER_STATE_FILE = "ClusterStateFile";
+	public static final String RESOURCE_SUBSTITUTION_MATRIX = "SubstitutionMatrix";
+	
+	private static final long STATE_MAGIC = 0x42696f436c757374L;						// "BioClust"
+	private static final Metrics.Timer STAGE = Metrics.timer("clustering");
+	private static final Metrics.Timer SIMILARITIES = Metrics.timer("clustering.similarities");
+	private static final Metrics.Timer DBSCAN = Metrics.timer("clustering.dbscan");
+	private static final Metrics.Counter POINTS = Metrics.counter("clustering.points");
+	
+	private SubstitutionMatrix matrix;											// BLOSUM62 matrix
+	private AllPairsScheduler scheduler;
+	private boolean parallelDbscan;												// Union-find DBSCAN on the scheduler
+	private File clusterStateFile;												// Incremental clustering state, or null
+	
 	@Override
-	public void process(JCas cas) throws AnalysisEngineProcessException {
-		// TODO Auto-generated method stub
-		try {
-			String[] alignments = cas.getView("alignments").getDocumentText().split(" ");
-			int[] proteinClusters = dbScan(alignments, currentEpsilon, minPoints);
-			String clusters = Utils.combineIntArray(proteinClusters);
-			JCas cas1 = cas.createView("clusters");
-			cas1.setDocumentText(clusters);
-		} catch (CASException e) {
-			e.printStackTrace();
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		matrix = Utils.getResource(context, RESOURCE_SUBSTITUTION_MATRIX, SubstitutionMatrixResource.class).getMatrix();
+		Integer threads = (Integer) context.getConfigParameterValue(PARAM_NUM_THREADS);
+		scheduler = new AllPairsScheduler((threads == null) ? 0 : threads);
+		Boolean parallel = (Boolean) context.getConfigParameterValue(PARAM_PARALLEL_DBSCAN);
+		parallelDbscan = (parallel != null) && parallel;
+		String stateFile = (String) context.getConfigParameterValue(PARAM_CLUSTER_STATE_FILE);
+		if(stateFile != null && stateFile.trim().length() > 0) {
+			clusterStateFile = new File(stateFile.trim());
 		}
 	}
 	
-	/*
-	 * Performs DBSCAN clustering algorithm on an array of protein
-	 * sequences.
-	 * 
-	 * @param	proteins		Input protein sequences
-	 * @param	epsilon			Neighborhood to check points
-	 * @param	minPts			Minimum number of points that must be in epsilon radius
-	 * @return					Array that holds which cluster each protein belongs to
-	 */
-	private int[] dbScan(String[] proteins, int epsilon, int minPts) {
-		int cluster = 0;
-		boolean[] visited = new boolean[proteins.length];
-		int[] proteinClusters = new int[proteins.length];
-		for(int iii = 0; iii < proteins.length; iii++) {
-			if(visited[iii]) continue;
-			visited[iii] = true;
-			HashSet<Integer> neighbors = epsilonNeighbors(proteins, iii, epsilon);	
-			if(neighbors.size() < minPts) {
-				proteinClusters[iii] = -1;		// mark protein iii as noise
+	@Override
+	public void destroy() {
+		scheduler.shutdown();
+		super.destroy();
+	}
+	
+	@Override
+	public void process(JCas cas) throws AnalysisEngineProcessException {
+		long start = STAGE.start();
+		try {
+			if(Utils.hasIndexed(cas, Utils.CLUSTER_INDEX)) return;						// resumed after clustering
+		
+			// every aligned protein of every pair is a point, in pair order; both
+			// proteins of a pair rejected by the prefilter are noise points
+			ArrayList<byte[]> points = new ArrayList<byte[]>();
+			ArrayList<long[]> keys = new ArrayList<long[]>();
+			ArrayList<Integer> noisePoints = new ArrayList<Integer>();
+			String[] proteins = Utils.getProteins(cas);
+			for(AlignmentPair pair : Utils.getAlignmentPairs(cas)) {
+				if(pair.getScore() == KmerPrefilter.FILTERED) {
+					noisePoints.add(points.size() + noisePoints.size());
+					noisePoints.add(points.size() + noisePoints.size());
+					continue;
+				}
+				String[] alignment = Utils.getAlignment(pair, proteins);
+				if(alignment == null) continue;
+				points.add(matrix.encode(alignment[0]));
+				points.add(matrix.encode(alignment[1]));
+				if(clusterStateFile != null) {
+					keys.add(AlignmentCache.digest(alignment[0]));
+					keys.add(AlignmentCache.digest(alignment[1]));
+				}
+			}
+			final byte[][] encodedAlignments = points.toArray(new byte[points.size()][]);
+			POINTS.add(encodedAlignments.length);
+			int[] proteinClusters;
+			if(clusterStateFile != null) {
+				try {
+					proteinClusters = clusterIncrementally(encodedAlignments, keys);
+				} catch(IOException e) {
+					throw new AnalysisEngineProcessException(e);
+				}
 			} else {
-				++cluster;
-				expandCluster(proteins, iii, neighbors, proteinClusters, visited, cluster, epsilon, minPts);
+				SimilarityCache similarities = computeSimilarities(encodedAlignments);
+				long dbscanStart = DBSCAN.start();
+				proteinClusters = parallelDbscan
+						? Dbscan.clusterParallel(similarities, currentEpsilon, minPoints, scheduler)
+						: Dbscan.cluster(similarities, currentEpsilon, minPoints);
+				DBSCAN.stop(dbscanStart);
+			}
+			int point = 0;
+			int clustered = 0;
+			for(int noisePoint : noisePoints) {
+				while(point < noisePoint) {
+					addAssignment(cas, point++, proteinClusters[clustered++]);
+				}
+				addAssignment(cas, point++, Dbscan.NOISE);
 			}
+			while(clustered < proteinClusters.length) {
+				addAssignment(cas, point++, proteinClusters[clustered++]);
+			}
+		} finally {
+			STAGE.stop(start, cas);
+		}
+	}
+	
+	private static void addAssignment(JCas cas, int point, int cluster) {
+		ClusterAssignment assignment = new ClusterAssignment(cas);
+		assignment.setPoint(point);
+		assignment.setCluster(cluster);
+		assignment.addToIndexes();
+	}
+	
+	private SimilarityCache computeSimilarities(final byte[][] encodedAlignments) {
+		int[] lengths = new int[encodedAlignments.length];
+		for(int iii = 0; iii < encodedAlignments.length; iii++) {
+			lengths[iii] = encodedAlignments[iii].length;
 		}
-		return proteinClusters;
+		long start = SIMILARITIES.start();
+		SimilarityCache similarities = SimilarityCache.compute(lengths, new SimilarityCache.Measure() {
+			public int similarity(int point1, int point2) {
+				return ClusterAnnotator.this.similarity(encodedAlignments[point1], encodedAlignments[point2]);
+			}
+		}, scheduler);
+		SIMILARITIES.stop(start);
+		return similarities;
 	}
-    
+	
 	/*
-	 * Expands cluster if a core point is found which has >= minPts in its
-	 * epsilon radius
+	 * Clusters the points by updating the clustering state of the previous
+	 * run: points of the state that are not in this CAS are removed, points
+	 * of this CAS that are not in the state are inserted, and the others are
+	 * matched by the content hash of their alignment. Clusters are numbered
+	 * in the order the points entered the state, which is the order of this
+	 * CAS when the state is first built. The state is rebuilt from scratch
+	 * when there is none yet, when it was built with other parameters, or
+	 * when it holds more removed points than live ones.
 	 * 
-	 * @param	proteins			Dataset containing protein sequences
-	 * @param	index				Index of current protein
-	 * @param	neighbors			Neighbors of current protein
-	 * @param	proteinClusters		Array representing protein clusters
-	 * @param	visited				Array representing if a protein has been visited
-	 * @param	cluster				Current cluster
-	 * @parame	epsilon				Epsilon radius
-	 * @param	minPts				Minimum number of points to check
+	 * @param	encodedAlignments	Encoded aligned proteins, in pair order
+	 * @param	keys				Content hash of every aligned protein
+	 * @return						Array that holds which cluster each point belongs to
 	 */
-    private void expandCluster(String[] proteins, int index, HashSet<Integer> neighbors,
-    		int[] proteinClusters, boolean[] visited, int cluster, int epsilon, int minPts) {
-    	proteinClusters[index] = cluster;
-    	Queue<Integer> seeds = new LinkedList<Integer>();
-    	seeds.addAll(neighbors);
-    	while(!seeds.isEmpty()) {
-    		int currentProtein = (Integer) seeds.poll();
-    		if(!visited[currentProtein]) {
-    			visited[currentProtein] = true;
-    			HashSet<Integer> currentNeighbors = epsilonNeighbors(proteins, currentProtein, epsilon);
-    			if(currentNeighbors.size() >= minPts) {
-    				seeds.addAll(currentNeighbors);
-    			}
-    		}
-    		if(proteinClusters[currentProtein] == 0) proteinClusters[currentProtein] = cluster;
-    	}
-    }
-	
-    /*
-     * Calculates and returns the similarity of two
-     * protein sequences based on the BLOSUM62 matrix.
-     * 
-     * @param	protein1			First protein
-     * @param	protein2			Second protein
-     * @return						Similarity score of two proteins
-     */
-	private int similarity(String protein1, String protein2) {
-		int similarity = 0;
-		int length = (protein1.length() > protein2.length()) ? protein1.length(): protein2.length();
-		for(int iii = 0; iii < length; iii++) {
-			char p1, p2;
-			try {
-				p1 = protein1.charAt(iii);
-			} catch(StringIndexOutOfBoundsException e) {
-				p1 = '-';
+	private int[] clusterIncrementally(byte[][] encodedAlignments, ArrayList<long[]> keys) throws IOException {
+		int size = encodedAlignments.length;
+		int[] statePoints = new int[size];											// Index of every point in the state
+		ArrayList<long[]> stateKeys = new ArrayList<long[]>();
+		IncrementalDbscan dbscan = readClusterState(stateKeys);
+		if(dbscan == null || dbscan.needsRebuild(size)) {
+			SimilarityCache similarities = computeSimilarities(encodedAlignments);
+			long dbscanStart = DBSCAN.start();
+			dbscan = new IncrementalDbscan(similarities, currentEpsilon, minPoints, scheduler);
+			DBSCAN.stop(dbscanStart);
+			stateKeys = keys;
+			for(int iii = 0; iii < size; iii++) {
+				statePoints[iii] = iii;
 			}
-			try {
-				p2 = protein2.charAt(iii);
-			} catch(StringIndexOutOfBoundsException e) {
-				p2 = '-';
+		} else {
+			final ArrayList<byte[]> stateAlignments = new ArrayList<byte[]>();
+			HashMap<AlignmentCache.Key, ArrayDeque<Integer>> unmatched = new HashMap<AlignmentCache.Key, ArrayDeque<Integer>>();
+			for(int iii = 0; iii < stateKeys.size(); iii++) {
+				stateAlignments.add(null);
+				if(dbscan.getPoints().isRemoved(iii)) continue;
+				AlignmentCache.Key key = new AlignmentCache.Key(stateKeys.get(iii)[0], stateKeys.get(iii)[1]);
+				ArrayDeque<Integer> statePointsOfKey = unmatched.get(key);
+				if(statePointsOfKey == null) {
+					statePointsOfKey = new ArrayDeque<Integer>();
+					unmatched.put(key, statePointsOfKey);
+				}
+				statePointsOfKey.add(iii);
 			}
-			if(p1 == '-' || p2 == '-') {
-				similarity += GAP_PENALTY;
-			} else {
-				similarity += distances.get(p1).get(p2);
+			for(int iii = 0; iii < size; iii++) {
+				ArrayDeque<Integer> statePointsOfKey = unmatched.get(new AlignmentCache.Key(keys.get(iii)[0], keys.get(iii)[1]));
+				statePoints[iii] = (statePointsOfKey == null || statePointsOfKey.isEmpty()) ? -1 : statePointsOfKey.poll();
+				if(statePoints[iii] >= 0) stateAlignments.set(statePoints[iii], encodedAlignments[iii]);
 			}
+			
+			// the update is timed as DBSCAN, including the similarities of the inserted points
+			long dbscanStart = DBSCAN.start();
+			int removed = 0;
+			for(ArrayDeque<Integer> statePointsOfKey : unmatched.values()) {
+				for(int statePoint : statePointsOfKey) {
+					dbscan.remove(statePoint);
+					removed++;
+				}
+			}
+			SimilarityCache.Measure measure = new SimilarityCache.Measure() {
+				public int similarity(int point1, int point2) {
+					return ClusterAnnotator.this.similarity(stateAlignments.get(point1), stateAlignments.get(point2));
+				}
+			};
+			int inserted = 0;
+			for(int iii = 0; iii < size; iii++) {
+				if(statePoints[iii] >= 0) continue;
+				stateAlignments.add(encodedAlignments[iii]);
+				stateKeys.add(keys.get(iii));
+				statePoints[iii] = dbscan.insert(measure, scheduler);
+				inserted++;
+			}
+			DBSCAN.stop(dbscanStart);
+			getContext().getLogger().log(Level.INFO, "Incremental clustering: " + inserted + " points inserted, "
+					+ removed + " removed, " + (size - inserted) + " kept");
 		}
+		writeClusterState(dbscan, stateKeys);
 		
-		return similarity;
+		int[] stateClusters = dbscan.clusters();
+		int[] clusters = new int[size];
+		for(int iii = 0; iii < size; iii++) {
+			clusters[iii] = stateClusters[statePoints[iii]];
+		}
+		return clusters;
 	}
 	
 	/*
-	 * Returns indexes of all the proteins which are in the epsilon
-	 * neighborhood of the protein at index == currentProtein
+	 * Returns the hash of everything the similarity of two points depends on
+	 */
+	private long similarityParameters() {
+		return AlignmentCache.parameters(matrix, GAP_PENALTY, 0);
+	}
+	
+	/*
+	 * Reads the clustering state of the previous run, or returns null if
+	 * there is none or it was built with other parameters
 	 * 
-	 * @param	proteins			Dataset containing all proteins
-	 * @param	currentProtein		Index of current protein in the dataset
-	 * @param	epsilon				Minimum similarity to check neighborhood
-	 * @return						HashSet containing the neighbors
+	 * @param	stateKeys		List to add the content hash of every point of the state to
+	 * @return					Clustering state, or null
+	 */
+	private IncrementalDbscan readClusterState(ArrayList<long[]> stateKeys) throws IOException {
+		if(!clusterStateFile.isFile()) return null;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(clusterStateFile)));
+		try {
+			if(in.readLong() != STATE_MAGIC || in.readLong() != similarityParameters()) return null;
+			int size = in.readInt();
+			for(int iii = 0; iii < size; iii++) {
+				stateKeys.add(new long[] {in.readLong(), in.readLong()});
+			}
+			IncrementalDbscan dbscan = IncrementalDbscan.read(in);
+			if(dbscan.getEpsilon() != currentEpsilon || dbscan.getMinPts() != minPoints) return null;
+			return dbscan;
+		} finally {
+			in.close();
+		}
+	}
+	
+	/*
+	 * Replaces the clustering state file, through a temporary file so an
+	 * interrupted write leaves the previous state intact
 	 */
-	private HashSet<Integer> epsilonNeighbors(String[] proteins, int currentProtein, int epsilon) {
-		HashSet<Integer> neighbors = new HashSet<Integer>();
-		String protein = proteins[currentProtein];
-		for(int iii = 0; iii < proteins.length; iii++) {
-			int score = similarity(proteins[iii], protein);
-			if(score >= epsilon) neighbors.add(iii);
+	private void writeClusterState(IncrementalDbscan dbscan, ArrayList<long[]> stateKeys) throws IOException {
+		File temp = new File(clusterStateFile.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			out.writeLong(STATE_MAGIC);
+			out.writeLong(similarityParameters());
+			out.writeInt(stateKeys.size());
+			for(long[] key : stateKeys) {
+				out.writeLong(key[0]);
+				out.writeLong(key[1]);
+			}
+			dbscan.write(out);
+		} finally {
+			out.close();
 		}
-		return neighbors;
+		Files.move(temp.toPath(), clusterStateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+    /*
+     * Calculates and returns the similarity of two
+     * protein sequences based on the BLOSUM62 matrix.
+     * 
+     * @param	protein1			First protein, encoded
+     * @param	protein2			Second protein, encoded
+     * @return						Similarity score of two proteins
+     */
+	private int similarity(byte[] protein1, byte[] protein2) {
+		return matrix.columnScore(protein1, protein2, GAP_PENALTY);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+
+
+/* First created by JCasGen Sun Oct 18 10:12:44 EDT 2026 */
+package bio.uima;
+
+import org.apache.uima.jcas.JCas; 
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+import org.apache.uima.jcas.cas.TOP;
+
+
+/** 
+ * Updated by JCasGen Sun Oct 18 10:12:44 EDT 2026
+ * XML source: desc/DNASequenceTypeSystemDescriptor.xml
+ * @generated */
+public class ClusterAssignment extends TOP {
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = JCasRegistry.register(ClusterAssignment.class);
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int type = typeIndexID;
+  /** @generated  */
+  @Override
+  public              int getTypeIndexID() {return typeIndexID;}
+ 
+  /** Never called.  Disable default constructor
+   * @generated */
+  protected ClusterAssignment() {/* intentionally empty block */}
+    
+  /** Internal - constructor used by generator 
+   * @generated */
+  public ClusterAssignment(int addr, TOP_Type type) {
+    super(addr, type);
+    readObject();
+  }
+  
+  /** @generated */
+  public ClusterAssignment(JCas jcas) {
+    super(jcas);
+    readObject();   
+  } 
+
+  /** <!-- begin-user-doc -->
+    * Write your own initialization here
+    * <!-- end-user-doc -->
+  @generated modifiable */
+  private void readObject() {/*default - does nothing empty block */}
+     
+ 
+    
+  //*--------------*
+  //* Feature: point
+
+  /** getter for point - gets Index of the clustered point, an aligned protein in pair order
+   * @generated */
+  public int getPoint() {
+    if (ClusterAssignment_Type.featOkTst && ((ClusterAssignment_Type)jcasType).casFeat_point == null)
+      jcasType.jcas.throwFeatMissing("point", "bio.uima.ClusterAssignment");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((ClusterAssignment_Type)jcasType).casFeatCode_point);}
+    
+  /** setter for point - sets Index of the clustered point, an aligned protein in pair order 
+   * @generated */
+  public void setPoint(int v) {
+    if (ClusterAssignment_Type.featOkTst && ((ClusterAssignment_Type)jcasType).casFeat_point == null)
+      jcasType.jcas.throwFeatMissing("point", "bio.uima.ClusterAssignment");
+    jcasType.ll_cas.ll_setIntValue(addr, ((ClusterAssignment_Type)jcasType).casFeatCode_point, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: cluster
+
+  /** getter for cluster - gets Cluster of the point, -1 for noise
+   * @generated */
+  public int getCluster() {
+    if (ClusterAssignment_Type.featOkTst && ((ClusterAssignment_Type)jcasType).casFeat_cluster == null)
+      jcasType.jcas.throwFeatMissing("cluster", "bio.uima.ClusterAssignment");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((ClusterAssignment_Type)jcasType).casFeatCode_cluster);}
+    
+  /** setter for cluster - sets Cluster of the point, -1 for noise 
+   * @generated */
+  public void setCluster(int v) {
+    if (ClusterAssignment_Type.featOkTst && ((ClusterAssignment_Type)jcasType).casFeat_cluster == null)
+      jcasType.jcas.throwFeatMissing("cluster", "bio.uima.ClusterAssignment");
+    jcasType.ll_cas.ll_setIntValue(addr, ((ClusterAssignment_Type)jcasType).casFeatCode_cluster, v);}    
+  }
+
+    
\ No newline at end of file
@@ -0,0 +1,102 @@
+
+/* First created by JCasGen Sun Oct 18 10:12:44 EDT 2026 */
+package bio.uima;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSGenerator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.FeatureImpl;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+/** 
+ * Updated by JCasGen Sun Oct 18 10:12:44 EDT 2026
+ * @generated */
+public class ClusterAssignment_Type extends TOP_Type {
+  /** @generated */
+  @Override
+  protected FSGenerator getFSGenerator() {return fsGenerator;}
+  /** @generated */
+  private final FSGenerator fsGenerator = 
+    new FSGenerator() {
+      public FeatureStructure createFS(int addr, CASImpl cas) {
+  			 if (ClusterAssignment_Type.this.useExistingInstance) {
+  			   // Return eq fs instance if already created
+  		     FeatureStructure fs = ClusterAssignment_Type.this.jcas.getJfsFromCaddr(addr);
+  		     if (null == fs) {
+  		       fs = new ClusterAssignment(addr, ClusterAssignment_Type.this);
+  			   ClusterAssignment_Type.this.jcas.putJfsFromCaddr(addr, fs);
+  			   return fs;
+  		     }
+  		     return fs;
+        } else return new ClusterAssignment(addr, ClusterAssignment_Type.this);
+  	  }
+    };
+  /** @generated */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = ClusterAssignment.typeIndexID;
+  /** @generated 
+     @modifiable */
+  @SuppressWarnings ("hiding")
+  public final static boolean featOkTst = JCasRegistry.getFeatOkTst("bio.uima.ClusterAssignment");
+ 
+  /** @generated */
+  final Feature casFeat_point;
+  /** @generated */
+  final int     casFeatCode_point;
+  /** @generated */ 
+  public int getPoint(int addr) {
+        if (featOkTst && casFeat_point == null)
+      jcas.throwFeatMissing("point", "bio.uima.ClusterAssignment");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_point);
+  }
+  /** @generated */    
+  public void setPoint(int addr, int v) {
+        if (featOkTst && casFeat_point == null)
+      jcas.throwFeatMissing("point", "bio.uima.ClusterAssignment");
+    ll_cas.ll_setIntValue(addr, casFeatCode_point, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_cluster;
+  /** @generated */
+  final int     casFeatCode_cluster;
+  /** @generated */ 
+  public int getCluster(int addr) {
+        if (featOkTst && casFeat_cluster == null)
+      jcas.throwFeatMissing("cluster", "bio.uima.ClusterAssignment");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_cluster);
+  }
+  /** @generated */    
+  public void setCluster(int addr, int v) {
+        if (featOkTst && casFeat_cluster == null)
+      jcas.throwFeatMissing("cluster", "bio.uima.ClusterAssignment");
+    ll_cas.ll_setIntValue(addr, casFeatCode_cluster, v);}
+    
+
+
+
+  /** initialize variables to correspond with Cas Type and Features
+	* @generated */
+  public ClusterAssignment_Type(JCas jcas, Type casType) {
+    super(jcas, casType);
+    casImpl.getFSClassRegistry().addGeneratorForType((TypeImpl)this.casType, getFSGenerator());
+
+ 
+    casFeat_point = jcas.getRequiredFeatureDE(casType, "point", "uima.cas.Integer", featOkTst);
+    casFeatCode_point  = (null == casFeat_point) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_point).getCode();
+
+ 
+    casFeat_cluster = jcas.getRequiredFeatureDE(casType, "cluster", "uima.cas.Integer", featOkTst);
+    casFeatCode_cluster  = (null == casFeat_cluster) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_cluster).getCode();
+
+  }
+}
+
+
+
+    
\ No newline at end of file
@@ -0,0 +1,17 @@
+package bio.uima;
+
+/*
+ * Codon table as a UIMA external resource, bound to a file in the format of
+ * resources/codonTable.txt
+ */
+public class CodonTableResource extends ParsedResource<CodonTranslator> {
+
+	@Override
+	protected CodonTranslator parse(String text) {
+		return CodonTranslator.parse(text);
+	}
+
+	public CodonTranslator getTranslator() {
+		return get();
+	}
+}
@@ -0,0 +1,296 @@
+package bio.uima;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * Translates DNA to protein through a 64-entry codon table.
+ *
+ * Nucleotides map to 2-bit codes (A=0, C=1, G=2, T=3), so a codon is a 6-bit
+ * index into the table. A single pass over the sequence keeps a rolling codon
+ * for the forward strand and one for the reverse complement, and emits one
+ * amino acid per position into the buffer of the reading frame that codon
+ * belongs to. Reverse complement frames are collected back to front and
+ * flipped at the end, so all six frames come out of one pass, and the
+ * sequence can be fed in chunks as it is read.
+ *
+ * Frames 0-2 are the forward frames starting at offsets 0-2; frames 3-5 are
+ * the reverse complement frames starting at offsets 0-2 from the 3' end.
+ * Codons containing anything other than A, C, G, T (or U) translate to 'X'.
+ *
+ * findOrfs() cuts the frames into open reading frames: a protein from a
+ * start codon ('M' in the table) up to the next stop codon ('.') of its
+ * frame, or up to the end of the sequence, which may be a fragment.
+ */
+public final class CodonTranslator {
+
+	public static final int NUM_FRAMES = 6;
+	public static final int NUM_FORWARD_FRAMES = 3;
+
+	public static final char START_AMINO_ACID = 'M';
+	public static final char STOP_AMINO_ACID = '.';
+	private static final byte UNKNOWN_AMINO_ACID = 'X';
+	private static final byte[] NUCLEOTIDE_CODES = new byte[128];
+
+	static {
+		Arrays.fill(NUCLEOTIDE_CODES, (byte) -1);
+		String nucleotides = "ACGT";
+		for(int iii = 0; iii < nucleotides.length(); iii++) {
+			NUCLEOTIDE_CODES[nucleotides.charAt(iii)] = (byte) iii;
+			NUCLEOTIDE_CODES[Character.toLowerCase(nucleotides.charAt(iii))] = (byte) iii;
+		}
+		NUCLEOTIDE_CODES['U'] = NUCLEOTIDE_CODES['T'];
+		NUCLEOTIDE_CODES['u'] = NUCLEOTIDE_CODES['T'];
+	}
+
+	private final byte[] aminoAcids = new byte[64];									// 6-bit codon -> amino acid
+
+	private CodonTranslator() {
+		Arrays.fill(aminoAcids, UNKNOWN_AMINO_ACID);
+	}
+
+	/*
+	 * Parses a codon table made of one "codon<TAB>amino acid" line per codon
+	 *
+	 * @param	codonTableText		Text of the codon table file
+	 * @return						Translator for the codon table
+	 */
+	public static CodonTranslator parse(String codonTableText) {
+		CodonTranslator translator = new CodonTranslator();
+		for(String line : codonTableText.split("\n")) {
+			if(line.trim().isEmpty()) continue;
+			String[] temp = line.split("\t");
+			int codon = 0;
+			for(int iii = 0; iii < 3; iii++) {
+				int code = nucleotideCode(temp[0].charAt(iii));
+				if(code < 0) {
+					throw new IllegalArgumentException("Invalid codon in codon table: " + temp[0]);
+				}
+				codon = (codon << 2) | code;
+			}
+			translator.aminoAcids[codon] = (byte) temp[1].trim().charAt(0);
+		}
+		return translator;
+	}
+
+	/*
+	 * Returns the 2-bit code of a nucleotide, or -1 if it is not one of ACGTU
+	 */
+	public static int nucleotideCode(char nucleotide) {
+		return (nucleotide < NUCLEOTIDE_CODES.length) ? NUCLEOTIDE_CODES[nucleotide] : -1;
+	}
+
+	/*
+	 * Returns the amino acid of a 6-bit codon
+	 */
+	public char aminoAcid(int codon) {
+		return (char) aminoAcids[codon];
+	}
+
+	/*
+	 * Translates a DNA sequence in its three forward frames, or in all six
+	 * frames if bothStrands is set.
+	 *
+	 * @param	dnaSequence		The input DNA sequence to be translated to protein
+	 * @param	bothStrands		Whether to also translate the reverse complement
+	 * @return					Protein of every frame, indexed by frame
+	 */
+	public String[] translate(CharSequence dnaSequence, boolean bothStrands) {
+		Translation translation = newTranslation(dnaSequence.length(), bothStrands);
+		translation.feed(dnaSequence, 0, dnaSequence.length());
+		return translation.finish();
+	}
+
+	/*
+	 * Finds the open reading frames of a DNA sequence, frame by frame and in
+	 * order of position within each frame. An ORF starts at the first start
+	 * codon after the previous stop codon of its frame, so ORFs nested in a
+	 * longer one are not reported.
+	 *
+	 * @param	dnaSequence		The input DNA sequence
+	 * @param	bothStrands		Whether to also search the reverse complement
+	 * @param	minLength		Minimum number of residues of an ORF, without the stop codon
+	 * @return					Every ORF of at least minLength residues
+	 */
+	public ArrayList<Orf> findOrfs(CharSequence dnaSequence, boolean bothStrands, int minLength) {
+		String[] proteins = translate(dnaSequence, bothStrands);
+		ArrayList<Orf> orfs = new ArrayList<Orf>();
+		int length = dnaSequence.length();
+		for(int frame = 0; frame < proteins.length; frame++) {
+			String protein = proteins[frame];
+			int start = protein.indexOf(START_AMINO_ACID);
+			while(start >= 0) {
+				int stop = protein.indexOf(STOP_AMINO_ACID, start);
+				int end = (stop < 0) ? protein.length() : stop;
+				if(end - start >= minLength) {
+					int codonsEnd = (stop < 0) ? end : stop + 1;						// the stop codon is part of the ORF
+					int begin = codonsBegin(frame, length, start, codonsEnd);
+					orfs.add(new Orf(frame, begin, begin + 3 * (codonsEnd - start), protein.substring(start, end)));
+				}
+				if(stop < 0) break;
+				start = protein.indexOf(START_AMINO_ACID, stop);
+			}
+		}
+		return orfs;
+	}
+
+	/*
+	 * Returns the forward strand offset of the first base of some codons of
+	 * a frame. On the reverse strand, that is the base of the last codon.
+	 *
+	 * @param	frame			Frame of the codons
+	 * @param	length			Number of nucleotides of the sequence
+	 * @param	fromCodon		Index of the first codon in the frame
+	 * @param	toCodon			Index one past the last codon in the frame
+	 * @return					Offset of the codons, which span 3 * (toCodon - fromCodon) bases
+	 */
+	public static int codonsBegin(int frame, int length, int fromCodon, int toCodon) {
+		int offset = frame % NUM_FORWARD_FRAMES;
+		return (frame < NUM_FORWARD_FRAMES) ? offset + 3 * fromCodon : length - offset - 3 * toCodon;
+	}
+
+	/*
+	 * Open reading frame of a DNA sequence
+	 */
+	public static final class Orf {
+		private final int frame;
+		private final int begin;													// Forward strand offsets of the codons
+		private final int end;
+		private final String protein;
+
+		Orf(int frame, int begin, int end, String protein) {
+			this.frame = frame;
+			this.begin = begin;
+			this.end = end;
+			this.protein = protein;
+		}
+
+		public int getFrame() {
+			return frame;
+		}
+
+		/*
+		 * Returns the offset of the first base of the ORF on the forward
+		 * strand, which is the 3' end of the ORF on the reverse strand
+		 */
+		public int getBegin() {
+			return begin;
+		}
+
+		/*
+		 * Returns the offset after the last base of the ORF on the forward
+		 * strand, stop codon included
+		 */
+		public int getEnd() {
+			return end;
+		}
+
+		public String getProtein() {
+			return protein;
+		}
+	}
+
+	/*
+	 * Starts a streaming translation
+	 *
+	 * @param	expectedLength	Expected number of nucleotides, to presize the frame buffers
+	 * @param	bothStrands		Whether to also translate the reverse complement
+	 */
+	public Translation newTranslation(int expectedLength, boolean bothStrands) {
+		return new Translation(expectedLength, bothStrands);
+	}
+
+	/*
+	 * Translation of one sequence that is fed in chunks
+	 */
+	public final class Translation {
+		private final boolean bothStrands;
+		private final byte[][] frames;
+		private final int[] lengths;
+		private int forwardCodon = 0;
+		private int reverseCodon = 0;
+		private long position = 0;													// Nucleotides fed so far
+		private long lastInvalid = -1;												// Position of the last non-ACGT nucleotide
+		private int phase = 0;														// Frame of the codon ending at position
+
+		private Translation(int expectedLength, boolean bothStrands) {
+			this.bothStrands = bothStrands;
+			int frameCount = bothStrands ? NUM_FRAMES : NUM_FORWARD_FRAMES;
+			this.frames = new byte[frameCount][(Math.max(expectedLength, 0) / 3) + 1];
+			this.lengths = new int[frameCount];
+		}
+
+		/*
+		 * Feeds the nucleotides sequence[start, end)
+		 */
+		public void feed(CharSequence sequence, int start, int end) {
+			for(int iii = start; iii < end; iii++) {
+				feed(sequence.charAt(iii));
+			}
+		}
+
+		/*
+		 * Feeds ASCII nucleotides buffer[start, end)
+		 */
+		public void feed(byte[] buffer, int start, int end) {
+			for(int iii = start; iii < end; iii++) {
+				feed((char) (buffer[iii] & 0xff));
+			}
+		}
+
+		private void feed(char nucleotide) {
+			int code = nucleotideCode(nucleotide);
+			if(code < 0) {
+				lastInvalid = position;
+				code = 0;
+			}
+			forwardCodon = ((forwardCodon << 2) | code) & 63;
+			reverseCodon = (reverseCodon >>> 2) | ((3 - code) << 4);
+			if(position >= 2) {
+				boolean valid = lastInvalid < position - 2;
+				append(phase, valid ? aminoAcids[forwardCodon] : UNKNOWN_AMINO_ACID);
+				if(bothStrands) {
+					append(NUM_FORWARD_FRAMES + phase, valid ? aminoAcids[reverseCodon] : UNKNOWN_AMINO_ACID);
+				}
+				phase = (phase == 2) ? 0 : phase + 1;
+			}
+			position++;
+		}
+
+		private void append(int frame, byte aminoAcid) {
+			byte[] buffer = frames[frame];
+			if(lengths[frame] == buffer.length) {
+				buffer = frames[frame] = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+			buffer[lengths[frame]++] = aminoAcid;
+		}
+
+		/*
+		 * Ends the translation
+		 *
+		 * @return					Protein of every frame, indexed by frame
+		 */
+		public String[] finish() {
+			String[] proteins = new String[frames.length];
+			for(int frame = 0; frame < NUM_FORWARD_FRAMES; frame++) {
+				proteins[frame] = new String(frames[frame], 0, lengths[frame], StandardCharsets.US_ASCII);
+			}
+			if(bothStrands) {
+				// codons of forward phase p start (length - p) mod 3 from the 3' end
+				for(int phase = 0; phase < NUM_FORWARD_FRAMES; phase++) {
+					byte[] buffer = frames[NUM_FORWARD_FRAMES + phase];
+					int length = lengths[NUM_FORWARD_FRAMES + phase];
+					for(int iii = 0, jjj = length - 1; iii < jjj; iii++, jjj--) {
+						byte temp = buffer[iii];
+						buffer[iii] = buffer[jjj];
+						buffer[jjj] = temp;
+					}
+					int frame = (int) (((position - phase) % 3 + 3) % 3);
+					proteins[NUM_FORWARD_FRAMES + frame] = new String(buffer, 0, length, StandardCharsets.US_ASCII);
+				}
+			}
+			return proteins;
+		}
+	}
+}
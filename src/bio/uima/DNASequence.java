@@ -78,6 +78,42 @@ public class DNASequence extends Annotation {
     if (DNASequence_Type.featOkTst && ((DNASequence_Type)jcasType).casFeat_value == null)
       jcasType.jcas.throwFeatMissing("value", "bio.uima.DNASequence");
     jcasType.ll_cas.ll_setStringValue(addr, ((DNASequence_Type)jcasType).casFeatCode_value, v);}    
+   
+    
+  //*--------------*
+  //* Feature: storeHandle
+
+  /** getter for storeHandle - gets Handle of the sequence in the SequenceStore, if value is not set
+   * @generated */
+  public long getStoreHandle() {
+    if (DNASequence_Type.featOkTst && ((DNASequence_Type)jcasType).casFeat_storeHandle == null)
+      jcasType.jcas.throwFeatMissing("storeHandle", "bio.uima.DNASequence");
+    return jcasType.ll_cas.ll_getLongValue(addr, ((DNASequence_Type)jcasType).casFeatCode_storeHandle);}
+    
+  /** setter for storeHandle - sets Handle of the sequence in the SequenceStore, if value is not set 
+   * @generated */
+  public void setStoreHandle(long v) {
+    if (DNASequence_Type.featOkTst && ((DNASequence_Type)jcasType).casFeat_storeHandle == null)
+      jcasType.jcas.throwFeatMissing("storeHandle", "bio.uima.DNASequence");
+    jcasType.ll_cas.ll_setLongValue(addr, ((DNASequence_Type)jcasType).casFeatCode_storeHandle, v);}    
+   
+    
+  //*--------------*
+  //* Feature: storeLength
+
+  /** getter for storeLength - gets Length of the sequence in the SequenceStore, if value is not set
+   * @generated */
+  public int getStoreLength() {
+    if (DNASequence_Type.featOkTst && ((DNASequence_Type)jcasType).casFeat_storeLength == null)
+      jcasType.jcas.throwFeatMissing("storeLength", "bio.uima.DNASequence");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((DNASequence_Type)jcasType).casFeatCode_storeLength);}
+    
+  /** setter for storeLength - sets Length of the sequence in the SequenceStore, if value is not set 
+   * @generated */
+  public void setStoreLength(int v) {
+    if (DNASequence_Type.featOkTst && ((DNASequence_Type)jcasType).casFeat_storeLength == null)
+      jcasType.jcas.throwFeatMissing("storeLength", "bio.uima.DNASequence");
+    jcasType.ll_cas.ll_setIntValue(addr, ((DNASequence_Type)jcasType).casFeatCode_storeLength, v);}    
   }
 
     
\ No newline at end of file
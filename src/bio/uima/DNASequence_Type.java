@@ -61,6 +61,42 @@ public class DNASequence_Type extends Annotation_Type {
     ll_cas.ll_setStringValue(addr, casFeatCode_value, v);}
     
   
+ 
+  /** @generated */
+  final Feature casFeat_storeHandle;
+  /** @generated */
+  final int     casFeatCode_storeHandle;
+  /** @generated */ 
+  public long getStoreHandle(int addr) {
+        if (featOkTst && casFeat_storeHandle == null)
+      jcas.throwFeatMissing("storeHandle", "bio.uima.DNASequence");
+    return ll_cas.ll_getLongValue(addr, casFeatCode_storeHandle);
+  }
+  /** @generated */    
+  public void setStoreHandle(int addr, long v) {
+        if (featOkTst && casFeat_storeHandle == null)
+      jcas.throwFeatMissing("storeHandle", "bio.uima.DNASequence");
+    ll_cas.ll_setLongValue(addr, casFeatCode_storeHandle, v);}
+    
+  
+ 
+  /** @generated */
+  final Feature casFeat_storeLength;
+  /** @generated */
+  final int     casFeatCode_storeLength;
+  /** @generated */ 
+  public int getStoreLength(int addr) {
+        if (featOkTst && casFeat_storeLength == null)
+      jcas.throwFeatMissing("storeLength", "bio.uima.DNASequence");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_storeLength);
+  }
+  /** @generated */    
+  public void setStoreLength(int addr, int v) {
+        if (featOkTst && casFeat_storeLength == null)
+      jcas.throwFeatMissing("storeLength", "bio.uima.DNASequence");
+    ll_cas.ll_setIntValue(addr, casFeatCode_storeLength, v);}
+    
+  
 
 
 
@@ -74,6 +110,14 @@ public class DNASequence_Type extends Annotation_Type {
     casFeat_value = jcas.getRequiredFeatureDE(casType, "value", "uima.cas.String", featOkTst);
     casFeatCode_value  = (null == casFeat_value) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_value).getCode();
 
+ 
+    casFeat_storeHandle = jcas.getRequiredFeatureDE(casType, "storeHandle", "uima.cas.Long", featOkTst);
+    casFeatCode_storeHandle  = (null == casFeat_storeHandle) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_storeHandle).getCode();
+
+ 
+    casFeat_storeLength = jcas.getRequiredFeatureDE(casType, "storeLength", "uima.cas.Integer", featOkTst);
+    casFeatCode_storeLength  = (null == casFeat_storeLength) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_storeLength).getCode();
+
   }
 }
 
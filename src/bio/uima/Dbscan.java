@@ -0,0 +1,197 @@
+package bio.uima;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * DBSCAN density clustering over a SimilarityCache, where the epsilon
+ * neighborhood of a point is every point (itself included) whose similarity
+ * to it is at least epsilon.
+ *
+ * Clusters are numbered from 1 in the order of their lowest core point, and
+ * a border point goes to the lowest numbered cluster among its neighboring
+ * core points; points in no cluster are NOISE. Both the sequential and the
+ * parallel (union-find) variant follow these rules, so they produce the same
+ * assignment.
+ */
+public final class Dbscan {
+
+	public static final int NOISE = -1;
+	private static final int UNCLASSIFIED = 0;
+
+	private Dbscan() {
+	}
+
+	/*
+	 * Performs DBSCAN clustering on a single thread
+	 *
+	 * @param	points			Similarities of all pairs of points
+	 * @param	epsilon			Minimum similarity of two neighbors
+	 * @param	minPts			Minimum number of points that must be in epsilon radius
+	 * @return					Array that holds which cluster each point belongs to
+	 */
+	public static int[] cluster(SimilarityCache points, int epsilon, int minPts) {
+		int size = points.size();
+		int[] clusters = new int[size];
+		boolean[] visited = new boolean[size];
+		boolean[] enqueued = new boolean[size];										// Points that were ever seeds
+		int[] neighbors = new int[size];
+		IntRingBuffer seeds = new IntRingBuffer(size);
+		int cluster = 0;
+		for(int iii = 0; iii < size; iii++) {
+			if(visited[iii]) continue;
+			visited[iii] = true;
+			int count = points.neighbors(iii, epsilon, neighbors);
+			if(count < minPts) {
+				clusters[iii] = NOISE;
+				continue;
+			}
+			clusters[iii] = ++cluster;
+			enqueued[iii] = true;
+			enqueueNew(seeds, enqueued, neighbors, count);
+			while(!seeds.isEmpty()) {
+				int current = seeds.poll();
+				if(clusters[current] == UNCLASSIFIED || clusters[current] == NOISE) clusters[current] = cluster;
+				if(visited[current]) continue;
+				visited[current] = true;
+				count = points.neighbors(current, epsilon, neighbors);
+				if(count >= minPts) enqueueNew(seeds, enqueued, neighbors, count);
+			}
+		}
+		return clusters;
+	}
+
+	private static void enqueueNew(IntRingBuffer seeds, boolean[] enqueued, int[] neighbors, int count) {
+		for(int iii = 0; iii < count; iii++) {
+			int neighbor = neighbors[iii];
+			if(!enqueued[neighbor]) {
+				enqueued[neighbor] = true;
+				seeds.add(neighbor);
+			}
+		}
+	}
+
+	/*
+	 * Performs DBSCAN clustering on several threads: core points are found in
+	 * parallel, neighboring core points are merged in a lock-free union-find
+	 * whose roots are the lowest point of each component, and border points
+	 * are then assigned in parallel.
+	 *
+	 * @param	points			Similarities of all pairs of points
+	 * @param	epsilon			Minimum similarity of two neighbors
+	 * @param	minPts			Minimum number of points that must be in epsilon radius
+	 * @param	scheduler		Scheduler to run on
+	 * @return					Array that holds which cluster each point belongs to
+	 */
+	public static int[] clusterParallel(final SimilarityCache points, final int epsilon, final int minPts,
+			AllPairsScheduler scheduler) {
+		final int size = points.size();
+		final boolean[] core = new boolean[size];
+		final int[] clusters = new int[size];
+		final UnionFind components = new UnionFind(size);
+
+		scheduler.forEachPoint(size, new AllPairsScheduler.PointTask() {
+			public void run(int point) {
+				core[point] = points.countNeighbors(point, epsilon) >= minPts;
+			}
+		});
+		scheduler.forEachPoint(size, new AllPairsScheduler.PointTask() {
+			public void run(int point) {
+				if(!core[point]) return;
+				for(int jjj = 0; jjj < point; jjj++) {
+					if(core[jjj] && points.get(point, jjj) >= epsilon) components.union(point, jjj);
+				}
+			}
+		});
+
+		// number the clusters in the order of their lowest core point
+		int cluster = 0;
+		for(int iii = 0; iii < size; iii++) {
+			if(core[iii] && components.find(iii) == iii) clusters[iii] = ++cluster;
+		}
+		scheduler.forEachPoint(size, new AllPairsScheduler.PointTask() {
+			public void run(int point) {
+				if(core[point]) clusters[point] = clusters[components.find(point)];
+			}
+		});
+		scheduler.forEachPoint(size, new AllPairsScheduler.PointTask() {
+			public void run(int point) {
+				if(core[point]) return;
+				int best = Integer.MAX_VALUE;
+				for(int jjj = 0; jjj < size; jjj++) {
+					if(core[jjj] && jjj != point && points.get(point, jjj) >= epsilon) {
+						best = Math.min(best, clusters[components.find(jjj)]);
+					}
+				}
+				clusters[point] = (best == Integer.MAX_VALUE) ? NOISE : best;
+			}
+		});
+		return clusters;
+	}
+
+	/*
+	 * FIFO queue of ints on a circular array
+	 */
+	private static final class IntRingBuffer {
+		private final int[] elements;
+		private final int mask;
+		private int head = 0;
+		private int tail = 0;
+
+		IntRingBuffer(int capacity) {
+			this.elements = new int[Integer.highestOneBit(Math.max(1, capacity) * 2 - 1)];
+			this.mask = elements.length - 1;
+		}
+
+		boolean isEmpty() {
+			return head == tail;
+		}
+
+		void add(int value) {
+			if(tail - head == elements.length) {
+				throw new IllegalStateException("Seed queue is full");
+			}
+			elements[tail++ & mask] = value;
+		}
+
+		int poll() {
+			return elements[head++ & mask];
+		}
+	}
+
+	/*
+	 * Lock-free union-find that always links the higher root under the
+	 * lower one, so the root of a component is its lowest point
+	 */
+	private static final class UnionFind {
+		private final AtomicIntegerArray parents;
+
+		UnionFind(int size) {
+			parents = new AtomicIntegerArray(size);
+			for(int iii = 0; iii < size; iii++) {
+				parents.set(iii, iii);
+			}
+		}
+
+		int find(int point) {
+			int parent = parents.get(point);
+			while(parent != point) {
+				int grandParent = parents.get(parent);
+				parents.compareAndSet(point, parent, grandParent);				// path halving
+				point = grandParent;
+				parent = parents.get(point);
+			}
+			return point;
+		}
+
+		void union(int point1, int point2) {
+			while(true) {
+				int root1 = find(point1);
+				int root2 = find(point2);
+				if(root1 == root2) return;
+				int high = Math.max(root1, root2);
+				int low = Math.min(root1, root2);
+				if(parents.compareAndSet(high, high, low)) return;
+			}
+		}
+	}
+}
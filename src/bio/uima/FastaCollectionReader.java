@@ -0,0 +1,148 @@
+package bio.uima;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.CASException;
+import org.apache.uima.collection.CollectionException;
+import org.apache.uima.collection.CollectionReader_ImplBase;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Progress;
+import org.apache.uima.util.ProgressImpl;
+
+/*
+ * Collection reader that streams FASTA / multi-FASTA files and fills one CAS
+ * per batch of records.
+ *
+ * The document text of a CAS holds its records in the format of the input
+ * data ("# name" header line, sequence line, blank line), and every sequence
+ * is annotated with a DNASequence, so the translation stage does not have
+ * to scan the text again. Only the records of the current batch are held in
+ * memory.
+ *
+ * With a SequenceStore directory, sequences are packed off-heap into the
+ * store of the JVM as they are read, and the text only holds the header
+ * lines: every DNASequence is an empty annotation where its sequence line
+ * would be, with the store handle and length of its sequence instead of a
+ * value. The store lives until the reader is closed.
+ */
+public class FastaCollectionReader extends CollectionReader_ImplBase {
+
+	public static final String PARAM_INPUT_FILES = "InputFiles";
+	public static final String PARAM_BATCH_SIZE = "BatchSize";
+	public static final String PARAM_SEQUENCE_STORE = "SequenceStore";
+	
+	private static final String KILOBYTES = "kilobytes";							// Progress unit, bytes overflow an int
+
+	private String[] inputFiles;
+	private int batchSize;															// Records per CAS
+	private int currentFile = 0;
+	private FastaReader reader = null;
+	private FastaReader.FastaRecord nextRecord = null;								// Record read ahead for hasNext
+	private long bytesDone = 0;														// Bytes of the files already closed
+	private long bytesTotal = 0;
+	private SequenceStore store = null;												// Store sequences are packed into, or null
+
+	@Override
+	public void initialize() throws ResourceInitializationException {
+		inputFiles = (String[]) getConfigParameterValue(PARAM_INPUT_FILES);
+		Integer batch = (Integer) getConfigParameterValue(PARAM_BATCH_SIZE);
+		batchSize = (batch == null || batch <= 0) ? Integer.MAX_VALUE : batch;
+		for(String inputFile : inputFiles) {
+			File file = new File(inputFile);
+			if(!file.isFile()) {
+				throw new ResourceInitializationException(ResourceInitializationException.COULD_NOT_ACCESS_DATA,
+						new Object[] {inputFile});
+			}
+			bytesTotal += file.length();
+		}
+		String storeDirectory = (String) getConfigParameterValue(PARAM_SEQUENCE_STORE);
+		try {
+			if(storeDirectory != null && storeDirectory.trim().length() > 0) {
+				store = SequenceStore.open(new File(storeDirectory.trim()));
+			}
+			nextRecord = readRecord();
+		} catch(IOException e) {
+			throw new ResourceInitializationException(e);
+		}
+	}
+
+	/*
+	 * Returns the next record of the input files, or null when all are read
+	 */
+	private FastaReader.FastaRecord readRecord() throws IOException {
+		while(true) {
+			if(reader == null) {
+				if(currentFile == inputFiles.length) return null;
+				reader = new FastaReader(new File(inputFiles[currentFile++]));
+			}
+			FastaReader.FastaRecord record = (store == null) ? reader.next() : reader.next(store);
+			if(record != null) return record;
+			bytesDone += reader.getSize();
+			reader.close();
+			reader = null;
+		}
+	}
+
+	public boolean hasNext() throws IOException, CollectionException {
+		return nextRecord != null;
+	}
+
+	public void getNext(CAS aCAS) throws IOException, CollectionException {
+		JCas jcas;
+		try {
+			jcas = aCAS.getJCas();
+		} catch(CASException e) {
+			throw new CollectionException(e);
+		}
+		ArrayList<FastaReader.FastaRecord> batch = new ArrayList<FastaReader.FastaRecord>();
+		while(nextRecord != null && batch.size() < batchSize) {
+			batch.add(nextRecord);
+			nextRecord = readRecord();
+		}
+		StringBuilder text = new StringBuilder();
+		int[] begins = new int[batch.size()];
+		for(int iii = 0; iii < batch.size(); iii++) {
+			FastaReader.FastaRecord record = batch.get(iii);
+			if(record.getName() != null) {
+				text.append("# ").append(record.getName()).append('\n');
+			}
+			begins[iii] = text.length();
+			if(record.getSequence() != null) text.append(record.getSequence());
+			text.append("\n\n");
+		}
+		jcas.setDocumentText(text.toString());
+		for(int iii = 0; iii < batch.size(); iii++) {
+			FastaReader.FastaRecord record = batch.get(iii);
+			DNASequence annotation;
+			if(record.getSequence() != null) {
+				annotation = new DNASequence(jcas, begins[iii], begins[iii] + record.getLength());
+				annotation.setValue(record.getSequence());
+			} else {
+				annotation = new DNASequence(jcas, begins[iii], begins[iii]);
+				annotation.setStoreHandle(record.getStoreHandle());
+				annotation.setStoreLength(record.getLength());
+			}
+			annotation.addToIndexes();
+		}
+	}
+
+	public Progress[] getProgress() {
+		long done = bytesDone + ((reader == null) ? 0 : reader.getPosition());
+		return new Progress[] {
+			new ProgressImpl(currentFile - ((reader == null) ? 0 : 1), inputFiles.length, Progress.ENTITIES),
+			new ProgressImpl((int) (done >> 10), (int) (bytesTotal >> 10), KILOBYTES)
+		};
+	}
+
+	public void close() throws IOException {
+		if(reader != null) reader.close();
+		if(store != null) {
+			store.release();
+			store = null;
+		}
+	}
+}
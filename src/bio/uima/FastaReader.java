@@ -0,0 +1,195 @@
+package bio.uima;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Streams records out of a FASTA or multi-FASTA file, one at a time.
+ *
+ * A record starts at a header line ('>' or '#' followed by its name) and
+ * holds the sequence lines up to the next header, blank line or end of file;
+ * sequence lines are joined and whitespace is dropped. A line of only
+ * whitespace is blank, and blank lines right after a header are skipped. A
+ * header without sequence lines is returned as a record with an empty
+ * sequence, and sequences without a header with a null name. The file is read through a fixed
+ * size buffer on its channel, so only the current record is ever held in
+ * memory. Given a SequenceStore, the sequence of a record is packed into
+ * the store instead of being returned as a String.
+ */
+public class FastaReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/*
+	 * A named sequence of a FASTA file
+	 */
+	public static final class FastaRecord {
+		private final String name;
+		private final String sequence;												// null if the sequence is in a store
+		private final long storeHandle;
+		private final int length;
+
+		public FastaRecord(String name, String sequence) {
+			this.name = name;
+			this.sequence = sequence;
+			this.storeHandle = 0;
+			this.length = sequence.length();
+		}
+
+		public FastaRecord(String name, long storeHandle, int length) {
+			this.name = name;
+			this.sequence = null;
+			this.storeHandle = storeHandle;
+			this.length = length;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/*
+		 * Returns the sequence, or null if it was packed into a store
+		 */
+		public String getSequence() {
+			return sequence;
+		}
+
+		public long getStoreHandle() {
+			return storeHandle;
+		}
+
+		public int getLength() {
+			return length;
+		}
+	}
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final long size;
+	private long position = 0;														// Bytes consumed so far
+	private boolean atLineStart = true;
+	private boolean lineBlank = true;												// No residue on the current line yet
+	private String pendingName = null;												// Header read ahead of the next record
+	private byte[] sequence = new byte[1024];
+	private int sequenceLength = 0;
+	private final StringBuilder header = new StringBuilder();
+	private SequenceStore store = null;											// Store to pack sequences into, or null
+
+	public FastaReader(File file) throws IOException {
+		FileInputStream input = new FileInputStream(file);
+		this.channel = input.getChannel();
+		this.size = channel.size();
+		buffer.flip();
+	}
+
+	/*
+	 * Returns the number of bytes read so far
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/*
+	 * Returns the size of the file in bytes
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/*
+	 * Reads the next record of the file, packing its sequence into a store
+	 *
+	 * @param	store			Store to pack the sequence into
+	 * @return					The next record, or null at the end of the file
+	 */
+	public FastaRecord next(SequenceStore store) throws IOException {
+		this.store = store;
+		try {
+			return next();
+		} finally {
+			this.store = null;
+		}
+	}
+
+	/*
+	 * Reads the next record of the file
+	 *
+	 * @return					The next record, or null at the end of the file
+	 */
+	public FastaRecord next() throws IOException {
+		String name = pendingName;
+		pendingName = null;
+		sequenceLength = 0;
+		int b;
+		while((b = read()) != -1) {
+			if(atLineStart && (b == '>' || b == '#')) {
+				String line = readHeader();
+				if(sequenceLength > 0 || name != null) {
+					pendingName = line;
+					return record(name);
+				}
+				name = line;
+			} else if(b == '\n') {
+				boolean blank = lineBlank;
+				atLineStart = true;
+				lineBlank = true;
+				if(blank && sequenceLength > 0) return record(name);
+			} else {
+				atLineStart = false;
+				if(b > ' ') {
+					append((byte) b);
+					lineBlank = false;
+				}
+			}
+		}
+		if(sequenceLength > 0 || name != null) return record(name);
+		return null;
+	}
+
+	private FastaRecord record(String name) throws IOException {
+		if(store != null) return new FastaRecord(name, store.append(sequence, sequenceLength), sequenceLength);
+		return new FastaRecord(name, new String(sequence, 0, sequenceLength, StandardCharsets.US_ASCII));
+	}
+
+	private String readHeader() throws IOException {
+		header.setLength(0);
+		int b;
+		while((b = read()) != -1 && b != '\n') {
+			header.append((char) b);
+		}
+		atLineStart = true;
+		lineBlank = true;
+		return header.toString().trim();
+	}
+
+	private void append(byte residue) {
+		if(sequenceLength == sequence.length) {
+			sequence = Arrays.copyOf(sequence, sequence.length * 2);
+		}
+		sequence[sequenceLength++] = residue;
+	}
+
+	private int read() throws IOException {
+		if(!buffer.hasRemaining()) {
+			buffer.clear();
+			int count;
+			do {
+				count = channel.read(buffer);
+			} while(count == 0);
+			buffer.flip();
+			if(count < 0) return -1;
+		}
+		position++;
+		return buffer.get() & 0xff;
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+}
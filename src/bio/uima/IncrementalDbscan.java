@@ -0,0 +1,355 @@
+package bio.uima;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/*
+ * DBSCAN clustering that is kept up to date as points are inserted into and
+ * removed from its SimilarityCache, instead of reclustering every point.
+ *
+ * The state is the neighborhood size of every point, whether it is a core
+ * point, and a root per point: the lowest core point of its cluster for a
+ * core point, and the lowest root among the clusters of its core neighbors
+ * for a border point. An insertion can only turn points into core points
+ * and merge clusters, so roots only go down. A removal can only take core
+ * points away and split the clusters they were in, which are rebuilt from
+ * their remaining core points. Either way only the neighborhoods of the
+ * points whose state changed are rescanned.
+ *
+ * Clusters are numbered in the order of their root, so the assignment is
+ * the one Dbscan gives for the points that are not removed, in index order.
+ */
+public class IncrementalDbscan {
+
+	private static final int VERSION = 1;
+	private static final int NONE = -1;												// Root of noise and removed points
+
+	private final SimilarityCache points;
+	private final int epsilon;
+	private final int minPts;
+	private int[] counts;															// Size of the epsilon neighborhood
+	private boolean[] core;
+	private int[] roots;
+	private int[] neighbors = new int[0];											// Scratch buffer for neighborhood scans
+
+	private IncrementalDbscan(SimilarityCache points, int epsilon, int minPts, int capacity) {
+		this.points = points;
+		this.epsilon = epsilon;
+		this.minPts = minPts;
+		this.counts = new int[capacity];
+		this.core = new boolean[capacity];
+		this.roots = new int[capacity];
+	}
+
+	/*
+	 * Clusters all points of a similarity cache from scratch
+	 *
+	 * @param	points			Similarities of all pairs of points, updated through this object from now on
+	 * @param	epsilon			Minimum similarity of two neighbors
+	 * @param	minPts			Minimum number of points that must be in epsilon radius
+	 * @param	scheduler		Scheduler to run on
+	 */
+	public IncrementalDbscan(final SimilarityCache points, final int epsilon, final int minPts,
+			AllPairsScheduler scheduler) {
+		this(points, epsilon, minPts, points.size());
+		int size = points.size();
+		scheduler.forEachPoint(size, new AllPairsScheduler.PointTask() {
+			public void run(int point) {
+				counts[point] = points.countNeighbors(point, epsilon);
+				core[point] = counts[point] >= minPts;
+			}
+		});
+		int[] members = new int[size];
+		int memberCount = 0;
+		for(int iii = 0; iii < size; iii++) {
+			roots[iii] = NONE;
+			if(core[iii]) members[memberCount++] = iii;
+		}
+		rebuildComponents(members, memberCount, new BitSet());
+		scheduler.forEachPoint(size, new AllPairsScheduler.PointTask() {
+			public void run(int point) {
+				if(!core[point]) roots[point] = bestRoot(point);
+			}
+		});
+	}
+
+	public SimilarityCache getPoints() {
+		return points;
+	}
+
+	public int getEpsilon() {
+		return epsilon;
+	}
+
+	public int getMinPts() {
+		return minPts;
+	}
+
+	/*
+	 * Returns whether the state holds more removed points than live ones
+	 * will be left, so clustering the live points from scratch is cheaper
+	 * than updating it
+	 *
+	 * @param	livePoints		Number of points the clustering will hold
+	 */
+	public boolean needsRebuild(int livePoints) {
+		return points.removedCount() > livePoints;
+	}
+
+	/*
+	 * Inserts a new point and updates the clusters around it
+	 *
+	 * @param	measure			Similarity of the new point to the others, called with the new point first
+	 * @param	scheduler		Scheduler to compute the similarities on
+	 * @return					Index of the new point
+	 */
+	public int insert(SimilarityCache.Measure measure, AllPairsScheduler scheduler) {
+		int point = points.append(measure, scheduler);
+		ensureCapacity(point + 1);
+		int[] found = neighborsOf(point);
+		counts[point] = found.length;
+		core[point] = false;
+		roots[point] = NONE;
+
+		BitSet newCore = new BitSet();
+		for(int neighbor : found) {
+			if(neighbor != point) counts[neighbor]++;
+			if(!core[neighbor] && counts[neighbor] >= minPts) {
+				core[neighbor] = true;
+				roots[neighbor] = neighbor;
+				newCore.set(neighbor);
+			}
+		}
+		if(newCore.isEmpty()) {
+			roots[point] = bestRoot(point);
+			return point;
+		}
+
+		// merge the clusters that the new core points connect
+		HashMap<Integer, Integer> merged = new HashMap<Integer, Integer>();
+		for(int created = newCore.nextSetBit(0); created >= 0; created = newCore.nextSetBit(created + 1)) {
+			for(int neighbor : neighborsOf(created)) {
+				if(core[neighbor]) union(merged, roots[created], roots[neighbor]);
+			}
+		}
+		BitSet changed = (BitSet) newCore.clone();
+		int size = points.size();
+		for(int iii = 0; iii < size; iii++) {
+			if(!core[iii]) continue;
+			int root = find(merged, roots[iii]);
+			if(root != roots[iii]) {
+				roots[iii] = root;
+				changed.set(iii);
+			}
+		}
+
+		// roots only went down, so a border point only has to look at the changed core points
+		if(!core[point]) roots[point] = bestRoot(point);
+		for(int moved = changed.nextSetBit(0); moved >= 0; moved = changed.nextSetBit(moved + 1)) {
+			for(int neighbor : neighborsOf(moved)) {
+				if(!core[neighbor] && (roots[neighbor] == NONE || roots[moved] < roots[neighbor])) {
+					roots[neighbor] = roots[moved];
+				}
+			}
+		}
+		return point;
+	}
+
+	/*
+	 * Removes a point and updates the clusters around it. The point keeps
+	 * its index as a tombstone.
+	 */
+	public void remove(int point) {
+		if(points.isRemoved(point)) {
+			throw new IllegalArgumentException("Point " + point + " is already removed");
+		}
+		int[] found = neighborsOf(point);
+		boolean wasCore = core[point];
+		HashSet<Integer> affected = new HashSet<Integer>();							// Roots of clusters that may split
+		if(wasCore) affected.add(roots[point]);
+		points.remove(point);
+		counts[point] = 0;
+		core[point] = false;
+		roots[point] = NONE;
+
+		BitSet dirty = new BitSet();												// Points whose root must be recomputed
+		for(int neighbor : found) {
+			if(neighbor == point) continue;
+			counts[neighbor]--;
+			if(core[neighbor] && counts[neighbor] < minPts) {
+				affected.add(roots[neighbor]);
+				core[neighbor] = false;
+				dirty.set(neighbor);
+				markBorderNeighbors(neighbor, dirty);
+			}
+			if(wasCore && !core[neighbor]) dirty.set(neighbor);
+		}
+
+		if(!affected.isEmpty()) {
+			int size = points.size();
+			int[] members = new int[size];
+			int memberCount = 0;
+			for(int iii = 0; iii < size; iii++) {
+				if(core[iii] && affected.contains(roots[iii])) members[memberCount++] = iii;
+			}
+			BitSet changed = new BitSet();
+			rebuildComponents(members, memberCount, changed);
+			for(int moved = changed.nextSetBit(0); moved >= 0; moved = changed.nextSetBit(moved + 1)) {
+				markBorderNeighbors(moved, dirty);
+			}
+		}
+		for(int border = dirty.nextSetBit(0); border >= 0; border = dirty.nextSetBit(border + 1)) {
+			if(!core[border] && !points.isRemoved(border)) roots[border] = bestRoot(border);
+		}
+	}
+
+	/*
+	 * Returns which cluster each point belongs to, numbered from 1 in the
+	 * order of the lowest core point of the cluster. Noise and removed
+	 * points are Dbscan.NOISE.
+	 */
+	public int[] clusters() {
+		int size = points.size();
+		int[] numbers = new int[size];
+		int cluster = 0;
+		for(int iii = 0; iii < size; iii++) {
+			if(core[iii] && roots[iii] == iii) numbers[iii] = ++cluster;
+		}
+		int[] clusters = new int[size];
+		for(int iii = 0; iii < size; iii++) {
+			clusters[iii] = (roots[iii] == NONE) ? Dbscan.NOISE : numbers[roots[iii]];
+		}
+		return clusters;
+	}
+
+	/*
+	 * Writes the clustering and its similarity cache to a stream
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(VERSION);
+		out.writeInt(epsilon);
+		out.writeInt(minPts);
+		points.write(out);
+		int size = points.size();
+		SimilarityCache.writeInts(out, counts, size);
+		SimilarityCache.writeInts(out, roots, size);
+		for(int iii = 0; iii < size; iii++) {
+			out.writeBoolean(core[iii]);
+		}
+	}
+
+	/*
+	 * Reads a clustering written by write()
+	 */
+	public static IncrementalDbscan read(DataInputStream in) throws IOException {
+		int version = in.readInt();
+		if(version != VERSION) {
+			throw new IOException("Unsupported cluster state version " + version);
+		}
+		int epsilon = in.readInt();
+		int minPts = in.readInt();
+		SimilarityCache points = SimilarityCache.read(in);
+		int size = points.size();
+		IncrementalDbscan dbscan = new IncrementalDbscan(points, epsilon, minPts, size);
+		SimilarityCache.readInts(in, dbscan.counts, size);
+		SimilarityCache.readInts(in, dbscan.roots, size);
+		for(int iii = 0; iii < size; iii++) {
+			dbscan.core[iii] = in.readBoolean();
+		}
+		return dbscan;
+	}
+
+	/*
+	 * Splits a set of core points into their connected components, rooted
+	 * at the lowest point of each. Every core neighbor of a member must be a
+	 * member as well.
+	 *
+	 * @param	members			Core points to rebuild, in increasing order
+	 * @param	memberCount		Number of members
+	 * @param	changed			Set to add the members whose root changed to
+	 */
+	private void rebuildComponents(int[] members, int memberCount, BitSet changed) {
+		int[] previous = new int[memberCount];
+		for(int iii = 0; iii < memberCount; iii++) {
+			previous[iii] = roots[members[iii]];
+			roots[members[iii]] = NONE;
+		}
+		int[] stack = new int[memberCount];
+		for(int iii = 0; iii < memberCount; iii++) {
+			int root = members[iii];
+			if(roots[root] != NONE) continue;
+			roots[root] = root;
+			int top = 0;
+			stack[top++] = root;
+			while(top > 0) {
+				int current = stack[--top];
+				for(int neighbor : neighborsOf(current)) {
+					if(core[neighbor] && roots[neighbor] == NONE) {
+						roots[neighbor] = root;
+						stack[top++] = neighbor;
+					}
+				}
+			}
+		}
+		for(int iii = 0; iii < memberCount; iii++) {
+			if(roots[members[iii]] != previous[iii]) changed.set(members[iii]);
+		}
+	}
+
+	/*
+	 * Returns the lowest root among the core neighbors of a point, or NONE
+	 */
+	private int bestRoot(int point) {
+		int best = NONE;
+		int size = points.size();
+		for(int jjj = 0; jjj < size; jjj++) {
+			if(core[jjj] && jjj != point && points.get(point, jjj) >= epsilon) {
+				if(best == NONE || roots[jjj] < best) best = roots[jjj];
+			}
+		}
+		return best;
+	}
+
+	private void markBorderNeighbors(int point, BitSet dirty) {
+		for(int neighbor : neighborsOf(point)) {
+			if(!core[neighbor]) dirty.set(neighbor);
+		}
+	}
+
+	private int[] neighborsOf(int point) {
+		if(neighbors.length < points.size()) {
+			neighbors = new int[points.size()];
+		}
+		int count = points.neighbors(point, epsilon, neighbors);
+		return Arrays.copyOf(neighbors, count);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if(capacity <= counts.length) return;
+		int grown = Math.max(capacity, counts.length * 3 / 2);
+		counts = Arrays.copyOf(counts, grown);
+		core = Arrays.copyOf(core, grown);
+		roots = Arrays.copyOf(roots, grown);
+	}
+
+	private static int find(HashMap<Integer, Integer> parents, int root) {
+		Integer parent = parents.get(root);
+		while(parent != null) {
+			root = parent;
+			parent = parents.get(root);
+		}
+		return root;
+	}
+
+	private static void union(HashMap<Integer, Integer> parents, int root1, int root2) {
+		root1 = find(parents, root1);
+		root2 = find(parents, root2);
+		if(root1 == root2) return;
+		parents.put(Math.max(root1, root2), Math.min(root1, root2));
+	}
+}
@@ -0,0 +1,157 @@
+package bio.uima;
+
+import java.util.Arrays;
+
+/*
+ * Seed prefilter that keeps all-vs-all alignment from reaching pairs that
+ * have nothing in common.
+ *
+ * Every sequence is cut into the words picked by a seed pattern ("111" for
+ * contiguous 3-mers, "1101" for a spaced seed, where '1' is a position that
+ * counts and '0' one that does not), and an inverted index maps every word
+ * to the sequences containing it. A pair is a candidate for alignment when
+ * its two sequences share at least a minimum number of distinct words;
+ * finding the candidates costs the postings walked, not the number of pairs.
+ * Pairs that are not candidates get the FILTERED score instead of being
+ * aligned.
+ */
+public final class KmerPrefilter {
+
+	public static final int FILTERED = Integer.MIN_VALUE;							// Score of a pair that was not aligned
+	private static final int MAX_WORDS = 1 << 24;									// Bound of the word space of a seed
+
+	private final int[] offsets;													// Positions of the '1's of the seed
+	private final int span;															// Length of the seed
+	private final int alphabet;
+	private final int minShared;
+
+	/*
+	 * @param	seed			Seed pattern of '1's and '0's, starting and ending with '1'
+	 * @param	alphabet		Number of residue codes, see SubstitutionMatrix.size()
+	 * @param	minShared		Minimum number of distinct words a candidate pair shares
+	 */
+	public KmerPrefilter(String seed, int alphabet, int minShared) {
+		if(!seed.matches("1[01]*1|1")) {
+			throw new IllegalArgumentException("Seed must be a pattern of 1s and 0s starting and ending with 1: " + seed);
+		}
+		int weight = 0;
+		int[] positions = new int[seed.length()];
+		for(int iii = 0; iii < seed.length(); iii++) {
+			if(seed.charAt(iii) == '1') positions[weight++] = iii;
+		}
+		if(minShared < 1) {
+			throw new IllegalArgumentException("A candidate pair must share at least one word: " + minShared);
+		}
+		if(Math.pow(alphabet, weight) > MAX_WORDS) {
+			throw new IllegalArgumentException("Seed " + seed + " has too many words for " + alphabet + " residues");
+		}
+		this.offsets = Arrays.copyOf(positions, weight);
+		this.span = seed.length();
+		this.alphabet = alphabet;
+		this.minShared = minShared;
+	}
+
+	/*
+	 * Finds the candidate pairs among the pairs [fromPair, toPair) of a set
+	 * of sequences, in parallel
+	 *
+	 * @param	sequences		Encoded sequences
+	 * @param	fromPair		Index of the first pair to filter
+	 * @param	toPair			Index one past the last pair to filter
+	 * @param	scheduler		Scheduler to run on
+	 * @return					Whether each pair is a candidate, from fromPair on
+	 */
+	public boolean[] candidates(byte[][] sequences, final int fromPair, final int toPair, AllPairsScheduler scheduler) {
+		final int count = sequences.length;
+		final int[][] words = new int[count][];
+		for(int iii = 0; iii < count; iii++) {
+			words[iii] = distinctWords(sequences[iii]);
+		}
+
+		// inverted index: the sequences of word w are postings[starts[w]..starts[w + 1]), in increasing order
+		int wordCount = (int) Math.pow(alphabet, offsets.length);
+		final int[] starts = new int[wordCount + 1];
+		for(int[] sequenceWords : words) {
+			for(int word : sequenceWords) {
+				starts[word + 1]++;
+			}
+		}
+		for(int iii = 0; iii < wordCount; iii++) {
+			starts[iii + 1] += starts[iii];
+		}
+		final int[] postings = new int[starts[wordCount]];
+		int[] fill = Arrays.copyOf(starts, wordCount);
+		for(int iii = 0; iii < count; iii++) {
+			for(int word : words[iii]) {
+				postings[fill[word]++] = iii;
+			}
+		}
+
+		final boolean[] candidates = new boolean[toPair - fromPair];
+		final ThreadLocal<int[][]> buffers = new ThreadLocal<int[][]>() {
+			@Override
+			protected int[][] initialValue() {
+				return new int[][] {new int[count], new int[count]};					// shared counts, touched sequences
+			}
+		};
+		scheduler.forEachPoint(count, new AllPairsScheduler.PointTask() {
+			public void run(int first) {
+				long rowStart = (long) first * count - (long) first * (first + 1) / 2;	// Index of pair (first, first + 1)
+				long rowEnd = rowStart + (count - first - 1);
+				if(rowEnd <= fromPair || rowStart >= toPair) return;
+				int[][] buffer = buffers.get();
+				int[] shared = buffer[0];
+				int[] touched = buffer[1];
+				int touchedCount = 0;
+				for(int word : words[first]) {
+					int found = Arrays.binarySearch(postings, starts[word], starts[word + 1], first);
+					int start = (found >= 0) ? found + 1 : -found - 1;					// sequences after first
+					for(int iii = start; iii < starts[word + 1]; iii++) {
+						int second = postings[iii];
+						if(shared[second]++ == 0) touched[touchedCount++] = second;
+					}
+				}
+				for(int iii = 0; iii < touchedCount; iii++) {
+					int second = touched[iii];
+					long pairIndex = rowStart + (second - first - 1);
+					if(shared[second] >= minShared && pairIndex >= fromPair && pairIndex < toPair) {
+						candidates[(int) (pairIndex - fromPair)] = true;
+					}
+					shared[second] = 0;
+				}
+			}
+		});
+		return candidates;
+	}
+
+	/*
+	 * Returns the distinct words of a sequence, in increasing order. Windows
+	 * holding a gap are skipped; residues the matrix does not know are
+	 * encoded as its wildcard 'X', which is a letter of the words like any
+	 * other.
+	 */
+	private int[] distinctWords(byte[] sequence) {
+		int windows = Math.max(0, sequence.length - span + 1);
+		int[] words = new int[windows];
+		int count = 0;
+		for(int iii = 0; iii < windows; iii++) {
+			int word = 0;
+			boolean known = true;
+			for(int offset : offsets) {
+				byte code = sequence[iii + offset];
+				if(code < 0 || code >= alphabet) {
+					known = false;
+					break;
+				}
+				word = word * alphabet + code;
+			}
+			if(known) words[count++] = word;
+		}
+		Arrays.sort(words, 0, count);
+		int distinct = 0;
+		for(int iii = 0; iii < count; iii++) {
+			if(distinct == 0 || words[iii] != words[distinct - 1]) words[distinct++] = words[iii];
+		}
+		return Arrays.copyOf(words, distinct);
+	}
+}
@@ -0,0 +1,275 @@
+package bio.uima;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Disk tier of the AlignmentCache: an open addressing hash table of pair
+ * keys in a memory-mapped index file, and the alignment operations of the
+ * pairs in an append-only data file.
+ *
+ * Index slots are 32 bytes: key (16), score (4), columns (4) and offset of
+ * the operations in the data file (8, -1 if the pair was only scored). A
+ * slot is empty while its key is zero, and the key is written last, so a
+ * slot is never seen half written. The table is doubled into a new file
+ * when it gets too full. Files are mapped in chunks, so the index is not
+ * bounded by the 2 GB limit of a single mapping.
+ *
+ * A directory is opened once per JVM and shared by every cache using it,
+ * and locked against other processes.
+ */
+final class MappedPairStore {
+
+	private static final String INDEX_FILE = "pairs.idx";
+	private static final String DATA_FILE = "pairs.dat";
+	private static final long MAGIC = 0x42696f5061697273L;							// "BioPairs"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 64;										// magic, version, slot count, used slots
+	private static final int SLOT_SIZE = 32;
+	private static final long CHUNK_SIZE = 1L << 30;								// Bytes per mapping, a multiple of SLOT_SIZE
+	private static final long INITIAL_SLOTS = 1L << 16;
+	private static final double MAX_LOAD = 0.7;
+
+	private static final HashMap<File, MappedPairStore> openStores = new HashMap<File, MappedPairStore>();
+
+	private final File directory;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final RandomAccessFile data;
+	private final FileLock processLock;											// Held on the data file while open
+	private RandomAccessFile index;
+	private MappedByteBuffer[] chunks;
+	private long slotCount;														// Power of two
+	private long used;
+	private int references = 0;
+
+	private MappedPairStore(File directory) throws IOException {
+		this.directory = directory;
+		this.data = new RandomAccessFile(new File(directory, DATA_FILE), "rw");
+		this.processLock = data.getChannel().tryLock();
+		if(processLock == null) {
+			data.close();
+			throw new IOException("Alignment cache " + directory + " is in use by another process");
+		}
+		File indexFile = new File(directory, INDEX_FILE);
+		if(indexFile.length() == 0) {
+			createIndex(indexFile, INITIAL_SLOTS);
+		}
+		if(indexFile.length() < HEADER_SIZE) {
+			throw new IOException("Not an alignment cache index: " + indexFile);
+		}
+		mapIndex(indexFile);
+		if(chunks[0].getLong(0) != MAGIC || chunks[0].getInt(8) != VERSION) {
+			throw new IOException("Not an alignment cache index: " + indexFile);
+		}
+	}
+
+	/*
+	 * Opens the store of a directory, or shares the store that is already
+	 * open in this JVM. Every open must be matched by a release().
+	 */
+	static MappedPairStore open(File directory) throws IOException {
+		File canonical = directory.getCanonicalFile();
+		synchronized(openStores) {
+			MappedPairStore store = openStores.get(canonical);
+			if(store == null) {
+				if(!canonical.isDirectory() && !canonical.mkdirs()) {
+					throw new IOException("Could not create alignment cache directory " + canonical);
+				}
+				store = new MappedPairStore(canonical);
+				openStores.put(canonical, store);
+			}
+			store.references++;
+			return store;
+		}
+	}
+
+	/*
+	 * Releases the store, flushing and closing it when its last user is done
+	 */
+	void release() throws IOException {
+		synchronized(openStores) {
+			if(--references > 0) return;
+			openStores.remove(directory);
+		}
+		lock.writeLock().lock();
+		try {
+			for(MappedByteBuffer chunk : chunks) {
+				chunk.force();
+			}
+			index.close();
+			data.getChannel().force(false);
+			processLock.release();
+			data.close();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private static void createIndex(File file, long slots) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(HEADER_SIZE + slots * SLOT_SIZE);
+			raf.writeLong(MAGIC);
+			raf.writeInt(VERSION);
+			raf.writeInt(0);
+			raf.writeLong(slots);
+			raf.writeLong(0);
+		} finally {
+			raf.close();
+		}
+	}
+
+	private void mapIndex(File file) throws IOException {
+		index = new RandomAccessFile(file, "rw");
+		FileChannel channel = index.getChannel();
+		long length = channel.size();
+		chunks = new MappedByteBuffer[(int) ((length + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+		for(int iii = 0; iii < chunks.length; iii++) {
+			long start = iii * CHUNK_SIZE;
+			chunks[iii] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(CHUNK_SIZE, length - start));
+		}
+		slotCount = chunks[0].getLong(16);
+		used = chunks[0].getLong(24);
+	}
+
+	private MappedByteBuffer chunk(long slot) {
+		return chunks[(int) ((HEADER_SIZE + slot * SLOT_SIZE) / CHUNK_SIZE)];
+	}
+
+	private static int offset(long slot) {
+		return (int) ((HEADER_SIZE + slot * SLOT_SIZE) % CHUNK_SIZE);
+	}
+
+	/*
+	 * Returns the slot of a key, or the empty slot it would go to
+	 */
+	private long find(long high, long low) {
+		long mask = slotCount - 1;
+		long slot = (high ^ low) & mask;
+		while(true) {
+			MappedByteBuffer chunk = chunk(slot);
+			int offset = offset(slot);
+			long slotHigh = chunk.getLong(offset);
+			long slotLow = chunk.getLong(offset + 8);
+			if((slotHigh == high && slotLow == low) || (slotHigh == 0 && slotLow == 0)) return slot;
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/*
+	 * Returns the result stored for a key, or null
+	 */
+	AlignmentCache.Result get(long high, long low) throws IOException {
+		if(high == 0 && low == 0) low = 1;											// zero marks empty slots
+		lock.readLock().lock();
+		try {
+			long slot = find(high, low);
+			MappedByteBuffer chunk = chunk(slot);
+			int offset = offset(slot);
+			if(chunk.getLong(offset) == 0 && chunk.getLong(offset + 8) == 0) return null;
+			int score = chunk.getInt(offset + 16);
+			int columns = chunk.getInt(offset + 20);
+			long position = chunk.getLong(offset + 24);
+			if(!isStored(position, columns)) return AlignmentCache.Result.scoreOnly(score);
+			byte[] operations = new byte[(columns + 3) >> 2];
+			ByteBuffer buffer = ByteBuffer.wrap(operations);
+			while(buffer.hasRemaining()) {
+				data.getChannel().read(buffer, position + buffer.position());
+			}
+			return new AlignmentCache.Result(score, columns, operations);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Returns whether the operations of a slot are in the data file. They
+	 * may be missing if the process died before the data file was flushed,
+	 * in which case only the score is served.
+	 */
+	private boolean isStored(long position, int columns) throws IOException {
+		return position >= 0 && position + ((columns + 3) >> 2) <= data.length();
+	}
+
+	/*
+	 * Stores the result of a key. A stored alignment is never replaced, but
+	 * a stored score is upgraded to an alignment.
+	 */
+	void put(long high, long low, AlignmentCache.Result result) throws IOException {
+		if(high == 0 && low == 0) low = 1;
+		lock.writeLock().lock();
+		try {
+			if(used + 1 > slotCount * MAX_LOAD) grow();
+			long slot = find(high, low);
+			MappedByteBuffer chunk = chunk(slot);
+			int offset = offset(slot);
+			boolean empty = chunk.getLong(offset) == 0 && chunk.getLong(offset + 8) == 0;
+			if(!empty && (result.operations == null || isStored(chunk.getLong(offset + 24), chunk.getInt(offset + 20)))) return;
+			long position = -1;
+			if(result.operations != null) {
+				position = data.length();
+				ByteBuffer buffer = ByteBuffer.wrap(result.operations);
+				while(buffer.hasRemaining()) {
+					data.getChannel().write(buffer, position + buffer.position());
+				}
+			}
+			chunk.putInt(offset + 16, result.score);
+			chunk.putInt(offset + 20, result.columns);
+			chunk.putLong(offset + 24, position);
+			if(empty) {
+				chunk.putLong(offset + 8, low);
+				chunk.putLong(offset, high);
+				chunks[0].putLong(24, ++used);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * Rehashes the index into a table of twice the size and replaces the
+	 * index file with it. Called with the write lock held.
+	 */
+	private void grow() throws IOException {
+		File indexFile = new File(directory, INDEX_FILE);
+		File grown = new File(directory, INDEX_FILE + ".tmp");
+		MappedByteBuffer[] oldChunks = chunks;
+		long oldSlotCount = slotCount;
+		long oldUsed = used;
+		RandomAccessFile oldIndex = index;
+
+		createIndex(grown, oldSlotCount * 2);
+		mapIndex(grown);
+		for(long slot = 0; slot < oldSlotCount; slot++) {
+			MappedByteBuffer oldChunk = oldChunks[(int) ((HEADER_SIZE + slot * SLOT_SIZE) / CHUNK_SIZE)];
+			int oldOffset = offset(slot);
+			long high = oldChunk.getLong(oldOffset);
+			long low = oldChunk.getLong(oldOffset + 8);
+			if(high == 0 && low == 0) continue;
+			long newSlot = find(high, low);
+			MappedByteBuffer chunk = chunk(newSlot);
+			int offset = offset(newSlot);
+			chunk.putInt(offset + 16, oldChunk.getInt(oldOffset + 16));
+			chunk.putInt(offset + 20, oldChunk.getInt(oldOffset + 20));
+			chunk.putLong(offset + 24, oldChunk.getLong(oldOffset + 24));
+			chunk.putLong(offset + 8, low);
+			chunk.putLong(offset, high);
+		}
+		used = oldUsed;
+		chunks[0].putLong(24, used);
+		for(MappedByteBuffer chunk : chunks) {
+			chunk.force();
+		}
+		oldIndex.close();
+		Files.move(grown.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
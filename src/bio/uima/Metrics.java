@@ -0,0 +1,205 @@
+package bio.uima;
+
+import java.io.File;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Counters and timers of the pipeline, registered by name in a JVM-wide
+ * registry, and per-CAS trace spans of the stages.
+ *
+ * Metrics are off unless one of the system properties below is set. While
+ * they are off, the registry hands out shared no-op counters and timers, so
+ * the instrumented code costs a branch. When on, a MetricsReporter dumps a
+ * snapshot to a file every few seconds and at exit, publishes it as the JMX
+ * bean bio.uima:type=Metrics, and writes a span per stage and CAS to a trace
+ * file:
+ *
+ *   bio.uima.metrics.file			File to dump the snapshot to
+ *   bio.uima.metrics.interval		Seconds between dumps, 10 by default
+ *   bio.uima.metrics.jmx			"true" to register the JMX bean
+ *   bio.uima.trace.file			File to write the spans to
+ *
+ * Names are dotted, e.g. "alignment.cells"; a timer named after a stage
+ * ("alignment") measures the process() calls of that stage.
+ */
+public final class Metrics {
+
+	public static final String FILE_PROPERTY = "bio.uima.metrics.file";
+	public static final String INTERVAL_PROPERTY = "bio.uima.metrics.interval";
+	public static final String JMX_PROPERTY = "bio.uima.metrics.jmx";
+	public static final String TRACE_PROPERTY = "bio.uima.trace.file";
+	private static final long DEFAULT_INTERVAL = 10;								// Seconds between dumps
+
+	private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+	private static final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+	private static final Counter NOOP_COUNTER = new Counter(false);
+	private static final Timer NOOP_TIMER = new Timer(null, false);
+	private static final MetricsReporter reporter = createReporter();				// null while metrics are off
+
+	private Metrics() {
+	}
+
+	private static MetricsReporter createReporter() {
+		String metricsFile = System.getProperty(FILE_PROPERTY);
+		String traceFile = System.getProperty(TRACE_PROPERTY);
+		boolean jmx = Boolean.getBoolean(JMX_PROPERTY);
+		if(metricsFile == null && traceFile == null && !jmx) return null;
+		long interval = Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL);
+		return new MetricsReporter((metricsFile == null) ? null : new File(metricsFile), Math.max(1, interval), jmx,
+				(traceFile == null) ? null : new File(traceFile));
+	}
+
+	public static boolean isEnabled() {
+		return reporter != null;
+	}
+
+	/*
+	 * Returns the counter of a name, creating it on first use
+	 */
+	public static Counter counter(String name) {
+		if(reporter == null) return NOOP_COUNTER;
+		Counter counter = counters.get(name);
+		if(counter == null) {
+			Counter created = new Counter(true);
+			counter = counters.putIfAbsent(name, created);
+			if(counter == null) counter = created;
+		}
+		return counter;
+	}
+
+	/*
+	 * Returns the timer of a name, creating it on first use
+	 */
+	public static Timer timer(String name) {
+		if(reporter == null) return NOOP_TIMER;
+		Timer timer = timers.get(name);
+		if(timer == null) {
+			Timer created = new Timer(name, true);
+			timer = timers.putIfAbsent(name, created);
+			if(timer == null) timer = created;
+		}
+		return timer;
+	}
+
+	/*
+	 * Returns the current value of every metric, by name. A timer is listed
+	 * as its count and its total, maximum, median and 99th percentile time
+	 * in microseconds, e.g. "alignment.count" and "alignment.p99_us".
+	 */
+	public static SortedMap<String, Long> snapshot() {
+		TreeMap<String, Long> values = new TreeMap<String, Long>();
+		for(Map.Entry<String, Counter> entry : counters.entrySet()) {
+			values.put(entry.getKey(), entry.getValue().get());
+		}
+		for(Map.Entry<String, Timer> entry : timers.entrySet()) {
+			Timer timer = entry.getValue();
+			String name = entry.getKey();
+			values.put(name + ".count", timer.count.get());
+			values.put(name + ".total_us", timer.total.get() / 1000);
+			values.put(name + ".max_us", timer.max.get() / 1000);
+			values.put(name + ".p50_us", timer.percentile(0.5) / 1000);
+			values.put(name + ".p99_us", timer.percentile(0.99) / 1000);
+		}
+		return values;
+	}
+
+	/*
+	 * Monotonic count of events or amounts, e.g. pairs or DP cells
+	 */
+	public static final class Counter {
+		private final boolean live;
+		private final AtomicLong value = new AtomicLong();
+
+		private Counter(boolean live) {
+			this.live = live;
+		}
+
+		public void increment() {
+			if(live) value.incrementAndGet();
+		}
+
+		public void add(long amount) {
+			if(live) value.addAndGet(amount);
+		}
+
+		public long get() {
+			return value.get();
+		}
+	}
+
+	/*
+	 * Count, total and distribution of durations. The distribution is a
+	 * histogram with a bucket per power of two nanoseconds, so percentiles
+	 * are upper bounds within a factor of two.
+	 */
+	public static final class Timer {
+		private final String name;
+		private final boolean live;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong total = new AtomicLong();							// Nanoseconds
+		private final AtomicLong max = new AtomicLong();
+		private final AtomicLongArray buckets = new AtomicLongArray(64);			// Durations of [2^b, 2^(b+1)) ns
+
+		private Timer(String name, boolean live) {
+			this.name = name;
+			this.live = live;
+		}
+
+		/*
+		 * Returns the start time to pass to stop()
+		 */
+		public long start() {
+			return live ? System.nanoTime() : 0;
+		}
+
+		/*
+		 * Records the time since start
+		 */
+		public void stop(long start) {
+			if(live) record(System.nanoTime() - start);
+		}
+
+		/*
+		 * Records the time since start as a stage of a CAS, and traces it
+		 * as a span of that CAS
+		 */
+		public void stop(long start, Object cas) {
+			if(!live) return;
+			long end = System.nanoTime();
+			record(end - start);
+			reporter.span(name, cas, start, end);
+		}
+
+		public void record(long nanos) {
+			if(!live) return;
+			count.incrementAndGet();
+			total.addAndGet(nanos);
+			long previous = max.get();
+			while(nanos > previous && !max.compareAndSet(previous, nanos)) {
+				previous = max.get();
+			}
+			buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(Math.max(nanos, 1)) - 1);
+		}
+
+		/*
+		 * Returns an upper bound of a quantile of the recorded durations, in
+		 * nanoseconds
+		 */
+		long percentile(double quantile) {
+			long recorded = count.get();
+			if(recorded == 0) return 0;
+			long rank = (long) Math.ceil(quantile * recorded);
+			long seen = 0;
+			for(int bucket = 0; bucket < 64; bucket++) {
+				seen += buckets.get(bucket);
+				if(seen >= rank) return Math.min(max.get(), (bucket >= 62) ? Long.MAX_VALUE : 1L << (bucket + 1));
+			}
+			return max.get();
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package bio.uima;
+
+import java.util.Map;
+
+/*
+ * JMX view of the metrics snapshot, registered as bio.uima:type=Metrics
+ * when the bio.uima.metrics.jmx property is true
+ */
+public interface MetricsMXBean {
+
+	/*
+	 * Returns the current value of every metric, see Metrics.snapshot()
+	 */
+	Map<String, Long> getValues();
+}
@@ -0,0 +1,136 @@
+package bio.uima;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+/*
+ * Publishes the metrics of the registry: dumps a snapshot to a file every
+ * interval and at exit, registers it as a JMX bean, and appends trace spans
+ * to a file. Created by Metrics when metrics are on.
+ *
+ * The snapshot file has a "name<TAB>value" line per metric and is replaced
+ * atomically, so a reader never sees it half written. The trace file has a
+ * "stage<TAB>cas<TAB>thread<TAB>start_us<TAB>duration_us" line per span,
+ * where cas identifies the CAS object and start is relative to the start of
+ * the JVM's metrics; spans of a CAS object between two resets belong to the
+ * same document.
+ */
+final class MetricsReporter {
+
+	static final String OBJECT_NAME = "bio.uima:type=Metrics";
+
+	private final File metricsFile;												// null if there is no file
+	private final Writer trace;													// null if there is no trace
+	private final long origin = System.nanoTime();
+	private final ScheduledExecutorService timer;
+
+	MetricsReporter(File metricsFile, long intervalSeconds, boolean jmx, File traceFile) {
+		this.metricsFile = metricsFile;
+		Writer traceWriter = null;
+		if(traceFile != null) {
+			try {
+				traceWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(traceFile), StandardCharsets.US_ASCII));
+				traceWriter.write("stage\tcas\tthread\tstart_us\tduration_us\n");
+			} catch(IOException e) {
+				System.err.println("Could not open trace file " + traceFile + ": " + e);
+				traceWriter = null;
+			}
+		}
+		this.trace = traceWriter;
+		if(jmx) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), new ObjectName(OBJECT_NAME));
+			} catch(Exception e) {
+				System.err.println("Could not register " + OBJECT_NAME + ": " + e);
+			}
+		}
+		timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "metrics-reporter");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		timer.scheduleAtFixedRate(new Runnable() {
+			public void run() {
+				publish();
+			}
+		}, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+		Runtime.getRuntime().addShutdownHook(new Thread("metrics-shutdown") {
+			@Override
+			public void run() {
+				timer.shutdown();
+				publish();
+			}
+		});
+	}
+
+	/*
+	 * Appends the span of a stage of a CAS to the trace
+	 */
+	void span(String stage, Object cas, long start, long end) {
+		if(trace == null) return;
+		String line = stage + "\t" + Integer.toHexString(System.identityHashCode(cas)) + "\t"
+				+ Thread.currentThread().getName() + "\t" + (start - origin) / 1000 + "\t" + (end - start) / 1000 + "\n";
+		synchronized(trace) {
+			try {
+				trace.write(line);
+			} catch(IOException e) {
+				// the trace is best effort, the file reports the failure by ending early
+			}
+		}
+	}
+
+	/*
+	 * Writes the snapshot file and flushes the trace
+	 */
+	private synchronized void publish() {
+		if(metricsFile != null) {
+			File temp = new File(metricsFile.getPath() + ".tmp");
+			try {
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.US_ASCII));
+				try {
+					for(Map.Entry<String, Long> entry : Metrics.snapshot().entrySet()) {
+						out.println(entry.getKey() + "\t" + entry.getValue());
+					}
+				} finally {
+					out.close();
+				}
+				Files.move(temp.toPath(), metricsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch(IOException e) {
+				System.err.println("Could not write metrics to " + metricsFile + ": " + e);
+			}
+		}
+		if(trace != null) {
+			synchronized(trace) {
+				try {
+					trace.flush();
+				} catch(IOException e) {
+					// best effort, see span()
+				}
+			}
+		}
+	}
+
+	private static final class MetricsBean implements MetricsMXBean {
+		public Map<String, Long> getValues() {
+			return Metrics.snapshot();
+		}
+	}
+}
@@ -0,0 +1,165 @@
+
+
+/* First created by JCasGen Sun Oct 18 13:05:19 EDT 2026 */
+package bio.uima;
+
+import org.apache.uima.jcas.JCas; 
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+import org.apache.uima.jcas.cas.TOP;
+
+
+/** 
+ * Updated by JCasGen Sun Oct 18 13:05:19 EDT 2026
+ * XML source: desc/DNASequenceTypeSystemDescriptor.xml
+ * @generated */
+public class PairTile extends TOP {
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = JCasRegistry.register(PairTile.class);
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int type = typeIndexID;
+  /** @generated  */
+  @Override
+  public              int getTypeIndexID() {return typeIndexID;}
+ 
+  /** Never called.  Disable default constructor
+   * @generated */
+  protected PairTile() {/* intentionally empty block */}
+    
+  /** Internal - constructor used by generator 
+   * @generated */
+  public PairTile(int addr, TOP_Type type) {
+    super(addr, type);
+    readObject();
+  }
+  
+  /** @generated */
+  public PairTile(JCas jcas) {
+    super(jcas);
+    readObject();   
+  } 
+
+  /** <!-- begin-user-doc -->
+    * Write your own initialization here
+    * <!-- end-user-doc -->
+  @generated modifiable */
+  private void readObject() {/*default - does nothing empty block */}
+     
+ 
+    
+  //*--------------*
+  //* Feature: batch
+
+  /** getter for batch - gets Number of the CAS the tile was cut from
+   * @generated */
+  public int getBatch() {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_batch == null)
+      jcasType.jcas.throwFeatMissing("batch", "bio.uima.PairTile");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_batch);}
+    
+  /** setter for batch - sets Number of the CAS the tile was cut from 
+   * @generated */
+  public void setBatch(int v) {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_batch == null)
+      jcasType.jcas.throwFeatMissing("batch", "bio.uima.PairTile");
+    jcasType.ll_cas.ll_setIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_batch, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: tile
+
+  /** getter for tile - gets Number of the tile within its batch
+   * @generated */
+  public int getTile() {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_tile == null)
+      jcasType.jcas.throwFeatMissing("tile", "bio.uima.PairTile");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_tile);}
+    
+  /** setter for tile - sets Number of the tile within its batch 
+   * @generated */
+  public void setTile(int v) {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_tile == null)
+      jcasType.jcas.throwFeatMissing("tile", "bio.uima.PairTile");
+    jcasType.ll_cas.ll_setIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_tile, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: tileCount
+
+  /** getter for tileCount - gets Number of tiles of the batch
+   * @generated */
+  public int getTileCount() {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_tileCount == null)
+      jcasType.jcas.throwFeatMissing("tileCount", "bio.uima.PairTile");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_tileCount);}
+    
+  /** setter for tileCount - sets Number of tiles of the batch 
+   * @generated */
+  public void setTileCount(int v) {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_tileCount == null)
+      jcasType.jcas.throwFeatMissing("tileCount", "bio.uima.PairTile");
+    jcasType.ll_cas.ll_setIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_tileCount, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: proteinCount
+
+  /** getter for proteinCount - gets Number of proteins of the batch
+   * @generated */
+  public int getProteinCount() {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_proteinCount == null)
+      jcasType.jcas.throwFeatMissing("proteinCount", "bio.uima.PairTile");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_proteinCount);}
+    
+  /** setter for proteinCount - sets Number of proteins of the batch 
+   * @generated */
+  public void setProteinCount(int v) {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_proteinCount == null)
+      jcasType.jcas.throwFeatMissing("proteinCount", "bio.uima.PairTile");
+    jcasType.ll_cas.ll_setIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_proteinCount, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: firstPair
+
+  /** getter for firstPair - gets Index of the first pair of the tile
+   * @generated */
+  public int getFirstPair() {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_firstPair == null)
+      jcasType.jcas.throwFeatMissing("firstPair", "bio.uima.PairTile");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_firstPair);}
+    
+  /** setter for firstPair - sets Index of the first pair of the tile 
+   * @generated */
+  public void setFirstPair(int v) {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_firstPair == null)
+      jcasType.jcas.throwFeatMissing("firstPair", "bio.uima.PairTile");
+    jcasType.ll_cas.ll_setIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_firstPair, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: endPair
+
+  /** getter for endPair - gets Index one past the last pair of the tile
+   * @generated */
+  public int getEndPair() {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_endPair == null)
+      jcasType.jcas.throwFeatMissing("endPair", "bio.uima.PairTile");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_endPair);}
+    
+  /** setter for endPair - sets Index one past the last pair of the tile 
+   * @generated */
+  public void setEndPair(int v) {
+    if (PairTile_Type.featOkTst && ((PairTile_Type)jcasType).casFeat_endPair == null)
+      jcasType.jcas.throwFeatMissing("endPair", "bio.uima.PairTile");
+    jcasType.ll_cas.ll_setIntValue(addr, ((PairTile_Type)jcasType).casFeatCode_endPair, v);}    
+  }
+
+    
\ No newline at end of file
@@ -0,0 +1,121 @@
+package bio.uima;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_component.JCasMultiplier_ImplBase;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.AbstractCas;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.CasCopier;
+
+/*
+ * CAS multiplier that cuts the pair triangle of a CAS of proteins into
+ * contiguous tiles of about equal alignment cost, and outputs one work unit
+ * CAS per tile. A work unit holds the proteins of the input CAS (and any
+ * pairs it already has) with a PairTile that tells the alignment stage which
+ * pairs to align, so the tiles can be aligned by any number of (remote)
+ * alignment instances and put back together by an AlignmentMerger. The
+ * document text and the DNA sequences are only in the first unit of a CAS,
+ * which the merger takes them from.
+ */
+public class PairTileSegmenter extends JCasMultiplier_ImplBase {
+	
+	public static final String PARAM_NUM_TILES = "NumTiles";
+	public static final String PARAM_CAS_POOL_SIZE = "CasPoolSize";
+	
+	private static final int DEFAULT_NUM_TILES = 16;
+	private static final int DEFAULT_CAS_POOL_SIZE = 4;
+	private static final Metrics.Timer STAGE = Metrics.timer("segmentation");
+	
+	private int numTiles;																	// Work units per input CAS
+	private int casPoolSize;																// Work units in flight at most
+	private int batchCount = 0;																// Input CASes seen so far
+	private JCas input;																		// CAS being cut, null when done
+	private int batch;
+	private int proteinCount;
+	private int[] tiles;																	// First pair of every tile, then the end
+	private int nextTile;
+	
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		Integer tileCount = (Integer) context.getConfigParameterValue(PARAM_NUM_TILES);
+		numTiles = (tileCount == null || tileCount <= 0) ? DEFAULT_NUM_TILES : tileCount;
+		Integer poolSize = (Integer) context.getConfigParameterValue(PARAM_CAS_POOL_SIZE);
+		casPoolSize = (poolSize == null || poolSize <= 0) ? DEFAULT_CAS_POOL_SIZE : poolSize;
+	}
+	
+	/*
+	 * Sizes the pool work units are taken from, so that no more than
+	 * casPoolSize of them are in flight: next() waits for a free CAS
+	 */
+	@Override
+	public int getCasInstancesRequired() {
+		return casPoolSize;
+	}
+	
+	@Override
+	public void process(JCas cas) throws AnalysisEngineProcessException {
+		long start = STAGE.start();
+		try {
+			String[] proteins = Utils.getProteins(cas);
+			int[] lengths = new int[proteins.length];
+			for(int iii = 0; iii < proteins.length; iii++) {
+				lengths[iii] = proteins[iii].length();
+			}
+			int pairs = AllPairsScheduler.pairCount(proteins.length);
+			if(Utils.hasIndexed(cas, Utils.ALIGNMENT_INDEX)) {
+				// resumed after alignment, pass the pairs through as one empty tile
+				tiles = new int[] {pairs, pairs};
+			} else {
+				tiles = AllPairsScheduler.partition(lengths, numTiles);
+				if(tiles.length == 1) tiles = new int[] {0, 0};						// no pairs, still merge one unit
+			}
+			input = cas;
+			batch = batchCount++;
+			proteinCount = proteins.length;
+			nextTile = 0;
+		} finally {
+			STAGE.stop(start, cas);
+		}
+	}
+	
+	public boolean hasNext() throws AnalysisEngineProcessException {
+		return input != null && nextTile < tiles.length - 1;
+	}
+	
+	public AbstractCas next() throws AnalysisEngineProcessException {
+		JCas unit = getEmptyJCas();
+		try {
+			// copy the proteins and pairs; only the first unit carries the text and the DNA, for the merger
+			CasCopier copier = new CasCopier(input.getCas(), unit.getCas());
+			if(nextTile == 0) {
+				unit.setDocumentText(input.getDocumentText());
+				for(FSIterator<Annotation> it = input.getAnnotationIndex(DNASequence.type).iterator(); it.hasNext(); ) {
+					unit.addFsToIndexes(copier.copyFs(it.next()));
+				}
+			}
+			for(FSIterator<Annotation> it = input.getAnnotationIndex(ProteinSequence.type).iterator(); it.hasNext(); ) {
+				unit.addFsToIndexes(copier.copyFs(it.next()));
+			}
+			for(AlignmentPair pair : Utils.getAlignmentPairs(input)) {
+				unit.addFsToIndexes(copier.copyFs(pair));
+			}
+			PairTile tile = new PairTile(unit);
+			tile.setBatch(batch);
+			tile.setTile(nextTile);
+			tile.setTileCount(tiles.length - 1);
+			tile.setProteinCount(proteinCount);
+			tile.setFirstPair(tiles[nextTile]);
+			tile.setEndPair(tiles[nextTile + 1]);
+			tile.addToIndexes();
+		} catch(RuntimeException e) {
+			unit.release();
+			throw new AnalysisEngineProcessException(e);
+		}
+		if(++nextTile == tiles.length - 1) input = null;
+		return unit;
+	}
+}
@@ -0,0 +1,186 @@
+
+/* First created by JCasGen Sun Oct 18 13:05:19 EDT 2026 */
+package bio.uima;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSGenerator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.FeatureImpl;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+/** 
+ * Updated by JCasGen Sun Oct 18 13:05:19 EDT 2026
+ * @generated */
+public class PairTile_Type extends TOP_Type {
+  /** @generated */
+  @Override
+  protected FSGenerator getFSGenerator() {return fsGenerator;}
+  /** @generated */
+  private final FSGenerator fsGenerator = 
+    new FSGenerator() {
+      public FeatureStructure createFS(int addr, CASImpl cas) {
+  			 if (PairTile_Type.this.useExistingInstance) {
+  			   // Return eq fs instance if already created
+  		     FeatureStructure fs = PairTile_Type.this.jcas.getJfsFromCaddr(addr);
+  		     if (null == fs) {
+  		       fs = new PairTile(addr, PairTile_Type.this);
+  			   PairTile_Type.this.jcas.putJfsFromCaddr(addr, fs);
+  			   return fs;
+  		     }
+  		     return fs;
+        } else return new PairTile(addr, PairTile_Type.this);
+  	  }
+    };
+  /** @generated */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = PairTile.typeIndexID;
+  /** @generated 
+     @modifiable */
+  @SuppressWarnings ("hiding")
+  public final static boolean featOkTst = JCasRegistry.getFeatOkTst("bio.uima.PairTile");
+ 
+  /** @generated */
+  final Feature casFeat_batch;
+  /** @generated */
+  final int     casFeatCode_batch;
+  /** @generated */ 
+  public int getBatch(int addr) {
+        if (featOkTst && casFeat_batch == null)
+      jcas.throwFeatMissing("batch", "bio.uima.PairTile");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_batch);
+  }
+  /** @generated */    
+  public void setBatch(int addr, int v) {
+        if (featOkTst && casFeat_batch == null)
+      jcas.throwFeatMissing("batch", "bio.uima.PairTile");
+    ll_cas.ll_setIntValue(addr, casFeatCode_batch, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_tile;
+  /** @generated */
+  final int     casFeatCode_tile;
+  /** @generated */ 
+  public int getTile(int addr) {
+        if (featOkTst && casFeat_tile == null)
+      jcas.throwFeatMissing("tile", "bio.uima.PairTile");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_tile);
+  }
+  /** @generated */    
+  public void setTile(int addr, int v) {
+        if (featOkTst && casFeat_tile == null)
+      jcas.throwFeatMissing("tile", "bio.uima.PairTile");
+    ll_cas.ll_setIntValue(addr, casFeatCode_tile, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_tileCount;
+  /** @generated */
+  final int     casFeatCode_tileCount;
+  /** @generated */ 
+  public int getTileCount(int addr) {
+        if (featOkTst && casFeat_tileCount == null)
+      jcas.throwFeatMissing("tileCount", "bio.uima.PairTile");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_tileCount);
+  }
+  /** @generated */    
+  public void setTileCount(int addr, int v) {
+        if (featOkTst && casFeat_tileCount == null)
+      jcas.throwFeatMissing("tileCount", "bio.uima.PairTile");
+    ll_cas.ll_setIntValue(addr, casFeatCode_tileCount, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_proteinCount;
+  /** @generated */
+  final int     casFeatCode_proteinCount;
+  /** @generated */ 
+  public int getProteinCount(int addr) {
+        if (featOkTst && casFeat_proteinCount == null)
+      jcas.throwFeatMissing("proteinCount", "bio.uima.PairTile");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_proteinCount);
+  }
+  /** @generated */    
+  public void setProteinCount(int addr, int v) {
+        if (featOkTst && casFeat_proteinCount == null)
+      jcas.throwFeatMissing("proteinCount", "bio.uima.PairTile");
+    ll_cas.ll_setIntValue(addr, casFeatCode_proteinCount, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_firstPair;
+  /** @generated */
+  final int     casFeatCode_firstPair;
+  /** @generated */ 
+  public int getFirstPair(int addr) {
+        if (featOkTst && casFeat_firstPair == null)
+      jcas.throwFeatMissing("firstPair", "bio.uima.PairTile");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_firstPair);
+  }
+  /** @generated */    
+  public void setFirstPair(int addr, int v) {
+        if (featOkTst && casFeat_firstPair == null)
+      jcas.throwFeatMissing("firstPair", "bio.uima.PairTile");
+    ll_cas.ll_setIntValue(addr, casFeatCode_firstPair, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_endPair;
+  /** @generated */
+  final int     casFeatCode_endPair;
+  /** @generated */ 
+  public int getEndPair(int addr) {
+        if (featOkTst && casFeat_endPair == null)
+      jcas.throwFeatMissing("endPair", "bio.uima.PairTile");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_endPair);
+  }
+  /** @generated */    
+  public void setEndPair(int addr, int v) {
+        if (featOkTst && casFeat_endPair == null)
+      jcas.throwFeatMissing("endPair", "bio.uima.PairTile");
+    ll_cas.ll_setIntValue(addr, casFeatCode_endPair, v);}
+    
+
+
+
+  /** initialize variables to correspond with Cas Type and Features
+	* @generated */
+  public PairTile_Type(JCas jcas, Type casType) {
+    super(jcas, casType);
+    casImpl.getFSClassRegistry().addGeneratorForType((TypeImpl)this.casType, getFSGenerator());
+
+ 
+    casFeat_batch = jcas.getRequiredFeatureDE(casType, "batch", "uima.cas.Integer", featOkTst);
+    casFeatCode_batch  = (null == casFeat_batch) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_batch).getCode();
+
+ 
+    casFeat_tile = jcas.getRequiredFeatureDE(casType, "tile", "uima.cas.Integer", featOkTst);
+    casFeatCode_tile  = (null == casFeat_tile) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_tile).getCode();
+
+ 
+    casFeat_tileCount = jcas.getRequiredFeatureDE(casType, "tileCount", "uima.cas.Integer", featOkTst);
+    casFeatCode_tileCount  = (null == casFeat_tileCount) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_tileCount).getCode();
+
+ 
+    casFeat_proteinCount = jcas.getRequiredFeatureDE(casType, "proteinCount", "uima.cas.Integer", featOkTst);
+    casFeatCode_proteinCount  = (null == casFeat_proteinCount) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_proteinCount).getCode();
+
+ 
+    casFeat_firstPair = jcas.getRequiredFeatureDE(casType, "firstPair", "uima.cas.Integer", featOkTst);
+    casFeatCode_firstPair  = (null == casFeat_firstPair) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_firstPair).getCode();
+
+ 
+    casFeat_endPair = jcas.getRequiredFeatureDE(casType, "endPair", "uima.cas.Integer", featOkTst);
+    casFeatCode_endPair  = (null == casFeat_endPair) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_endPair).getCode();
+
+  }
+}
+
+
+
+    
\ No newline at end of file
@@ -0,0 +1,48 @@
+package bio.uima;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.apache.uima.resource.DataResource;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.SharedResourceObject;
+
+/*
+ * Base of the external resources that are parsed from a data file. UIMA
+ * creates one resource object per resource manager, and the parsed value is
+ * cached per class and URL on top of that, so a data file is parsed once per
+ * JVM however many pipelines use it. Parsed values must be immutable, as
+ * every annotator instance and thread shares them.
+ */
+abstract class ParsedResource<T> implements SharedResourceObject {
+
+	private static final HashMap<String, Object> parsed = new HashMap<String, Object>();
+
+	private T value;
+
+	@SuppressWarnings("unchecked")
+	public void load(DataResource data) throws ResourceInitializationException {
+		String key = getClass().getName() + " " + data.getUrl();
+		synchronized(parsed) {
+			value = (T) parsed.get(key);
+			if(value != null) return;
+			try {
+				value = parse(Utils.readText(data.getInputStream()));
+			} catch(IOException e) {
+				throw new ResourceInitializationException(e);
+			} catch(RuntimeException e) {
+				throw new ResourceInitializationException(e);
+			}
+			parsed.put(key, value);
+		}
+	}
+
+	/*
+	 * Parses the text of the data file
+	 */
+	protected abstract T parse(String text);
+
+	protected T get() {
+		return value;
+	}
+}
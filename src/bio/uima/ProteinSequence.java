@@ -0,0 +1,171 @@
+
+
+/* First created by JCasGen Sun Oct 18 10:12:44 EDT 2026 */
+package bio.uima;
+
+import org.apache.uima.jcas.JCas; 
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.jcas.cas.TOP_Type;
+
+import org.apache.uima.jcas.cas.ByteArray;
+import org.apache.uima.jcas.tcas.Annotation;
+
+
+/** 
+ * Updated by JCasGen Sun Oct 18 10:12:44 EDT 2026
+ * XML source: desc/DNASequenceTypeSystemDescriptor.xml
+ * @generated */
+public class ProteinSequence extends Annotation {
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = JCasRegistry.register(ProteinSequence.class);
+  /** @generated
+   * @ordered 
+   */
+  @SuppressWarnings ("hiding")
+  public final static int type = typeIndexID;
+  /** @generated  */
+  @Override
+  public              int getTypeIndexID() {return typeIndexID;}
+ 
+  /** Never called.  Disable default constructor
+   * @generated */
+  protected ProteinSequence() {/* intentionally empty block */}
+    
+  /** Internal - constructor used by generator 
+   * @generated */
+  public ProteinSequence(int addr, TOP_Type type) {
+    super(addr, type);
+    readObject();
+  }
+  
+  /** @generated */
+  public ProteinSequence(JCas jcas) {
+    super(jcas);
+    readObject();   
+  } 
+
+  /** @generated */  
+  public ProteinSequence(JCas jcas, int begin, int end) {
+    super(jcas);
+    setBegin(begin);
+    setEnd(end);
+    readObject();
+  }   
+
+  /** <!-- begin-user-doc -->
+    * Write your own initialization here
+    * <!-- end-user-doc -->
+  @generated modifiable */
+  private void readObject() {/*default - does nothing empty block */}
+     
+ 
+    
+  //*--------------*
+  //* Feature: index
+
+  /** getter for index - gets Position of the protein in the translated protein list
+   * @generated */
+  public int getIndex() {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_index == null)
+      jcasType.jcas.throwFeatMissing("index", "bio.uima.ProteinSequence");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_index);}
+    
+  /** setter for index - sets Position of the protein in the translated protein list 
+   * @generated */
+  public void setIndex(int v) {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_index == null)
+      jcasType.jcas.throwFeatMissing("index", "bio.uima.ProteinSequence");
+    jcasType.ll_cas.ll_setIntValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_index, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: frame
+
+  /** getter for frame - gets Reading frame the protein was translated in
+   * @generated */
+  public int getFrame() {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_frame == null)
+      jcasType.jcas.throwFeatMissing("frame", "bio.uima.ProteinSequence");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_frame);}
+    
+  /** setter for frame - sets Reading frame the protein was translated in 
+   * @generated */
+  public void setFrame(int v) {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_frame == null)
+      jcasType.jcas.throwFeatMissing("frame", "bio.uima.ProteinSequence");
+    jcasType.ll_cas.ll_setIntValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_frame, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: dnaBegin
+
+  /** getter for dnaBegin - gets First base of the codons the protein was translated from, as an offset in its DNA sequence on the forward strand
+   * @generated */
+  public int getDnaBegin() {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_dnaBegin == null)
+      jcasType.jcas.throwFeatMissing("dnaBegin", "bio.uima.ProteinSequence");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_dnaBegin);}
+    
+  /** setter for dnaBegin - sets First base of the codons the protein was translated from, as an offset in its DNA sequence on the forward strand 
+   * @generated */
+  public void setDnaBegin(int v) {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_dnaBegin == null)
+      jcasType.jcas.throwFeatMissing("dnaBegin", "bio.uima.ProteinSequence");
+    jcasType.ll_cas.ll_setIntValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_dnaBegin, v);}    
+ 
+    
+  //*--------------*
+  //* Feature: dnaEnd
+
+  /** getter for dnaEnd - gets End of the codons the protein was translated from, including a stop codon, as an offset in its DNA sequence on the forward strand
+   * @generated */
+  public int getDnaEnd() {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_dnaEnd == null)
+      jcasType.jcas.throwFeatMissing("dnaEnd", "bio.uima.ProteinSequence");
+    return jcasType.ll_cas.ll_getIntValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_dnaEnd);}
+    
+  /** setter for dnaEnd - sets End of the codons the protein was translated from, including a stop codon, as an offset in its DNA sequence on the forward strand 
+   * @generated */
+  public void setDnaEnd(int v) {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_dnaEnd == null)
+      jcasType.jcas.throwFeatMissing("dnaEnd", "bio.uima.ProteinSequence");
+    jcasType.ll_cas.ll_setIntValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_dnaEnd, v);}
+    
+  //*--------------*
+  //* Feature: residues
+
+  /** getter for residues - gets Amino acid residues, one ASCII letter per byte
+   * @generated */
+  public ByteArray getResidues() {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_residues == null)
+      jcasType.jcas.throwFeatMissing("residues", "bio.uima.ProteinSequence");
+    return (ByteArray)(jcasType.ll_cas.ll_getFSForRef(jcasType.ll_cas.ll_getRefValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_residues)));}
+    
+  /** setter for residues - sets Amino acid residues, one ASCII letter per byte 
+   * @generated */
+  public void setResidues(ByteArray v) {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_residues == null)
+      jcasType.jcas.throwFeatMissing("residues", "bio.uima.ProteinSequence");
+    jcasType.ll_cas.ll_setRefValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_residues, jcasType.ll_cas.ll_getFSRef(v));}    
+    
+  /** indexed getter for residues - gets an indexed value - Amino acid residues, one ASCII letter per byte
+   * @generated */
+  public byte getResidues(int i) {
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_residues == null)
+      jcasType.jcas.throwFeatMissing("residues", "bio.uima.ProteinSequence");
+    jcasType.jcas.checkArrayBounds(jcasType.ll_cas.ll_getRefValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_residues), i);
+    return jcasType.ll_cas.ll_getByteArrayValue(jcasType.ll_cas.ll_getRefValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_residues), i);}
+
+  /** indexed setter for residues - sets an indexed value - Amino acid residues, one ASCII letter per byte
+   * @generated */
+  public void setResidues(int i, byte v) { 
+    if (ProteinSequence_Type.featOkTst && ((ProteinSequence_Type)jcasType).casFeat_residues == null)
+      jcasType.jcas.throwFeatMissing("residues", "bio.uima.ProteinSequence");
+    jcasType.jcas.checkArrayBounds(jcasType.ll_cas.ll_getRefValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_residues), i);
+    jcasType.ll_cas.ll_setByteArrayValue(jcasType.ll_cas.ll_getRefValue(addr, ((ProteinSequence_Type)jcasType).casFeatCode_residues), i, v);}
+  }
+
+    
\ No newline at end of file
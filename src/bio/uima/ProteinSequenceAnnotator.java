@@ -1,11 +1,13 @@
 package bio.uima;
 
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
-import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.FSIterator;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.tcas.Annotation;
+import org.apache.uima.resource.ResourceInitializationException;
 
-import java.util.HashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.ArrayList;
@@ -20,73 +22,137 @@ import java.util.ArrayList;
 
 public class ProteinSequenceAnnotator extends JCasAnnotator_ImplBase  {
 	
-	private static final int NUM_FRAMES = 3;
+	public static final String PARAM_NUM_FRAMES = "NumFrames";
+	public static final String PARAM_MIN_ORF_LENGTH = "MinOrfLength";
+	public static final String RESOURCE_CODON_TABLE = "CodonTable";
+	private static final Metrics.Timer STAGE = Metrics.timer("translation");
+	private static final Metrics.Counter SEQUENCES = Metrics.counter("translation.sequences");
+	private static final Metrics.Counter BASES = Metrics.counter("translation.bases");
+	private static final Metrics.Counter ORFS = Metrics.counter("translation.orfs");
+	
+	private CodonTranslator translator;												// Codon table for translation
+	private boolean bothStrands;													// Translate all six frames
+	private int minOrfLength;														// Residues of an ORF, 0 to translate whole frames
+	
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		translator = Utils.getResource(context, RESOURCE_CODON_TABLE, CodonTableResource.class).getTranslator();
+		Integer frames = (Integer) context.getConfigParameterValue(PARAM_NUM_FRAMES);
+		if(frames != null && frames != CodonTranslator.NUM_FORWARD_FRAMES && frames != CodonTranslator.NUM_FRAMES) {
+			throw new ResourceInitializationException(new IllegalArgumentException(
+					PARAM_NUM_FRAMES + " must be 3 or 6, not " + frames));
+		}
+		bothStrands = (frames != null) && (frames == CodonTranslator.NUM_FRAMES);
+		Integer minLength = (Integer) context.getConfigParameterValue(PARAM_MIN_ORF_LENGTH);
+		if(minLength != null && minLength < 0) {
+			throw new ResourceInitializationException(new IllegalArgumentException(
+					PARAM_MIN_ORF_LENGTH + " must be >= 0, not " + minLength));
+		}
+		minOrfLength = (minLength == null) ? 0 : minLength;
+	}
 
 	@Override
 	public void process(JCas cas) throws AnalysisEngineProcessException {
-		// read DNA sequences from the CAS
-		Pattern DNAPattern = Pattern.compile("\\b[ACGT]+\\b");
-		String sequencesString = cas.getDocumentText();
-		Matcher matcher = DNAPattern.matcher(sequencesString);
-		
-		ArrayList<String> proteins = new ArrayList<String>();
-		HashMap<String, String> codonTable = Utils.initCodonTable();		// Codon table for translation
-		String[] inputDNA = new String[5];									// input DNA sequences
+		long start = STAGE.start();
+		try {
+			if(Utils.hasIndexed(cas, Utils.PROTEIN_INDEX)) return;						// resumed after translation
 		
-		/*
-		 * Find DNA sequences in input file using regular expressions.
-		 * For every match, create a new Annotation, store features, and
-		 * translate to protein sequences.
-		 */
-		int pos = 0;
-		int dnaNumber = 0;
-		while(matcher.find(pos)) {
-			DNASequence annotation = new DNASequence(cas);
-			annotation.setBegin(matcher.start());
-			annotation.setEnd(matcher.end());
-			annotation.setValue(sequencesString.substring(matcher.start(), matcher.end()));
-			inputDNA[dnaNumber++] = sequencesString.substring(matcher.start(), matcher.end());
-			String[] newProteins = dnaToProtein(sequencesString.substring(matcher.start(), matcher.end()), codonTable);
-			Utils.addArrayToList(proteins, newProteins);
-			annotation.addToIndexes();
-			pos = matcher.end();
-		}
+			// read DNA sequences from the CAS
+			ArrayList<DNASequence> inputDNA = new ArrayList<DNASequence>();		// input DNA sequences
+			FSIterator<Annotation> sequences = cas.getAnnotationIndex(DNASequence.type).iterator();
+			while(sequences.hasNext()) {
+				inputDNA.add((DNASequence) sequences.next());
+			}
+			if(inputDNA.isEmpty()) {
+				/*
+				 * The collection reader did not annotate the DNA sequences.
+				 * Find them in input file using regular expressions and create
+				 * a new Annotation for every match.
+				 */
+				Pattern DNAPattern = Pattern.compile("\\b[ACGT]+\\b");
+				String sequencesString = cas.getDocumentText();
+				Matcher matcher = DNAPattern.matcher(sequencesString);
+				int pos = 0;
+				while(matcher.find(pos)) {
+					DNASequence annotation = new DNASequence(cas);
+					annotation.setBegin(matcher.start());
+					annotation.setEnd(matcher.end());
+					annotation.setValue(sequencesString.substring(matcher.start(), matcher.end()));
+					annotation.addToIndexes();
+					inputDNA.add(annotation);
+					pos = matcher.end();
+				}
+			}
 		
-		try {
-			JCas orf1 = cas.createView("proteins");							// create a view for proteins
-			String proteinString = Utils.combineStringArray(proteins.toArray(new String[proteins.size()]));
-			orf1.setDocumentText(proteinString);
-			JCas orf2 = cas.createView("dnas");								// create separate view for DNA
-			String dnaString = Utils.combineStringArray(inputDNA);
-			orf2.setDocumentText(dnaString);
-		} catch (CASException e) {
-			e.printStackTrace();
+			/*
+			 * Translate every DNA sequence and store each frame, or each open
+			 * reading frame if ORFs are on, as a protein covering the bases it
+			 * was translated from, numbered in translation order.
+			 */
+			int index = 0;
+			for(DNASequence dna : inputDNA) {
+				CharSequence bases = getBases(dna);
+				SEQUENCES.increment();
+				BASES.add(bases.length());
+				if(minOrfLength > 0) {
+					ArrayList<CodonTranslator.Orf> orfs = translator.findOrfs(bases, bothStrands, minOrfLength);
+					ORFS.add(orfs.size());
+					for(CodonTranslator.Orf orf : orfs) {
+						addProtein(cas, dna, index++, orf.getFrame(), orf.getBegin(), orf.getEnd(), orf.getProtein());
+					}
+					continue;
+				}
+				String[] proteins = dnaToProtein(bases);
+				for(int frame = 0; frame < proteins.length; frame++) {
+					int begin = CodonTranslator.codonsBegin(frame, bases.length(), 0, proteins[frame].length());
+					addProtein(cas, dna, index++, frame, begin, begin + 3 * proteins[frame].length(), proteins[frame]);
+				}
+			}
+		} finally {
+			STAGE.stop(start, cas);
 		}
 	}
 	
+	/*
+	 * Adds the protein translated from bases [dnaBegin, dnaEnd) of a DNA
+	 * sequence. The annotation spans those bases in the document text, or is
+	 * as empty as the DNA sequence if its bases are in the sequence store.
+	 */
+	private static void addProtein(JCas cas, DNASequence dna, int index, int frame, int dnaBegin, int dnaEnd, String residues) {
+		boolean inText = dna.getEnd() > dna.getBegin();
+		ProteinSequence protein = new ProteinSequence(cas, inText ? dna.getBegin() + dnaBegin : dna.getBegin(),
+				inText ? dna.getBegin() + dnaEnd : dna.getEnd());
+		protein.setIndex(index);
+		protein.setFrame(frame);
+		protein.setDnaBegin(dnaBegin);
+		protein.setDnaEnd(dnaEnd);
+		protein.setResidues(Utils.toByteArray(cas, residues));
+		protein.addToIndexes();
+	}
+
+	/*
+	 * Returns the bases of a DNA sequence, read in place if they are in the
+	 * sequence store
+	 */
+	private CharSequence getBases(DNASequence dna) throws AnalysisEngineProcessException {
+		if(dna.getValue() != null) return dna.getValue();
+		SequenceStore store = SequenceStore.shared();
+		if(store == null) {
+			throw new AnalysisEngineProcessException(new IllegalStateException(
+					"DNA sequence at " + dna.getBegin() + " is in a sequence store, but no store is open"));
+		}
+		return store.sequence(dna.getStoreHandle(), dna.getStoreLength());
+	}
+
 	/*
 	 * Returns an array of Strings which represent all the open frame
 	 * translations of a particular DNA sequence to protein sequences
 	 * 
 	 * @param	dnaSequence		The input DNA sequence to be translated to protein
-	 * @param	codonTable		HashMap that stores the codon table for translation
 	 * @return					All open frame translations of a DNA sequence
 	 */
-	private String[] dnaToProtein(String dnaSequence, HashMap<String, String> codonTable) {
-    	String[] proteins = new String[NUM_FRAMES];
-		int length = dnaSequence.length();
-		for(int frame = 0; frame < NUM_FRAMES; frame++) {
-			StringBuilder proteinBuilder = new StringBuilder();
-			for(int iii = frame; iii <= (length + frame - NUM_FRAMES); iii+=3) {
-				StringBuilder codon = new StringBuilder();
-				codon.append(dnaSequence.charAt(iii));
-				codon.append(dnaSequence.charAt((iii + 1) % length));
-				codon.append(dnaSequence.charAt((iii + 2) % length));
-				proteinBuilder.append(codonTable.get(codon.toString()));
-			}
-			if(frame > 0)	proteinBuilder.deleteCharAt(proteinBuilder.length() - 1);
-			proteins[frame] = proteinBuilder.toString();
-		}
-		return proteins;
+	private String[] dnaToProtein(CharSequence dnaSequence) {
+		return translator.translate(dnaSequence, bothStrands);
 	}
 }
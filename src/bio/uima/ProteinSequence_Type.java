@@ -0,0 +1,185 @@
+
+/* First created by JCasGen Sun Oct 18 10:12:44 EDT 2026 */
+package bio.uima;
+
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.JCasRegistry;
+import org.apache.uima.cas.impl.CASImpl;
+import org.apache.uima.cas.impl.FSGenerator;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.impl.TypeImpl;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.impl.FeatureImpl;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.jcas.tcas.Annotation_Type;
+
+/** 
+ * Updated by JCasGen Sun Oct 18 10:12:44 EDT 2026
+ * @generated */
+public class ProteinSequence_Type extends Annotation_Type {
+  /** @generated */
+  @Override
+  protected FSGenerator getFSGenerator() {return fsGenerator;}
+  /** @generated */
+  private final FSGenerator fsGenerator = 
+    new FSGenerator() {
+      public FeatureStructure createFS(int addr, CASImpl cas) {
+  			 if (ProteinSequence_Type.this.useExistingInstance) {
+  			   // Return eq fs instance if already created
+  		     FeatureStructure fs = ProteinSequence_Type.this.jcas.getJfsFromCaddr(addr);
+  		     if (null == fs) {
+  		       fs = new ProteinSequence(addr, ProteinSequence_Type.this);
+  			   ProteinSequence_Type.this.jcas.putJfsFromCaddr(addr, fs);
+  			   return fs;
+  		     }
+  		     return fs;
+        } else return new ProteinSequence(addr, ProteinSequence_Type.this);
+  	  }
+    };
+  /** @generated */
+  @SuppressWarnings ("hiding")
+  public final static int typeIndexID = ProteinSequence.typeIndexID;
+  /** @generated 
+     @modifiable */
+  @SuppressWarnings ("hiding")
+  public final static boolean featOkTst = JCasRegistry.getFeatOkTst("bio.uima.ProteinSequence");
+ 
+  /** @generated */
+  final Feature casFeat_index;
+  /** @generated */
+  final int     casFeatCode_index;
+  /** @generated */ 
+  public int getIndex(int addr) {
+        if (featOkTst && casFeat_index == null)
+      jcas.throwFeatMissing("index", "bio.uima.ProteinSequence");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_index);
+  }
+  /** @generated */    
+  public void setIndex(int addr, int v) {
+        if (featOkTst && casFeat_index == null)
+      jcas.throwFeatMissing("index", "bio.uima.ProteinSequence");
+    ll_cas.ll_setIntValue(addr, casFeatCode_index, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_frame;
+  /** @generated */
+  final int     casFeatCode_frame;
+  /** @generated */ 
+  public int getFrame(int addr) {
+        if (featOkTst && casFeat_frame == null)
+      jcas.throwFeatMissing("frame", "bio.uima.ProteinSequence");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_frame);
+  }
+  /** @generated */    
+  public void setFrame(int addr, int v) {
+        if (featOkTst && casFeat_frame == null)
+      jcas.throwFeatMissing("frame", "bio.uima.ProteinSequence");
+    ll_cas.ll_setIntValue(addr, casFeatCode_frame, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_dnaBegin;
+  /** @generated */
+  final int     casFeatCode_dnaBegin;
+  /** @generated */ 
+  public int getDnaBegin(int addr) {
+        if (featOkTst && casFeat_dnaBegin == null)
+      jcas.throwFeatMissing("dnaBegin", "bio.uima.ProteinSequence");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_dnaBegin);
+  }
+  /** @generated */    
+  public void setDnaBegin(int addr, int v) {
+        if (featOkTst && casFeat_dnaBegin == null)
+      jcas.throwFeatMissing("dnaBegin", "bio.uima.ProteinSequence");
+    ll_cas.ll_setIntValue(addr, casFeatCode_dnaBegin, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_dnaEnd;
+  /** @generated */
+  final int     casFeatCode_dnaEnd;
+  /** @generated */ 
+  public int getDnaEnd(int addr) {
+        if (featOkTst && casFeat_dnaEnd == null)
+      jcas.throwFeatMissing("dnaEnd", "bio.uima.ProteinSequence");
+    return ll_cas.ll_getIntValue(addr, casFeatCode_dnaEnd);
+  }
+  /** @generated */    
+  public void setDnaEnd(int addr, int v) {
+        if (featOkTst && casFeat_dnaEnd == null)
+      jcas.throwFeatMissing("dnaEnd", "bio.uima.ProteinSequence");
+    ll_cas.ll_setIntValue(addr, casFeatCode_dnaEnd, v);}
+    
+ 
+  /** @generated */
+  final Feature casFeat_residues;
+  /** @generated */
+  final int     casFeatCode_residues;
+  /** @generated */ 
+  public int getResidues(int addr) {
+        if (featOkTst && casFeat_residues == null)
+      jcas.throwFeatMissing("residues", "bio.uima.ProteinSequence");
+    return ll_cas.ll_getRefValue(addr, casFeatCode_residues);
+  }
+  /** @generated */    
+  public void setResidues(int addr, int v) {
+        if (featOkTst && casFeat_residues == null)
+      jcas.throwFeatMissing("residues", "bio.uima.ProteinSequence");
+    ll_cas.ll_setRefValue(addr, casFeatCode_residues, v);}
+    
+   /** @generated */
+  public byte getResidues(int addr, int i) {
+        if (featOkTst && casFeat_residues == null)
+      jcas.throwFeatMissing("residues", "bio.uima.ProteinSequence");
+    if (lowLevelTypeChecks)
+      return ll_cas.ll_getByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_residues), i, true);
+    jcas.checkArrayBounds(ll_cas.ll_getRefValue(addr, casFeatCode_residues), i);
+    return ll_cas.ll_getByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_residues), i);
+  }
+   
+  /** @generated */ 
+  public void setResidues(int addr, int i, byte v) {
+        if (featOkTst && casFeat_residues == null)
+      jcas.throwFeatMissing("residues", "bio.uima.ProteinSequence");
+    if (lowLevelTypeChecks)
+      ll_cas.ll_setByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_residues), i, v, true);
+    jcas.checkArrayBounds(ll_cas.ll_getRefValue(addr, casFeatCode_residues), i);
+    ll_cas.ll_setByteArrayValue(ll_cas.ll_getRefValue(addr, casFeatCode_residues), i, v);
+  }
+  
+
+
+
+  /** initialize variables to correspond with Cas Type and Features
+	* @generated */
+  public ProteinSequence_Type(JCas jcas, Type casType) {
+    super(jcas, casType);
+    casImpl.getFSClassRegistry().addGeneratorForType((TypeImpl)this.casType, getFSGenerator());
+
+ 
+    casFeat_index = jcas.getRequiredFeatureDE(casType, "index", "uima.cas.Integer", featOkTst);
+    casFeatCode_index  = (null == casFeat_index) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_index).getCode();
+
+ 
+    casFeat_frame = jcas.getRequiredFeatureDE(casType, "frame", "uima.cas.Integer", featOkTst);
+    casFeatCode_frame  = (null == casFeat_frame) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_frame).getCode();
+
+ 
+    casFeat_dnaBegin = jcas.getRequiredFeatureDE(casType, "dnaBegin", "uima.cas.Integer", featOkTst);
+    casFeatCode_dnaBegin  = (null == casFeat_dnaBegin) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_dnaBegin).getCode();
+
+ 
+    casFeat_dnaEnd = jcas.getRequiredFeatureDE(casType, "dnaEnd", "uima.cas.Integer", featOkTst);
+    casFeatCode_dnaEnd  = (null == casFeat_dnaEnd) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_dnaEnd).getCode();
+
+ 
+    casFeat_residues = jcas.getRequiredFeatureDE(casType, "residues", "uima.cas.ByteArray", featOkTst);
+    casFeatCode_residues  = (null == casFeat_residues) ? JCas.INVALID_FEATURE_CODE : ((FeatureImpl)casFeat_residues).getCode();
+
+  }
+}
+
+
+
+    
\ No newline at end of file
@@ -0,0 +1,241 @@
+package bio.uima;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.TOP;
+
+/*
+ * Streams the results of processed CASes to a channel, one row per
+ * alignment pair, through a fixed buffer: rows are encoded straight from the
+ * indexes of the CAS, so neither the rows nor the aligned proteins of a CAS
+ * are collected first, and the results of a CAS are on the channel as soon
+ * as it is written.
+ *
+ * A row holds the pair, its score, the cluster of each of its proteins and
+ * its alignment. The clusters of a pair are the clusters of its two points,
+ * see ClusterAnnotator; pairs rejected by the prefilter are NOISE, and pairs
+ * that were only scored, or CASes that were not clustered, have no cluster.
+ *
+ * TSV has a header line, then a line per pair and an empty line after every
+ * CAS:
+ *
+ *   first	second	score	cluster1	cluster2	cigar	alignment1	alignment2
+ *
+ * where missing values are "." and the alignment columns hold the proteins
+ * with gaps, or unaligned if the pair was rejected by the prefilter.
+ *
+ * BINARY starts with the big-endian long MAGIC and int VERSION; everything
+ * after is a varint: 7 bits per byte, low bits first, the high bit set on
+ * every byte but the last, and signed values zigzag encoded first, so that
+ * -1 is 1 and 1 is 2. For every CAS, it has the number of proteins, every
+ * protein as its length and ASCII residues, the number of pairs and for
+ * every pair first, second, the signed score, cluster1 and cluster2 (0 for
+ * no cluster), the number of CIGAR runs plus one (0 for no alignment) and
+ * every run as (length << 2) | operation, see Cigar. A pair of the sample
+ * data takes about a byte per run.
+ */
+public final class ResultWriter {
+
+	public enum Format {
+		TSV,
+		BINARY
+	}
+
+	public static final long MAGIC = 0x42696f526573756cL;							// "BioResul"
+	public static final int VERSION = 1;
+	public static final int NOT_CLUSTERED = 0;										// Cluster of a pair that was not clustered
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final String TSV_HEADER = "first\tsecond\tscore\tcluster1\tcluster2\tcigar\talignment1\talignment2\n";
+	private static final String MISSING = ".";
+
+	private final WritableByteChannel channel;
+	private final Format format;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/*
+	 * Creates a writer and buffers the header of its format
+	 *
+	 * @param	channel			Channel to write to, closed by close()
+	 * @param	format			Format of the results
+	 */
+	public ResultWriter(WritableByteChannel channel, Format format) {
+		this.channel = channel;
+		this.format = format;
+		if(format == Format.TSV) {
+			buffer.put(TSV_HEADER.getBytes(StandardCharsets.US_ASCII));
+		} else {
+			buffer.putLong(MAGIC);
+			buffer.putInt(VERSION);
+		}
+	}
+
+	public Format getFormat() {
+		return format;
+	}
+
+	/*
+	 * Writes a row per alignment pair of a CAS and flushes them
+	 */
+	public void write(JCas cas) throws IOException {
+		String[] proteins = Utils.getProteins(cas);
+		FSIndex<TOP> pairs = cas.getJFSIndexRepository().getIndex(Utils.ALIGNMENT_INDEX);
+		FSIterator<TOP> clusters = cas.getJFSIndexRepository().getIndex(Utils.CLUSTER_INDEX).iterator();
+		if(format == Format.BINARY) {
+			putVarint(proteins.length);
+			for(String protein : proteins) {
+				putVarint(protein.length());
+				putAscii(protein);
+			}
+			putVarint(pairs.size());
+		}
+		for(FSIterator<TOP> it = pairs.iterator(); it.hasNext(); ) {
+			AlignmentPair pair = (AlignmentPair) it.next();
+			Cigar cigar = getCigar(pair);
+			boolean filtered = pair.getScore() == KmerPrefilter.FILTERED;
+			int cluster1 = NOT_CLUSTERED;
+			int cluster2 = NOT_CLUSTERED;
+			if((cigar != null || filtered) && clusters.hasNext()) {						// both proteins are points
+				cluster1 = ((ClusterAssignment) clusters.next()).getCluster();
+				cluster2 = clusters.hasNext() ? ((ClusterAssignment) clusters.next()).getCluster() : NOT_CLUSTERED;
+			}
+			if(format == Format.TSV) {
+				putTsvRow(pair, filtered, cigar, cluster1, cluster2, proteins);
+			} else {
+				putVarint(pair.getFirst());
+				putVarint(pair.getSecond());
+				putSignedVarint(pair.getScore());
+				putSignedVarint(cluster1);
+				putSignedVarint(cluster2);
+				putVarint((cigar == null) ? 0 : cigar.getRunCount() + 1);
+				for(int iii = 0; cigar != null && iii < cigar.getRunCount(); iii++) {
+					putVarint((cigar.getLength(iii) << 2) | cigar.getOperation(iii));
+				}
+			}
+		}
+		if(format == Format.TSV) put((byte) '\n');
+		flush();
+	}
+
+	/*
+	 * Returns the edit operations of a pair, or null if it was not aligned
+	 */
+	private static Cigar getCigar(AlignmentPair pair) {
+		if(pair.getCigar() != null) return Cigar.parse(pair.getCigar(), pair.getScore(), 0, 0);
+		if(pair.getAlignment1() == null) return null;
+		return Cigar.fromGapped(Utils.toString(pair.getAlignment1()), Utils.toString(pair.getAlignment2()), pair.getScore());
+	}
+
+	private void putTsvRow(AlignmentPair pair, boolean filtered, Cigar cigar, int cluster1, int cluster2, String[] proteins)
+			throws IOException {
+		String protein1 = proteins[pair.getFirst()];
+		String protein2 = proteins[pair.getSecond()];
+		putAscii(Integer.toString(pair.getFirst()));
+		put((byte) '\t');
+		putAscii(Integer.toString(pair.getSecond()));
+		put((byte) '\t');
+		putAscii(filtered ? MISSING : Integer.toString(pair.getScore()));
+		put((byte) '\t');
+		putAscii((cluster1 == NOT_CLUSTERED) ? MISSING : Integer.toString(cluster1));
+		put((byte) '\t');
+		putAscii((cluster2 == NOT_CLUSTERED) ? MISSING : Integer.toString(cluster2));
+		put((byte) '\t');
+		putAscii((cigar == null) ? MISSING : cigar.toString());
+		put((byte) '\t');
+		if(cigar != null) {
+			putAligned(cigar, protein1, true);
+			put((byte) '\t');
+			putAligned(cigar, protein2, false);
+		} else if(filtered) {
+			putAscii(protein1);
+			put((byte) '\t');
+			putAscii(protein2);
+		} else {
+			putAscii(MISSING + "\t" + MISSING);
+		}
+		put((byte) '\n');
+	}
+
+	/*
+	 * Puts one of the gapped proteins of an alignment, rendered run by run
+	 *
+	 * @param	cigar			Alignment
+	 * @param	protein			First or second protein of the alignment, without gaps
+	 * @param	first			Whether the protein is the first one
+	 */
+	private void putAligned(Cigar cigar, String protein, boolean first) throws IOException {
+		int gap = first ? Cigar.INSERTION : Cigar.DELETION;
+		int position = first ? cigar.getStart1() : cigar.getStart2();
+		for(int iii = 0; iii < cigar.getRunCount(); iii++) {
+			boolean gapped = cigar.getOperation(iii) == gap;
+			for(int jjj = cigar.getLength(iii); jjj > 0; jjj--) {
+				put(gapped ? (byte) '-' : (byte) protein.charAt(position++));
+			}
+		}
+	}
+
+	private void put(byte value) throws IOException {
+		if(!buffer.hasRemaining()) drain();
+		buffer.put(value);
+	}
+
+	/*
+	 * Puts an int as an unsigned varint, at most 5 bytes
+	 */
+	private void putVarint(int value) throws IOException {
+		if(buffer.remaining() < 5) drain();
+		while((value & ~0x7f) != 0) {
+			buffer.put((byte) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	private void putSignedVarint(int value) throws IOException {
+		putVarint((value << 1) ^ (value >> 31));
+	}
+
+	private void putAscii(String text) throws IOException {
+		for(int iii = 0; iii < text.length(); ) {
+			if(!buffer.hasRemaining()) drain();
+			int end = Math.min(text.length(), iii + buffer.remaining());
+			for(; iii < end; iii++) {
+				buffer.put((byte) text.charAt(iii));
+			}
+		}
+	}
+
+	/*
+	 * Writes the buffered bytes to the channel
+	 */
+	private void drain() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/*
+	 * Writes everything buffered so far to the channel
+	 */
+	public void flush() throws IOException {
+		drain();
+	}
+
+	/*
+	 * Flushes the writer and closes its channel
+	 */
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
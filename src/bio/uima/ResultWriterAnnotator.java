@@ -0,0 +1,104 @@
+package bio.uima;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Level;
+
+/*
+ * CAS consumer that streams the results of every CAS that passes through it
+ * to an output file with a ResultWriter, so the results of a batch are out
+ * as soon as it is clustered. Does nothing unless an output file is
+ * configured; "-" is stdout.
+ */
+public class ResultWriterAnnotator extends JCasAnnotator_ImplBase {
+
+	public static final String PARAM_OUTPUT_FILE = "OutputFile";
+	public static final String PARAM_OUTPUT_FORMAT = "OutputFormat";
+	public static final String STDOUT = "-";
+	private static final Metrics.Timer STAGE = Metrics.timer("output");
+
+	private ResultWriter writer;															// null when output is off
+	private boolean stdout;																	// Stdout stays open after close
+
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		String path = (String) context.getConfigParameterValue(PARAM_OUTPUT_FILE);
+		if(path == null || path.trim().isEmpty()) return;
+		String format = (String) context.getConfigParameterValue(PARAM_OUTPUT_FORMAT);
+		ResultWriter.Format writerFormat = ResultWriter.Format.TSV;
+		if(format != null) {
+			try {
+				writerFormat = ResultWriter.Format.valueOf(format.trim().toUpperCase());
+			} catch(IllegalArgumentException e) {
+				throw new ResourceInitializationException(e);
+			}
+		}
+		stdout = path.trim().equals(STDOUT);
+		try {
+			FileChannel channel = stdout ? new FileOutputStream(FileDescriptor.out).getChannel()
+					: FileChannel.open(Paths.get(path.trim()), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+							StandardOpenOption.TRUNCATE_EXISTING);
+			writer = new ResultWriter(channel, writerFormat);
+		} catch(IOException e) {
+			throw new ResourceInitializationException(ResourceInitializationException.COULD_NOT_ACCESS_DATA,
+					new Object[] {path}, e);
+		}
+	}
+
+	@Override
+	public void process(JCas cas) throws AnalysisEngineProcessException {
+		long start = STAGE.start();
+		try {
+			if(writer == null) return;
+			writer.write(cas);
+		} catch(IOException e) {
+			throw new AnalysisEngineProcessException(e);
+		} finally {
+			STAGE.stop(start, cas);
+		}
+	}
+
+	@Override
+	public void collectionProcessComplete() throws AnalysisEngineProcessException {
+		try {
+			closeWriter();
+		} catch(IOException e) {
+			throw new AnalysisEngineProcessException(e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		try {
+			closeWriter();
+		} catch(IOException e) {
+			getContext().getLogger().log(Level.WARNING, "Could not write the results", e);
+		}
+		super.destroy();
+	}
+
+	/*
+	 * Flushes the writer, and closes its file unless it is stdout
+	 */
+	private void closeWriter() throws IOException {
+		if(writer == null) return;
+		ResultWriter closing = writer;
+		writer = null;
+		if(stdout) {
+			closing.flush();
+		} else {
+			closing.close();
+		}
+	}
+}
@@ -1,203 +1,317 @@
 package bio.uima;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.io.File;
+import java.io.IOException;
 
+import org.apache.uima.UimaContext;
 import org.apache.uima.analysis_component.JCasAnnotator_ImplBase;
 import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
-import org.apache.uima.cas.CASException;
 import org.apache.uima.jcas.JCas;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.Level;
 
 public class SequenceAlignmentAnnotator extends JCasAnnotator_ImplBase  {
 	
 	private static int GAP_PENALTY = -2;													// Penalty for insertion or deletion
-	private static HashMap<Character, HashMap<Character, Integer>> distances = null;		// BLOSUM62 matrix
+	
+	public static final String PARAM_NUM_THREADS = "NumThreads";
+	public static final String PARAM_ALIGNMENT_KERNEL = "AlignmentKernel";
+	public static final String PARAM_SCORE_ONLY = "ScoreOnly";
+	public static final String PARAM_BAND_WIDTH = "BandWidth";
+	public static final String PARAM_BAND_FALLBACK = "BandFallback";
+	public static final String PARAM_RENDER_ALIGNMENTS = "RenderAlignments";
+	public static final String PARAM_CACHE_DIRECTORY = "CacheDirectory";
+	public static final String PARAM_CACHE_MEMORY_MB = "CacheMemoryMB";
+	public static final String PARAM_PREFILTER_SEED = "PrefilterSeed";
+	public static final String PARAM_PREFILTER_MIN_SHARED = "PrefilterMinShared";
+	public static final String RESOURCE_SUBSTITUTION_MATRIX = "SubstitutionMatrix";
+	private static final Metrics.Timer STAGE = Metrics.timer("alignment");
+	private static final Metrics.Counter PAIRS = Metrics.counter("alignment.pairs");		// Pairs aligned or scored
+	private static final Metrics.Counter CELLS = Metrics.counter("alignment.cells");		// DP cells of those pairs
+	private static final Metrics.Counter FILTERED = Metrics.counter("alignment.filtered");
+	private static final Metrics.Counter CACHE_HITS = Metrics.counter("alignment.cache.hits");
+	private static final Metrics.Counter CACHE_MISSES = Metrics.counter("alignment.cache.misses");
+	
+	private AlignmentEngine engine;															// NW/Hirschberg aligner over BLOSUM62
+	private AllPairsScheduler scheduler;
+	private boolean scoreOnly;																// Skip the alignments, only score pairs
+	private int bandWidth;																	// Half-width of the score-only band, 0 for full DP
+	private boolean bandFallback;															// Rescore without band when it is hit
+	private boolean renderAlignments;														// Store gapped proteins next to the CIGARs
+	private AlignmentCache cache;															// Results of earlier runs, or null
+	private KmerPrefilter prefilter;														// Skips pairs sharing too few words, or null
+	
+	@Override
+	public void initialize(UimaContext context) throws ResourceInitializationException {
+		super.initialize(context);
+		Integer threads = (Integer) context.getConfigParameterValue(PARAM_NUM_THREADS);
+		scheduler = new AllPairsScheduler((threads == null) ? 0 : threads);
+		String kernel = (String) context.getConfigParameterValue(PARAM_ALIGNMENT_KERNEL);
+		AlignmentEngine.Kernel engineKernel = AlignmentEngine.Kernel.SCALAR;
+		if(kernel != null) {
+			try {
+				engineKernel = AlignmentEngine.Kernel.valueOf(kernel.trim().toUpperCase());
+			} catch(IllegalArgumentException e) {
+				throw new ResourceInitializationException(e);
+			}
+		}
+		SubstitutionMatrix matrix = Utils.getResource(context, RESOURCE_SUBSTITUTION_MATRIX,
+				SubstitutionMatrixResource.class).getMatrix();
+		engine = new AlignmentEngine(matrix, GAP_PENALTY, engineKernel, scheduler.getPool());		// long pairs fork onto the idle workers
+		Boolean scoreOnlyValue = (Boolean) context.getConfigParameterValue(PARAM_SCORE_ONLY);
+		scoreOnly = (scoreOnlyValue != null) && scoreOnlyValue;
+		Integer band = (Integer) context.getConfigParameterValue(PARAM_BAND_WIDTH);
+		bandWidth = (band == null) ? 0 : band;
+		Boolean fallback = (Boolean) context.getConfigParameterValue(PARAM_BAND_FALLBACK);
+		bandFallback = (fallback == null) || fallback;
+		Boolean render = (Boolean) context.getConfigParameterValue(PARAM_RENDER_ALIGNMENTS);
+		renderAlignments = (render != null) && render;
+		
+		String seed = (String) context.getConfigParameterValue(PARAM_PREFILTER_SEED);
+		if(seed != null && seed.trim().length() > 0) {
+			Integer minShared = (Integer) context.getConfigParameterValue(PARAM_PREFILTER_MIN_SHARED);
+			try {
+				prefilter = new KmerPrefilter(seed.trim(), engine.getMatrix().size(), (minShared == null) ? 1 : minShared);
+			} catch(IllegalArgumentException e) {
+				throw new ResourceInitializationException(e);
+			}
+		}
+		
+		String cacheDirectory = (String) context.getConfigParameterValue(PARAM_CACHE_DIRECTORY);
+		Integer cacheMemory = (Integer) context.getConfigParameterValue(PARAM_CACHE_MEMORY_MB);
+		long memoryBudget = (cacheMemory == null) ? 0 : (long) cacheMemory << 20;
+		boolean onDisk = (cacheDirectory != null) && cacheDirectory.trim().length() > 0;
+		if(onDisk || memoryBudget > 0) {
+			// unbanded and fallback scores are exact, so they share their results with the alignments
+			int boundingBand = (scoreOnly && bandWidth > 0 && !bandFallback) ? bandWidth : 0;
+			try {
+				cache = new AlignmentCache(AlignmentCache.parameters(engine.getMatrix(), GAP_PENALTY, boundingBand),
+						memoryBudget, onDisk ? new File(cacheDirectory.trim()) : null);
+			} catch(IOException e) {
+				throw new ResourceInitializationException(e);
+			}
+		}
+	}
+	
+	@Override
+	public void destroy() {
+		scheduler.shutdown();
+		if(cache != null) {
+			try {
+				cache.close();
+			} catch(IOException e) {
+				getContext().getLogger().log(Level.WARNING, "Could not close the alignment cache", e);
+			}
+		}
+		super.destroy();
+	}
 	
 	@Override
 	public void process(JCas cas) throws AnalysisEngineProcessException {
+		long start = STAGE.start();
 		try {
-			String[] proteins = cas.getView("proteins").getDocumentText().split(" ");
-			String[] alignment = getAllPairsAlignment(proteins);
-			JCas alignmentCas = cas.createView("alignments");								// create view for alignments
-			alignmentCas.setDocumentText(Utils.combineStringArray(alignment));
-		} catch (CASException e) {
-			e.printStackTrace();
+			if(Utils.hasIndexed(cas, Utils.ALIGNMENT_INDEX)) return;					// resumed after alignment
+			String[] proteins = Utils.getProteins(cas);
+		
+			// a work unit of a scale-out deployment only aligns its own tile
+			int fromPair = 0;
+			int toPair = AllPairsScheduler.pairCount(proteins.length);
+			PairTile tile = Utils.getPairTile(cas);
+			if(tile != null) {
+				fromPair = tile.getFirstPair();
+				toPair = tile.getEndPair();
+			}
+		
+			int[] scores = new int[toPair - fromPair];
+			Cigar[] alignment = null;
+			try {
+				if(scoreOnly) {
+					getAllPairsScores(proteins, fromPair, toPair, scores);
+				} else {
+					alignment = getAllPairsAlignment(proteins, fromPair, toPair, scores);
+				}
+			} catch(CacheException e) {
+				throw new AnalysisEngineProcessException(e.getCause());
+			}
+		
+			// store every pair, in pair order
+			int pairIndex = 0;
+			for(int iii = 0; iii < proteins.length && pairIndex < toPair; iii++) {
+				for(int jjj = iii + 1; jjj < proteins.length && pairIndex < toPair; jjj++, pairIndex++) {
+					if(pairIndex < fromPair) continue;
+					int slot = pairIndex - fromPair;
+					AlignmentPair pair = new AlignmentPair(cas);
+					pair.setFirst(iii);
+					pair.setSecond(jjj);
+					pair.setScore(scores[slot]);
+					if(alignment != null && alignment[slot] != null) {
+						pair.setCigar(alignment[slot].toString());
+						if(renderAlignments) {
+							String[] gapped = alignment[slot].render(proteins[iii], proteins[jjj]);
+							pair.setAlignment1(Utils.toByteArray(cas, gapped[0]));
+							pair.setAlignment2(Utils.toByteArray(cas, gapped[1]));
+						}
+					}
+					pair.addToIndexes();
+				}
+			}
+		} finally {
+			STAGE.stop(start, cas);
 		}
 	}
 
 	/*
-	 * Aligns and returns all pairs of protein sequences which are input.
+	 * Aligns and returns the pairs [fromPair, toPair) of protein sequences
+	 * which are input. Pairs are aligned concurrently, and the alignment of
+	 * pair (iii, jjj) is written to its own slot so the output order does not
+	 * depend on scheduling. Pairs rejected by the prefilter get the FILTERED
+	 * score and no alignment. Alignments are kept as edit operations; the
+	 * gapped proteins are only rendered by the stages that need them.
 	 * 
 	 * @param	proteins		Array of strings
-	 * @return 					Array of strings that contains alignment of all pairs of input String array
+	 * @param	fromPair		Index of the first pair to align
+	 * @param	toPair			Index one past the last pair to align
+	 * @param	scores			Array to store the score of every pair in, from fromPair on
+	 * @return 					Alignment of every pair, from fromPair on
 	 */
-	private String[] getAllPairsAlignment(String[] proteins) {
-		if(distances == null) {	distances = Utils.initSimilarityMap(); }
-		String alignmentString = "";
-		for(int iii = 0; iii < (proteins.length - 1); iii++) {
-			for(int jjj = (iii + 1); jjj < proteins.length; jjj++) {
-				String[] singlePairAlignment = hirschberg(proteins[iii], proteins[jjj]);
-				alignmentString += (singlePairAlignment[0] + " " + singlePairAlignment[1] + " ");
-			}
+	private Cigar[] getAllPairsAlignment(final String[] proteins, final int fromPair, int toPair, final int[] scores) {
+		final Cigar[] alignment = new Cigar[toPair - fromPair];
+		int[] lengths = new int[proteins.length];
+		for(int iii = 0; iii < proteins.length; iii++) {
+			lengths[iii] = proteins[iii].length();
 		}
-		return alignmentString.split(" ");
+		final long[][] digests = digests(proteins);
+		final boolean[] candidates = candidates(proteins, fromPair, toPair);
+		scheduler.forEachPair(lengths, fromPair, toPair, new AllPairsScheduler.PairTask() {
+			public void run(int first, int second, int pairIndex) {
+				int slot = pairIndex - fromPair;
+				if(candidates != null && !candidates[slot]) {
+					scores[slot] = KmerPrefilter.FILTERED;
+					FILTERED.increment();
+					return;
+				}
+				AlignmentCache.Key key = null;
+				if(cache != null) {
+					key = cache.key(digests[first], digests[second]);
+					AlignmentCache.Result cached = getCached(key);
+					if(cached != null && cached.hasAlignment()) {
+						CACHE_HITS.increment();
+						alignment[slot] = cached.cigar();
+						scores[slot] = cached.getScore();
+						return;
+					}
+					CACHE_MISSES.increment();										// absent or score-only, realigned below
+				}
+				PAIRS.increment();
+				CELLS.add((long) proteins[first].length() * proteins[second].length());
+				alignment[slot] = engine.align(proteins[first], proteins[second]);
+				scores[slot] = alignment[slot].getScore();
+				if(cache != null) {
+					putCached(key, AlignmentCache.Result.aligned(alignment[slot]));
+				}
+			}
+		});
+		return alignment;
 	}
 
 	/*
-	 * Aligns two protein sequences and returns the optimal alignment as an array of Strings
+	 * Scores the pairs [fromPair, toPair) of protein sequences which are
+	 * input without aligning them, within a diagonal band if a band width is
+	 * configured. Pairs rejected by the prefilter get the FILTERED score.
 	 * 
-	 * @param 	A				String to align
-	 * @param	B				String to align
-	 * @param	distances		HashMap that stores BLOSUM62 matrix
-	 * @return					Array of two strings that are the optimal alignment of A and B
+	 * @param	proteins		Array of strings
+	 * @param	fromPair		Index of the first pair to score
+	 * @param	toPair			Index one past the last pair to score
+	 * @param	scores			Array to store the score of every pair in, from fromPair on
 	 */
-	private String[] getAlignment(String A, String B) {
-		if(distances == null) {	distances = Utils.initSimilarityMap(); }
-		int[][] scores = computeNWScore(A, B);
-		
-		// Compute alignment
-		String alignmentA = "";
-		String alignmentB = "";
-		int iii = A.length();
-		int jjj = B.length();
-		while (iii > 0 || jjj > 0)
-		{
-			if ((iii > 0 && jjj > 0) && (scores[iii][jjj] == scores[iii - 1][jjj - 1] + distances.get(A.charAt(iii - 1)).get(B.charAt(jjj - 1)))) {
-				alignmentA = Character.toString(A.charAt(iii - 1)) + alignmentA;
-				alignmentB = Character.toString(B.charAt(jjj - 1)) + alignmentB;
-				iii--;
-				jjj--;
-			} else if ((iii > 0) && (scores[iii][jjj] == scores[iii-1][jjj] + GAP_PENALTY)) {
-				alignmentA = Character.toString(A.charAt(iii - 1)) + alignmentA;
-				alignmentB = Character.toString('-') + alignmentB;
-				iii--;
-			} else if((jjj > 0) && (scores[iii][jjj] == scores[iii][jjj - 1] + GAP_PENALTY)) {
-				alignmentA = Character.toString('-') + alignmentA;
-				alignmentB = Character.toString(B.charAt(jjj - 1)) + alignmentB;
-				jjj--;
-			}
+	private void getAllPairsScores(String[] proteins, final int fromPair, int toPair, final int[] scores) {
+		final byte[][] encoded = new byte[proteins.length][];
+		int[] lengths = new int[proteins.length];
+		for(int iii = 0; iii < proteins.length; iii++) {
+			encoded[iii] = engine.getMatrix().encode(proteins[iii]);
+			lengths[iii] = encoded[iii].length;
 		}
-		String[] alignment = {alignmentA, alignmentB};
-		return alignment;
+		final long[][] digests = digests(proteins);
+		final boolean[] candidates = candidates(proteins, fromPair, toPair);
+		scheduler.forEachPair(lengths, fromPair, toPair, new AllPairsScheduler.PairTask() {
+			public void run(int first, int second, int pairIndex) {
+				if(candidates != null && !candidates[pairIndex - fromPair]) {
+					scores[pairIndex - fromPair] = KmerPrefilter.FILTERED;
+					FILTERED.increment();
+					return;
+				}
+				AlignmentCache.Key key = null;
+				if(cache != null) {
+					key = cache.key(digests[first], digests[second]);
+					AlignmentCache.Result cached = getCached(key);
+					if(cached != null) {
+						CACHE_HITS.increment();
+						scores[pairIndex - fromPair] = cached.getScore();
+						return;
+					}
+					CACHE_MISSES.increment();
+				}
+				PAIRS.increment();
+				CELLS.add((long) encoded[first].length * encoded[second].length);
+				if(bandWidth > 0) {
+					scores[pairIndex - fromPair] = engine.bandedScore(encoded[first], encoded[second], bandWidth, bandFallback);
+				} else {
+					scores[pairIndex - fromPair] = engine.score(encoded[first], encoded[second]);
+				}
+				if(cache != null) putCached(key, AlignmentCache.Result.scoreOnly(scores[pairIndex - fromPair]));
+			}
+		});
 	}
 
 	/*
-	 * Computes and returns the Needleman-Wunsch score matrix which contains
-	 * the optimal alignment scores for the two input sequences
-	 * 
-	 * @param	sequence1			Sequence to compute alignment scores
-	 * @param	sequence2			Sequence to compute alignment scores
-	 * @return						calculated alignment score matrix		
+	 * Returns whether each pair of [fromPair, toPair) passes the prefilter,
+	 * or null if there is no prefilter
 	 */
-	private int[][] computeNWScore(String sequence1, String sequence2) {
-		if(distances == null) { distances = Utils.initSimilarityMap(); }
-		int[][] scores = Utils.initDistanceMatrix(sequence1.length(), sequence2.length(), GAP_PENALTY);
-		for(int iii = 1; iii <= sequence1.length(); iii++) {
-			HashMap<Character, Integer> tempMap = distances.get(sequence1.charAt(iii - 1));
-			for(int jjj = 1; jjj <= sequence2.length(); jjj++) {
-				int value = tempMap.get(sequence2.charAt(jjj - 1));
-				int match = scores[iii - 1][jjj - 1] + value;
-				int delete = scores[iii - 1][jjj] + GAP_PENALTY;
-				int insert = scores[iii][jjj - 1] + GAP_PENALTY;
-				scores[iii][jjj] = Utils.max(match, delete, insert);
-			}
+	private boolean[] candidates(String[] proteins, int fromPair, int toPair) {
+		if(prefilter == null) return null;
+		byte[][] encoded = new byte[proteins.length][];
+		for(int iii = 0; iii < proteins.length; iii++) {
+			encoded[iii] = engine.getMatrix().encode(proteins[iii]);
 		}
-		return scores;
+		return prefilter.candidates(encoded, fromPair, toPair, scheduler);
 	}
-	
+
 	/*
-	 * Computes and returns the last row of the Needleman-Wunsch score matrix
-	 * 
-	 * @param	sequence1			Sequence to compute alignment scores
-	 * @param	sequence2			Sequence to compute alignment scores
-	 * @return						array representing the last row of score matrix
+	 * Returns the content hash of every protein, or null if there is no cache
 	 */
-	private int[] computeLastNWScore(String sequence1, String sequence2) {
-		int[][] scores = computeNWScore(sequence1, sequence2);
-		int[] lastLine = new int[sequence2.length() + 1];
-		for(int jjj = 0; jjj <= sequence2.length(); jjj++) {
-			lastLine[jjj] = scores[sequence1.length()][jjj];
+	private long[][] digests(String[] proteins) {
+		if(cache == null) return null;
+		long[][] digests = new long[proteins.length][];
+		for(int iii = 0; iii < proteins.length; iii++) {
+			digests[iii] = AlignmentCache.digest(proteins[iii]);
 		}
-		return lastLine;
+		return digests;
 	}
-	
-	/*
-	 * Computes and returns the optimal alignment of two sequences using
-	 * the Hirschberg's algorithm.
-	 * 
-	 * @param	sequence1			Sequence to compute alignment scores
-	 * @param	sequence2			Sequence to compute alignment scores
-	 * @return						Array of strings that holds the optimal alignment of input strings
-	 */
-	private String[] hirschberg(String sequence1, String sequence2) {
-		if(distances == null) { distances = Utils.initSimilarityMap(); }
-		String Z = "";
-		String W = "";
-		if(sequence1.length() == 0 || sequence2.length() == 0) {
-			if(sequence1.length() == 0) {
-				for(int jjj = 0; jjj < sequence2.length(); jjj++) {
-					Z = Z + "-";
-					W = W + Character.toString(sequence2.charAt(jjj));
-				}
-			} else {
-				for(int iii = 0; iii < sequence1.length(); iii++) {
-					Z = Z + Character.toString(sequence1.charAt(iii));
-					W = W + "-";
-				}
-			}
-		} else if (sequence1.length() == 1 || sequence2.length() == 1) {
-			String[] alignments = getAlignment(sequence1, sequence2);
-			Z = Z + alignments[0];
-			W = W + alignments[1];
-		} else {
-			int midA = (int) (sequence1.length() / 2);
-			int[] scoreL = computeLastNWScore(sequence1.substring(0, midA), sequence2);
-			int[] scoreR = computeLastNWScore(reverse(sequence1.substring(midA)), reverse(sequence2));
-			int midB = partition(scoreL, scoreR);
-			String[] leftAlignments = hirschberg(sequence1.substring(0, midA), sequence2.substring(0, midB));
-			Z = Z + leftAlignments[0];
-			W = W + leftAlignments[1];	
-			String[] rightAlignments = hirschberg(sequence1.substring(midA), sequence2.substring(midB));
-			Z = Z + rightAlignments[0];
-			W = W + rightAlignments[1];
+
+	private AlignmentCache.Result getCached(AlignmentCache.Key key) {
+		try {
+			return cache.get(key);
+		} catch(IOException e) {
+			throw new CacheException(e);
 		}
-		String[] result = {Z, W};
-		return result;
 	}
-	
-	/*
-	 * Returns the index of the two input score arrays that yield the maximum
-	 * sum of the elements at that index.
-	 * In other words, returns argmax iii (scoreL[iii] + reverse(scoreR[iii])
-	 * 
-	 * @param	scoreL			Score matrix for left side of partition
-	 * @param	scoreR			Score matrix for right side of partition
-	 * @return					The index that maximizes the sum of the two array elements
-	 */
-	private static int partition(int[] scoreL, int[] scoreR) {
-		int maxSum = Integer.MIN_VALUE;
-		int index = 0;
-		for(int iii = 0; iii < scoreL.length; iii++) {
-			int sum = scoreL[iii] + scoreR[scoreL.length - iii - 1];
-			if(sum >= maxSum) {
-				maxSum = sum;
-				index = iii;
-			}
+
+	private void putCached(AlignmentCache.Key key, AlignmentCache.Result result) {
+		try {
+			cache.put(key, result);
+		} catch(IOException e) {
+			throw new CacheException(e);
 		}
-		return index;
 	}
-	
+
 	/*
-	 * Returns the reversed string
-	 * 
-	 * @param	inputString			String to reverse
-	 * @return						inputString reversed
+	 * Carries an I/O error of the cache out of the pair tasks
 	 */
-	private static String reverse(String inputString) {
-		if(inputString == null) return "";
-		if(inputString.length() == 1) return inputString;
-		return new StringBuilder(inputString).reverse().toString();
+	private static final class CacheException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		CacheException(IOException cause) {
+			super(cause);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,259 @@
+package bio.uima;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/*
+ * Off-heap store of packed sequences, in memory-mapped segment files.
+ *
+ * Sequences of only A, C, G and T (either case) are packed at 2 bits per
+ * base (A=0, C=1, G=2, T=3); any other sequence, e.g. DNA with N runs or a
+ * protein, is packed at 5 bits per letter in the alphabet "A".."Z", '*' and
+ * '-', upper case, other characters stored as 'X'. A sequence is addressed
+ * by the handle append() returns and its length: the handle is the byte
+ * offset of the packed sequence shifted left once, with the low bit set
+ * for the 5-bit alphabet. Sequences are read in place, letter by letter or
+ * through a CharSequence view, so no stage needs a copy.
+ *
+ * The store is append-only and scratch: segments are created in a
+ * directory as they fill up and deleted when the store is released by its
+ * last user. There is one store per JVM, so a handle found in a CAS
+ * annotation can be resolved by any stage of the process through shared().
+ */
+public final class SequenceStore {
+
+	private static final int SEGMENT_BITS = 28;
+	private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;					// Bytes per segment file
+	private static final int SEGMENT_MASK = (int) (SEGMENT_SIZE - 1);
+	private static final int CHUNK_SIZE = 1 << 16;									// Bytes packed at a time
+	private static final String RESIDUES = "ABCDEFGHIJKLMNOPQRSTUVWXYZ*-";
+	private static final byte[] NUCLEOTIDES = {'A', 'C', 'G', 'T'};
+	private static final byte[] NUCLEOTIDE_CODES = new byte[256];					// ASCII -> 2-bit code, -1 if none
+	private static final byte[] RESIDUE_CODES = new byte[256];						// ASCII -> 5-bit code
+	private static final int UNKNOWN_RESIDUE = RESIDUES.indexOf('X');
+
+	static {
+		Arrays.fill(NUCLEOTIDE_CODES, (byte) -1);
+		for(int iii = 0; iii < NUCLEOTIDES.length; iii++) {
+			NUCLEOTIDE_CODES[NUCLEOTIDES[iii]] = (byte) iii;
+			NUCLEOTIDE_CODES[Character.toLowerCase(NUCLEOTIDES[iii])] = (byte) iii;
+		}
+		Arrays.fill(RESIDUE_CODES, (byte) UNKNOWN_RESIDUE);
+		for(int iii = 0; iii < RESIDUES.length(); iii++) {
+			RESIDUE_CODES[RESIDUES.charAt(iii)] = (byte) iii;
+			RESIDUE_CODES[Character.toLowerCase(RESIDUES.charAt(iii))] = (byte) iii;
+		}
+	}
+
+	private static SequenceStore shared = null;									// Open store of the JVM, or null
+
+	private final File directory;
+	private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+	private File[] segmentFiles = new File[0];
+	private long size = 0;															// Bytes appended so far
+	private int references = 0;
+
+	private SequenceStore(File directory) {
+		this.directory = directory;
+	}
+
+	/*
+	 * Opens the store of the JVM in a directory, or shares it if it is
+	 * already open there. Every open must be matched by a release().
+	 */
+	public static SequenceStore open(File directory) throws IOException {
+		File canonical = directory.getCanonicalFile();
+		synchronized(SequenceStore.class) {
+			if(shared == null) {
+				if(!canonical.isDirectory() && !canonical.mkdirs()) {
+					throw new IOException("Could not create sequence store directory " + canonical);
+				}
+				shared = new SequenceStore(canonical);
+			} else if(!shared.directory.equals(canonical)) {
+				throw new IOException("Sequence store is already open in " + shared.directory + ", not " + canonical);
+			}
+			shared.references++;
+			return shared;
+		}
+	}
+
+	/*
+	 * Returns the open store of the JVM, or null if there is none
+	 */
+	public static synchronized SequenceStore shared() {
+		return shared;
+	}
+
+	/*
+	 * Releases the store, deleting its segments when its last user is done.
+	 * The mappings themselves go away once they are garbage collected.
+	 */
+	public void release() {
+		synchronized(SequenceStore.class) {
+			if(--references > 0) return;
+			shared = null;
+		}
+		synchronized(this) {
+			segments = new MappedByteBuffer[0];
+			for(File file : segmentFiles) {
+				file.delete();
+			}
+			segmentFiles = new File[0];
+		}
+	}
+
+	/*
+	 * Returns the number of bytes the packed sequences take
+	 */
+	public synchronized long size() {
+		return size;
+	}
+
+	/*
+	 * Packs ASCII sequence[0, length) into the store
+	 *
+	 * @param	sequence		Sequence, one ASCII letter per byte
+	 * @param	length			Number of letters
+	 * @return					Handle of the packed sequence
+	 */
+	public synchronized long append(byte[] sequence, int length) throws IOException {
+		boolean nucleotides = true;
+		for(int iii = 0; iii < length && nucleotides; iii++) {
+			nucleotides = NUCLEOTIDE_CODES[sequence[iii] & 0xff] >= 0;
+		}
+		long start = size;
+		long bytes = nucleotides ? ((long) length + 3) / 4 : ((long) length * 5 + 7) / 8 + 1;	// 5-bit reads look one byte ahead
+		reserve(start + bytes);
+		byte[] packed = new byte[CHUNK_SIZE];
+		long position = start;
+		if(nucleotides) {
+			// 4 bases per byte, first base in the high bits
+			for(int iii = 0; iii < length; iii += 4 * CHUNK_SIZE) {
+				int end = Math.min(length, iii + 4 * CHUNK_SIZE);
+				Arrays.fill(packed, (byte) 0);
+				for(int jjj = iii; jjj < end; jjj++) {
+					packed[(jjj - iii) >> 2] |= NUCLEOTIDE_CODES[sequence[jjj] & 0xff] << (6 - 2 * (jjj & 3));
+				}
+				position = write(position, packed, ((end - iii) + 3) / 4);
+			}
+		} else {
+			// 8 letters per 5 bytes, as a big-endian bit stream
+			for(int iii = 0; iii < length; iii += 8 * (CHUNK_SIZE / 5)) {
+				int end = Math.min(length, iii + 8 * (CHUNK_SIZE / 5));
+				Arrays.fill(packed, (byte) 0);
+				for(int jjj = iii; jjj < end; jjj++) {
+					int bit = (jjj - iii) * 5;
+					int window = RESIDUE_CODES[sequence[jjj] & 0xff] << (11 - (bit & 7));
+					packed[bit >> 3] |= window >>> 8;
+					packed[(bit >> 3) + 1] |= window;
+				}
+				position = write(position, packed, ((end - iii) * 5 + 7) / 8);
+			}
+		}
+		size = start + bytes;
+		return (start << 1) | (nucleotides ? 0 : 1);
+	}
+
+	/*
+	 * Writes packed[0, count) at a position of the store and returns the
+	 * position after it
+	 */
+	private long write(long position, byte[] packed, int count) {
+		for(int iii = 0; iii < count; iii++, position++) {
+			segments[(int) (position >>> SEGMENT_BITS)].put((int) position & SEGMENT_MASK, packed[iii]);
+		}
+		return position;
+	}
+
+	/*
+	 * Maps segments until the store holds a number of bytes
+	 */
+	private void reserve(long bytes) throws IOException {
+		int count = (int) ((bytes + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+		if(count <= segments.length) return;
+		MappedByteBuffer[] grown = Arrays.copyOf(segments, count);
+		File[] grownFiles = Arrays.copyOf(segmentFiles, count);
+		for(int iii = segments.length; iii < count; iii++) {
+			File file = File.createTempFile("sequences", ".seg", directory);
+			file.deleteOnExit();
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.setLength(SEGMENT_SIZE);
+				grown[iii] = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+			} finally {
+				raf.close();
+			}
+			grownFiles[iii] = file;
+		}
+		segmentFiles = grownFiles;
+		segments = grown;
+	}
+
+	/*
+	 * Returns the ASCII letter at an index of a packed sequence
+	 */
+	public char charAt(long handle, int index) {
+		long start = handle >>> 1;
+		if((handle & 1) == 0) {
+			return (char) NUCLEOTIDES[(byteAt(start + (index >> 2)) >> (6 - 2 * (index & 3))) & 3];
+		}
+		long bit = (long) index * 5;
+		int window = (byteAt(start + (bit >> 3)) << 8) | byteAt(start + (bit >> 3) + 1);
+		return RESIDUES.charAt((window >>> (11 - (int) (bit & 7))) & 31);
+	}
+
+	private int byteAt(long position) {
+		return segments[(int) (position >>> SEGMENT_BITS)].get((int) position & SEGMENT_MASK) & 0xff;
+	}
+
+	/*
+	 * Returns a view of a packed sequence, read in place
+	 */
+	public CharSequence sequence(long handle, int length) {
+		return new Sequence(handle, 0, length);
+	}
+
+	/*
+	 * Read-only view of letters [offset, offset + length) of a packed sequence
+	 */
+	private final class Sequence implements CharSequence {
+		private final long handle;
+		private final int offset;
+		private final int length;
+
+		Sequence(long handle, int offset, int length) {
+			this.handle = handle;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public int length() {
+			return length;
+		}
+
+		public char charAt(int index) {
+			if(index < 0 || index >= length) throw new IndexOutOfBoundsException("Index " + index + ", length " + length);
+			return SequenceStore.this.charAt(handle, offset + index);
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			if(start < 0 || end > length || start > end) {
+				throw new IndexOutOfBoundsException("Range [" + start + ", " + end + "), length " + length);
+			}
+			return new Sequence(handle, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder(length);
+			for(int iii = 0; iii < length; iii++) {
+				text.append(SequenceStore.this.charAt(handle, offset + iii));
+			}
+			return text.toString();
+		}
+	}
+}
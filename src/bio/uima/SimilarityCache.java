@@ -0,0 +1,245 @@
+package bio.uima;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/*
+ * Symmetric matrix of pairwise similarities, computed once and kept in a
+ * packed triangle of ints.
+ *
+ * Row iii of the triangle holds the similarities of point iii to points
+ * 0..iii-1 at (iii * (iii - 1) / 2 + jjj), so rows are contiguous and a point
+ * can be appended without moving the existing rows. Self similarities are
+ * kept on their own diagonal.
+ *
+ * A removed point keeps its index as a tombstone: all of its similarities
+ * are set to REMOVED, so it is nobody's neighbor, itself included.
+ */
+public class SimilarityCache {
+
+	public static final int REMOVED = Integer.MIN_VALUE;							// Similarity of a removed point to anything
+	private static final int IO_BUFFER_INTS = 1 << 16;
+
+	/*
+	 * Similarity of two points of the data set
+	 */
+	public interface Measure {
+		int similarity(int point1, int point2);
+	}
+
+	private int size;
+	private int[] triangle;														// Capacity may exceed the cells in use
+	private int[] diagonal;
+	private boolean[] removed;
+	private int removedCount = 0;
+
+	private SimilarityCache(int size) {
+		this.size = size;
+		this.triangle = new int[cells(size)];
+		this.diagonal = new int[size];
+		this.removed = new boolean[size];
+	}
+
+	private static int cells(int size) {
+		long cells = (long) size * (size - 1) / 2;
+		if(cells > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many points for a similarity cache: " + size);
+		}
+		return (int) cells;
+	}
+
+	/*
+	 * Computes the similarity of all pairs of points, in parallel
+	 *
+	 * @param	lengths			Length of every point, used to balance the work
+	 * @param	measure			Similarity of two points, called concurrently
+	 * @param	scheduler		Scheduler to run the pairs on
+	 * @return					Cache holding the similarities of all pairs
+	 */
+	public static SimilarityCache compute(int[] lengths, final Measure measure, AllPairsScheduler scheduler) {
+		final SimilarityCache cache = new SimilarityCache(lengths.length);
+		for(int iii = 0; iii < lengths.length; iii++) {
+			cache.diagonal[iii] = measure.similarity(iii, iii);
+		}
+		scheduler.forEachPair(lengths, new AllPairsScheduler.PairTask() {
+			public void run(int first, int second, int pairIndex) {
+				cache.triangle[index(second, first)] = measure.similarity(first, second);
+			}
+		});
+		return cache;
+	}
+
+	private static int index(int larger, int smaller) {
+		return (int) ((long) larger * (larger - 1) / 2) + smaller;
+	}
+
+	/*
+	 * Returns the number of points
+	 */
+	public int size() {
+		return size;
+	}
+
+	/*
+	 * Returns the number of points that were removed
+	 */
+	public int removedCount() {
+		return removedCount;
+	}
+
+	public boolean isRemoved(int point) {
+		return removed[point];
+	}
+
+	/*
+	 * Appends a point and computes its similarity to every point that is
+	 * not removed, in parallel
+	 *
+	 * @param	measure			Similarity of two points, called with the new point first
+	 * @param	scheduler		Scheduler to run the row on
+	 * @return					Index of the new point
+	 */
+	public int append(final Measure measure, AllPairsScheduler scheduler) {
+		final int point = size;
+		int needed = cells(point + 1);
+		if(needed > triangle.length) {
+			long grown = Math.max((long) needed, (long) triangle.length * 3 / 2);
+			triangle = Arrays.copyOf(triangle, (int) Math.min(grown, Integer.MAX_VALUE - 8));
+		}
+		if(point == diagonal.length) {
+			diagonal = Arrays.copyOf(diagonal, Math.max(16, point * 3 / 2));
+			removed = Arrays.copyOf(removed, diagonal.length);
+		}
+		final int rowStart = index(point, 0);
+		scheduler.forEachPoint(point, new AllPairsScheduler.PointTask() {
+			public void run(int other) {
+				triangle[rowStart + other] = removed[other] ? REMOVED : measure.similarity(point, other);
+			}
+		});
+		diagonal[point] = measure.similarity(point, point);
+		removed[point] = false;
+		size = point + 1;
+		return point;
+	}
+
+	/*
+	 * Removes a point, leaving a tombstone at its index
+	 */
+	public void remove(int point) {
+		if(removed[point]) return;
+		int rowStart = index(point, 0);
+		Arrays.fill(triangle, rowStart, rowStart + point, REMOVED);
+		for(int iii = point + 1; iii < size; iii++) {
+			triangle[index(iii, point)] = REMOVED;
+		}
+		diagonal[point] = REMOVED;
+		removed[point] = true;
+		removedCount++;
+	}
+
+	/*
+	 * Returns the similarity of two points
+	 */
+	public int get(int point1, int point2) {
+		if(point1 == point2) return diagonal[point1];
+		return (point1 > point2) ? triangle[index(point1, point2)] : triangle[index(point2, point1)];
+	}
+
+	/*
+	 * Finds the points whose similarity to a point is at least epsilon,
+	 * the point itself included if it qualifies.
+	 *
+	 * @param	point			Point to find the neighbors of
+	 * @param	epsilon			Minimum similarity of a neighbor
+	 * @param	neighbors		Array of at least size() elements to store the neighbors in, by increasing index
+	 * @return					Number of neighbors
+	 */
+	public int neighbors(int point, int epsilon, int[] neighbors) {
+		int count = 0;
+		int rowStart = index(point, 0);
+		for(int jjj = 0; jjj < point; jjj++) {
+			if(triangle[rowStart + jjj] >= epsilon) neighbors[count++] = jjj;
+		}
+		if(diagonal[point] >= epsilon) neighbors[count++] = point;
+		for(int iii = point + 1; iii < size; iii++) {
+			if(triangle[index(iii, point)] >= epsilon) neighbors[count++] = iii;
+		}
+		return count;
+	}
+
+	/*
+	 * Returns the number of points whose similarity to a point is at least
+	 * epsilon, the point itself included if it qualifies.
+	 */
+	public int countNeighbors(int point, int epsilon) {
+		int count = 0;
+		int rowStart = index(point, 0);
+		for(int jjj = 0; jjj < point; jjj++) {
+			if(triangle[rowStart + jjj] >= epsilon) count++;
+		}
+		if(diagonal[point] >= epsilon) count++;
+		for(int iii = point + 1; iii < size; iii++) {
+			if(triangle[index(iii, point)] >= epsilon) count++;
+		}
+		return count;
+	}
+
+	/*
+	 * Writes the cache, tombstones included, to a stream
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(size);
+		out.writeInt(removedCount);
+		for(int iii = 0; iii < size; iii++) {
+			out.writeBoolean(removed[iii]);
+		}
+		writeInts(out, diagonal, size);
+		writeInts(out, triangle, cells(size));
+	}
+
+	/*
+	 * Reads a cache written by write()
+	 */
+	public static SimilarityCache read(DataInputStream in) throws IOException {
+		SimilarityCache cache = new SimilarityCache(in.readInt());
+		cache.removedCount = in.readInt();
+		for(int iii = 0; iii < cache.size; iii++) {
+			cache.removed[iii] = in.readBoolean();
+		}
+		readInts(in, cache.diagonal, cache.size);
+		readInts(in, cache.triangle, cache.triangle.length);
+		return cache;
+	}
+
+	/*
+	 * Writes the first count ints of an array, a buffer at a time
+	 */
+	static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate(4 * IO_BUFFER_INTS);
+		IntBuffer ints = bytes.asIntBuffer();
+		for(int start = 0; start < count; start += IO_BUFFER_INTS) {
+			int length = Math.min(IO_BUFFER_INTS, count - start);
+			ints.clear();
+			ints.put(values, start, length);
+			out.write(bytes.array(), 0, 4 * length);
+		}
+	}
+
+	/*
+	 * Reads count ints written by writeInts() into the start of an array
+	 */
+	static void readInts(DataInputStream in, int[] values, int count) throws IOException {
+		ByteBuffer bytes = ByteBuffer.allocate(4 * IO_BUFFER_INTS);
+		IntBuffer ints = bytes.asIntBuffer();
+		for(int start = 0; start < count; start += IO_BUFFER_INTS) {
+			int length = Math.min(IO_BUFFER_INTS, count - start);
+			in.readFully(bytes.array(), 0, 4 * length);
+			ints.clear();
+			ints.get(values, start, length);
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package bio.uima;
+
+/*
+ * Striped (Farrar-style) Needleman-Wunsch score pass.
+ *
+ * The first sequence is laid out as a striped query profile: with L lanes
+ * and segLen = ceil(n / L) segments, residue (lane * segLen + segment) sits
+ * in slot (segment * L + lane). The cells of one DP column then depend on
+ * the previous column only through whole segments, so the match/delete part
+ * of a column is a single flat loop over contiguous arrays that the JIT can
+ * turn into vector instructions. The vertical (insert) dependency is resolved
+ * afterwards by a segment-by-segment pass over the lanes plus Farrar's lazy-F
+ * loop, which stops as soon as a segment is no longer improved.
+ *
+ * Columns are kept in short lanes when the score range of the two sequences
+ * provably fits in a short, and in int lanes otherwise.
+ */
+final class StripedKernel {
+
+	private static final int INT_LANES = 8;
+	private static final int SHORT_LANES = 16;
+	private static final int NEGATIVE_INFINITY = Integer.MIN_VALUE / 2;
+	private static final int SHORT_LIMIT = Short.MAX_VALUE - 1024;					// Headroom for padding lanes
+
+	private final SubstitutionMatrix matrix;
+	private final int gapPenalty;
+	private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return new Workspace();
+		}
+	};
+
+	StripedKernel(SubstitutionMatrix matrix, int gapPenalty) {
+		this.matrix = matrix;
+		this.gapPenalty = gapPenalty;
+	}
+
+	/*
+	 * Same contract as AlignmentEngine.computeLastNWScore: fills row with the
+	 * last row of the score matrix of sequence1[start1, end1) and
+	 * sequence2[start2, end2), both read back to front if reverse is set.
+	 */
+	void computeLastNWScore(byte[] sequence1, int start1, int end1, byte[] sequence2, int start2, int end2,
+			boolean reverse, int[] row) {
+		int length1 = end1 - start1;
+		int length2 = end2 - start2;
+		if(length1 == 0) {
+			for(int jjj = 0; jjj <= length2; jjj++) row[jjj] = jjj * gapPenalty;
+			return;
+		}
+		if(fitsInShort(length1, length2)) {
+			shortPass(sequence1, start1, end1, sequence2, start2, end2, reverse, row);
+		} else {
+			intPass(sequence1, start1, end1, sequence2, start2, end2, reverse, row);
+		}
+	}
+
+	/*
+	 * Every cell of the score matrix lies between the all-gap path and a path
+	 * of best matches, so both bounds tell whether a short can hold the scores.
+	 */
+	boolean fitsInShort(int length1, int length2) {
+		long cells = (long) length1 + length2 + 2 * SHORT_LANES;
+		long worstStep = Math.max(Math.abs((long) gapPenalty), Math.abs((long) matrix.minScore()));
+		long bestStep = Math.max(Math.abs((long) matrix.maxScore()), worstStep);
+		return cells * worstStep < SHORT_LIMIT && cells * bestStep < SHORT_LIMIT;
+	}
+
+	private void intPass(byte[] sequence1, int start1, int end1, byte[] sequence2, int start2, int end2,
+			boolean reverse, int[] row) {
+		final int lanes = INT_LANES;
+		int length1 = end1 - start1;
+		int length2 = end2 - start2;
+		int segLen = (length1 + lanes - 1) / lanes;
+		int cells = segLen * lanes;
+		Workspace workspace = workspaces.get();
+		int[] profile = workspace.intProfile(matrix.size() * cells);
+		int[] H = workspace.intColumn(0, cells);
+		int[] next = workspace.intColumn(1, cells);
+		int[] F = workspace.lanes(lanes);
+
+		for(int residue = 0; residue < matrix.size(); residue++) {
+			int base = residue * cells;
+			for(int segment = 0; segment < segLen; segment++) {
+				for(int lane = 0; lane < lanes; lane++) {
+					int index = lane * segLen + segment;
+					int value = 0;
+					if(index < length1) {
+						byte code = reverse ? sequence1[end1 - 1 - index] : sequence1[start1 + index];
+						value = matrix.score((byte) residue, code);
+					}
+					profile[base + segment * lanes + lane] = value;
+				}
+			}
+		}
+		for(int segment = 0; segment < segLen; segment++) {
+			for(int lane = 0; lane < lanes; lane++) {
+				H[segment * lanes + lane] = (lane * segLen + segment + 1) * gapPenalty;
+			}
+		}
+		int lastSlot = ((length1 - 1) % segLen) * lanes + (length1 - 1) / segLen;
+		row[0] = length1 * gapPenalty;
+
+		for(int jjj = 1; jjj <= length2; jjj++) {
+			byte code = reverse ? sequence2[end2 - jjj] : sequence2[start2 + jjj - 1];
+			int base = code * cells;
+
+			// match and delete moves, the diagonal of segment 0 comes from the previous lane
+			next[0] = Math.max((jjj - 1) * gapPenalty + profile[base], H[0] + gapPenalty);
+			for(int lane = 1; lane < lanes; lane++) {
+				int diagonal = H[(segLen - 1) * lanes + lane - 1];
+				next[lane] = Math.max(diagonal + profile[base + lane], H[lane] + gapPenalty);
+			}
+			for(int slot = lanes; slot < cells; slot++) {
+				next[slot] = Math.max(H[slot - lanes] + profile[base + slot], H[slot] + gapPenalty);
+			}
+
+			// insert moves, first within every lane
+			F[0] = (jjj + 1) * gapPenalty;
+			for(int lane = 1; lane < lanes; lane++) F[lane] = NEGATIVE_INFINITY;
+			for(int slot = 0; slot < cells; slot += lanes) {
+				for(int lane = 0; lane < lanes; lane++) {
+					int h = Math.max(next[slot + lane], F[lane]);
+					next[slot + lane] = h;
+					F[lane] = h + gapPenalty;
+				}
+			}
+
+			// then lazily across lanes until nothing improves
+			lazyF:
+			for(int pass = 1; pass < lanes; pass++) {
+				for(int lane = lanes - 1; lane > 0; lane--) F[lane] = F[lane - 1];
+				F[0] = NEGATIVE_INFINITY;
+				for(int slot = 0; slot < cells; slot += lanes) {
+					boolean improved = false;
+					for(int lane = 0; lane < lanes; lane++) {
+						if(F[lane] > next[slot + lane]) {
+							next[slot + lane] = F[lane];
+							improved = true;
+						}
+						F[lane] += gapPenalty;
+					}
+					if(!improved) break lazyF;
+				}
+			}
+
+			row[jjj] = next[lastSlot];
+			int[] temp = H;
+			H = next;
+			next = temp;
+		}
+	}
+
+	private void shortPass(byte[] sequence1, int start1, int end1, byte[] sequence2, int start2, int end2,
+			boolean reverse, int[] row) {
+		final int lanes = SHORT_LANES;
+		int length1 = end1 - start1;
+		int length2 = end2 - start2;
+		int segLen = (length1 + lanes - 1) / lanes;
+		int cells = segLen * lanes;
+		Workspace workspace = workspaces.get();
+		short[] profile = workspace.shortProfile(matrix.size() * cells);
+		short[] H = workspace.shortColumn(0, cells);
+		short[] next = workspace.shortColumn(1, cells);
+		int[] F = workspace.lanes(lanes);
+		short gap = (short) gapPenalty;
+
+		for(int residue = 0; residue < matrix.size(); residue++) {
+			int base = residue * cells;
+			for(int segment = 0; segment < segLen; segment++) {
+				for(int lane = 0; lane < lanes; lane++) {
+					int index = lane * segLen + segment;
+					int value = 0;
+					if(index < length1) {
+						byte code = reverse ? sequence1[end1 - 1 - index] : sequence1[start1 + index];
+						value = matrix.score((byte) residue, code);
+					}
+					profile[base + segment * lanes + lane] = (short) value;
+				}
+			}
+		}
+		for(int segment = 0; segment < segLen; segment++) {
+			for(int lane = 0; lane < lanes; lane++) {
+				H[segment * lanes + lane] = (short) ((lane * segLen + segment + 1) * gapPenalty);
+			}
+		}
+		int lastSlot = ((length1 - 1) % segLen) * lanes + (length1 - 1) / segLen;
+		row[0] = length1 * gapPenalty;
+
+		for(int jjj = 1; jjj <= length2; jjj++) {
+			byte code = reverse ? sequence2[end2 - jjj] : sequence2[start2 + jjj - 1];
+			int base = code * cells;
+
+			next[0] = (short) Math.max((jjj - 1) * gapPenalty + profile[base], H[0] + gap);
+			for(int lane = 1; lane < lanes; lane++) {
+				int diagonal = H[(segLen - 1) * lanes + lane - 1];
+				next[lane] = (short) Math.max(diagonal + profile[base + lane], H[lane] + gap);
+			}
+			for(int slot = lanes; slot < cells; slot++) {
+				next[slot] = (short) Math.max(H[slot - lanes] + profile[base + slot], H[slot] + gap);
+			}
+
+			F[0] = (jjj + 1) * gapPenalty;
+			for(int lane = 1; lane < lanes; lane++) F[lane] = NEGATIVE_INFINITY;
+			for(int slot = 0; slot < cells; slot += lanes) {
+				for(int lane = 0; lane < lanes; lane++) {
+					int h = Math.max(next[slot + lane], F[lane]);
+					next[slot + lane] = (short) h;
+					F[lane] = h + gapPenalty;
+				}
+			}
+
+			lazyF:
+			for(int pass = 1; pass < lanes; pass++) {
+				for(int lane = lanes - 1; lane > 0; lane--) F[lane] = F[lane - 1];
+				F[0] = NEGATIVE_INFINITY;
+				for(int slot = 0; slot < cells; slot += lanes) {
+					boolean improved = false;
+					for(int lane = 0; lane < lanes; lane++) {
+						if(F[lane] > next[slot + lane]) {
+							next[slot + lane] = (short) F[lane];
+							improved = true;
+						}
+						F[lane] += gapPenalty;
+					}
+					if(!improved) break lazyF;
+				}
+			}
+
+			row[jjj] = next[lastSlot];
+			short[] temp = H;
+			H = next;
+			next = temp;
+		}
+	}
+
+	/*
+	 * Per-thread profile and column buffers, grown on demand
+	 */
+	private static class Workspace {
+		private int[] intProfile = new int[0];
+		private short[] shortProfile = new short[0];
+		private final int[][] intColumns = {new int[0], new int[0]};
+		private final short[][] shortColumns = {new short[0], new short[0]};
+		private int[] lanes = new int[0];
+
+		int[] intProfile(int length) {
+			if(intProfile.length < length) intProfile = new int[length];
+			return intProfile;
+		}
+
+		short[] shortProfile(int length) {
+			if(shortProfile.length < length) shortProfile = new short[length];
+			return shortProfile;
+		}
+
+		int[] intColumn(int which, int length) {
+			if(intColumns[which].length < length) intColumns[which] = new int[length];
+			return intColumns[which];
+		}
+
+		short[] shortColumn(int which, int length) {
+			if(shortColumns[which].length < length) shortColumns[which] = new short[length];
+			return shortColumns[which];
+		}
+
+		int[] lanes(int length) {
+			if(lanes.length < length) lanes = new int[length];
+			return lanes;
+		}
+	}
+}
@@ -0,0 +1,216 @@
+package bio.uima;
+
+import java.util.Arrays;
+
+/*
+ * Immutable amino acid substitution matrix (e.g. BLOSUM62).
+ *
+ * Residues are encoded once into small byte codes (their row in the
+ * matrix file) and scores are served from a flat int table indexed by
+ * (code1 * size + code2), so alignment inner loops do no hashing or boxing.
+ */
+public final class SubstitutionMatrix {
+
+	public static final byte GAP = -1;												// Code for the gap character '-'
+	private static final byte UNKNOWN = -2;
+
+	private static final char GAP_CHAR = '-';
+	private static final char WILDCARD = 'X';
+
+	private final char[] residues;													// code -> residue
+	private final byte[] codes = new byte[128];										// ASCII residue -> code
+	private final int[] scores;														// flat size x size score table
+	private final int size;
+	private final byte wildcard;													// Code of 'X', or UNKNOWN
+	private final int[] rowMaxScores;												// code -> best score of that residue
+	private final int minScore;
+	private final int maxScore;
+
+	private SubstitutionMatrix(char[] residues, int[] scores) {
+		this.residues = residues;
+		this.scores = scores;
+		this.size = residues.length;
+		Arrays.fill(codes, UNKNOWN);
+		for(int iii = 0; iii < size; iii++) {
+			codes[Character.toUpperCase(residues[iii])] = (byte) iii;
+			codes[Character.toLowerCase(residues[iii])] = (byte) iii;
+		}
+		codes[GAP_CHAR] = GAP;
+		this.wildcard = codes[WILDCARD];
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for(int score : scores) {
+			min = Math.min(min, score);
+			max = Math.max(max, score);
+		}
+		this.minScore = min;
+		this.maxScore = max;
+		this.rowMaxScores = new int[size];
+		for(int iii = 0; iii < size; iii++) {
+			int rowMax = Integer.MIN_VALUE;
+			for(int jjj = 0; jjj < size; jjj++) {
+				rowMax = Math.max(rowMax, scores[iii * size + jjj]);
+			}
+			rowMaxScores[iii] = rowMax;
+		}
+	}
+
+	/*
+	 * Parses a substitution matrix from its tab separated text form: a header
+	 * line of residues followed by one row of scores per residue, in the same
+	 * order as the header.
+	 *
+	 * @param	matrixText		Text of the matrix file
+	 * @return					Parsed substitution matrix
+	 */
+	public static SubstitutionMatrix parse(String matrixText) {
+		String[] lines = matrixText.split("\n");
+		String[] header = lines[0].split("\t");
+		int size = header.length;
+		if(size > Byte.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many residues in substitution matrix: " + size);
+		}
+		char[] residues = new char[size];
+		for(int iii = 0; iii < size; iii++) {
+			residues[iii] = header[iii].charAt(0);
+		}
+		int[] scores = new int[size * size];
+		for(int iii = 1; iii <= size; iii++) {
+			if(iii >= lines.length) {
+				throw new IllegalArgumentException("Missing substitution matrix row for " + residues[iii - 1]);
+			}
+			String[] row = lines[iii].split("\t");
+			for(int jjj = 0; jjj < size; jjj++) {
+				scores[(iii - 1) * size + jjj] = Integer.parseInt(row[jjj].trim());
+			}
+		}
+		return new SubstitutionMatrix(residues, scores);
+	}
+
+	/*
+	 * Returns the code of a residue. The gap character encodes to GAP, and
+	 * residues which are not in the matrix encode to the wildcard 'X'.
+	 */
+	public byte encode(char residue) {
+		byte code = (residue < codes.length) ? codes[residue] : UNKNOWN;
+		if(code == UNKNOWN) code = wildcard;
+		if(code == UNKNOWN) {
+			throw new IllegalArgumentException("Residue not in substitution matrix: " + residue);
+		}
+		return code;
+	}
+
+	/*
+	 * Encodes a whole sequence into residue codes
+	 *
+	 * @param	sequence		Sequence to encode
+	 * @return					Array holding the code of every residue of the sequence
+	 */
+	public byte[] encode(String sequence) {
+		byte[] encoded = new byte[sequence.length()];
+		for(int iii = 0; iii < encoded.length; iii++) {
+			encoded[iii] = encode(sequence.charAt(iii));
+		}
+		return encoded;
+	}
+
+	/*
+	 * Encodes a whole sequence of ASCII residues into residue codes
+	 *
+	 * @param	sequence		Sequence to encode, one residue per byte
+	 * @return					Array holding the code of every residue of the sequence
+	 */
+	public byte[] encode(byte[] sequence) {
+		byte[] encoded = new byte[sequence.length];
+		for(int iii = 0; iii < encoded.length; iii++) {
+			encoded[iii] = encode((char) (sequence[iii] & 0xff));
+		}
+		return encoded;
+	}
+
+	/*
+	 * Returns the residue of a code, or '-' for GAP
+	 */
+	public char decode(byte code) {
+		return (code == GAP) ? GAP_CHAR : residues[code];
+	}
+
+	/*
+	 * Returns the substitution score of two residue codes
+	 */
+	public int score(byte code1, byte code2) {
+		return scores[code1 * size + code2];
+	}
+
+	/*
+	 * Returns the substitution score of two residues
+	 */
+	public int score(char residue1, char residue2) {
+		return score(encode(residue1), encode(residue2));
+	}
+
+	/*
+	 * Returns the number of residues in the matrix
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int minScore() {
+		return minScore;
+	}
+
+	public int maxScore() {
+		return maxScore;
+	}
+
+	/*
+	 * Returns the best score a residue can get against any residue
+	 */
+	public int maxScore(byte code) {
+		return rowMaxScores[code];
+	}
+
+	/*
+	 * Scores two encoded sequences column by column, without aligning them:
+	 * column iii pairs residue iii of both sequences, the shorter sequence is
+	 * padded with gaps, and a column with a gap scores the gap penalty.
+	 *
+	 * @param	sequence1		First sequence, encoded (gaps allowed)
+	 * @param	sequence2		Second sequence, encoded (gaps allowed)
+	 * @param	gapPenalty		Penalty for a column with a gap
+	 * @return					Sum of the column scores
+	 */
+	public int columnScore(byte[] sequence1, byte[] sequence2, int gapPenalty) {
+		int score = 0;
+		int length1 = sequence1.length;
+		int length2 = sequence2.length;
+		int length = (length1 > length2) ? length1 : length2;
+		for(int iii = 0; iii < length; iii++) {
+			byte code1 = (iii < length1) ? sequence1[iii] : GAP;
+			byte code2 = (iii < length2) ? sequence2[iii] : GAP;
+			if(code1 == GAP || code2 == GAP) {
+				score += gapPenalty;
+			} else {
+				score += scores[code1 * size + code2];
+			}
+		}
+		return score;
+	}
+
+	/*
+	 * Returns a 64-bit hash of the residues and scores of the matrix, so
+	 * results computed under it can be told apart from results computed
+	 * under any other matrix
+	 */
+	public long fingerprint() {
+		long hash = 0xcbf29ce484222325L;											// FNV-1a
+		for(char residue : residues) {
+			hash = (hash ^ residue) * 0x100000001b3L;
+		}
+		for(int score : scores) {
+			hash = (hash ^ (score & 0xffffffffL)) * 0x100000001b3L;
+		}
+		return hash;
+	}
+}
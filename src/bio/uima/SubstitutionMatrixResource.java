@@ -0,0 +1,17 @@
+package bio.uima;
+
+/*
+ * Substitution matrix as a UIMA external resource, bound to a file in the
+ * format of resources/distances.txt
+ */
+public class SubstitutionMatrixResource extends ParsedResource<SubstitutionMatrix> {
+
+	@Override
+	protected SubstitutionMatrix parse(String text) {
+		return SubstitutionMatrix.parse(text);
+	}
+
+	public SubstitutionMatrix getMatrix() {
+		return get();
+	}
+}
@@ -1,15 +1,29 @@
 package bio.uima;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.uima.UimaContext;
+import org.apache.uima.cas.FSIndex;
+import org.apache.uima.cas.FSIterator;
+import org.apache.uima.jcas.JCas;
+import org.apache.uima.jcas.cas.ByteArray;
+import org.apache.uima.jcas.cas.TOP;
+import org.apache.uima.resource.ResourceAccessException;
+import org.apache.uima.resource.ResourceInitializationException;
 
 public class Utils {
 	
-	private static final String DISTANCES_FILE_NAME = "/home/farhang/workspace/BioUIMA/resources/distances.txt";
-	private static final String CODON_FILE = "/home/farhang/workspace/BioUIMA/resources/codonTable.txt";
+	private static final String DISTANCES_RESOURCE = "/distances.txt";				// Classpath resources, from resources/
+	private static final String CODON_RESOURCE = "/codonTable.txt";
+	
+	public static final String PROTEIN_INDEX = "ProteinSequences";					// Labels of desc/BioIndexCollection.xml
+	public static final String ALIGNMENT_INDEX = "AlignmentPairs";
+	public static final String CLUSTER_INDEX = "ClusterAssignments";
+	public static final String TILE_INDEX = "PairTiles";
 
 	/*
 	 * Initializes the score matrix, prepping it for score calculation
@@ -30,20 +44,14 @@ public class Utils {
 	}
 	
 	/*
-	 * Reads codon table from a file and creates a HashMap for quick lookup
+	 * Returns the translator of the codon table. The table is read from the
+	 * classpath once per JVM and the translator is shared, as it is immutable.
 	 *
-	 * @return HashMap<String, String>		HashMap to map codons to protein
+	 * @return CodonTranslator		Translator to map codons to protein
 	 */
-	public static HashMap<String, String> initCodonTable() {
-    	String inputFileString = Utils.readInputFile(CODON_FILE);
-    	HashMap<String, String> codonMap = new HashMap<String, String>();
-    	String[] lines = inputFileString.split("\n");
-    	for(String line : lines) {
-    		String[] temp = line.split("\t");
-    		codonMap.put(temp[0], temp[1]);
-    	}
-    	return codonMap;
-    }
+	public static CodonTranslator initCodonTranslator() {
+		return CodonTable.TRANSLATOR;
+	}
 	
 	/*
 	 * Returns greatest of three integers
@@ -53,113 +61,165 @@ public class Utils {
 	}
 
 	/*
-	 * Prints an array of Strings
+	 * Stores an ASCII string in a new byte array of the CAS
+	 *
+	 * @param	cas					CAS to create the array in
+	 * @param	text				ASCII text to store
+	 * @return						Byte array holding one character per byte
+	 */
+	public static ByteArray toByteArray(JCas cas, String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+		ByteArray array = new ByteArray(cas, bytes.length);
+		array.copyFromArray(bytes, 0, 0, bytes.length);
+		return array;
+	}
+
+	/*
+	 * Returns the ASCII string held in a byte array of the CAS
+	 */
+	public static String toString(ByteArray array) {
+		return new String(array.toArray(), StandardCharsets.US_ASCII);
+	}
+
+	/*
+	 * Returns the protein sequences of a CAS, ordered by their index
 	 */
-	public static void printStringArray(String[] array) {
-		for(int iii = 0; iii < array.length; iii++) {
-			System.out.println(iii + "->\t" + array[iii]);
+	public static String[] getProteins(JCas cas) {
+		FSIndex<TOP> index = cas.getJFSIndexRepository().getIndex(PROTEIN_INDEX);
+		String[] proteins = new String[index.size()];
+		int count = 0;
+		for(FSIterator<TOP> it = index.iterator(); it.hasNext(); ) {
+			proteins[count++] = toString(((ProteinSequence) it.next()).getResidues());
 		}
-		System.out.println();
+		return proteins;
 	}
-	
+
 	/*
-	 * Prints an array of Strings
+	 * Returns the alignment pairs of a CAS, ordered by pair
 	 */
-	public static void printTwoStringArrays(String[] array1, String[] array2) {
-		for(int iii = 0; iii < array1.length; iii++) {
-			System.out.println(array1[iii] + "\t" + array2[iii]);
+	public static AlignmentPair[] getAlignmentPairs(JCas cas) {
+		FSIndex<TOP> index = cas.getJFSIndexRepository().getIndex(ALIGNMENT_INDEX);
+		AlignmentPair[] pairs = new AlignmentPair[index.size()];
+		int count = 0;
+		for(FSIterator<TOP> it = index.iterator(); it.hasNext(); ) {
+			pairs[count++] = (AlignmentPair) it.next();
 		}
-		System.out.println();
+		return pairs;
 	}
-	
+
 	/*
-	 * Adds an array of strings to an ArrayList of strings
+	 * Renders both aligned proteins of an alignment pair from its edit
+	 * operations, or returns its gapped proteins if it only has those
+	 *
+	 * @param	pair				Alignment pair
+	 * @param	proteins			Proteins of the CAS of the pair, see getProteins
+	 * @return						Both proteins with gaps, or null if the pair was only scored
 	 */
-	public static void addArrayToList(ArrayList<String> proteins, String[] newProteins) {
-		for(String temp : newProteins) {
-			proteins.add(temp);
+	public static String[] getAlignment(AlignmentPair pair, String[] proteins) {
+		if(pair.getCigar() != null) {
+			return Cigar.parse(pair.getCigar(), pair.getScore(), 0, 0).render(proteins[pair.getFirst()], proteins[pair.getSecond()]);
 		}
+		if(pair.getAlignment1() == null) return null;
+		return new String[] {toString(pair.getAlignment1()), toString(pair.getAlignment2())};
+	}
+
+	/*
+	 * Returns the pair tile of a scale-out work unit CAS, or null if the CAS
+	 * is not a work unit
+	 */
+	public static PairTile getPairTile(JCas cas) {
+		FSIterator<TOP> it = cas.getJFSIndexRepository().getIndex(TILE_INDEX).iterator();
+		return it.hasNext() ? (PairTile) it.next() : null;
+	}
+
+	/*
+	 * Returns whether a CAS already holds feature structures in an index,
+	 * e.g. because it was resumed from a checkpoint
+	 */
+	public static boolean hasIndexed(JCas cas, String indexLabel) {
+		return cas.getJFSIndexRepository().getIndex(indexLabel).size() > 0;
 	}
 	
 	/*
-	 * Combines an input string array to output one single string which is separated
-	 * by a space for each element in the array
-	 * 
-	 * @param	proteins			input string array to combine
-	 * @return						String of concatenation of input string array
+	 * Returns the external resource bound to a key of an annotator
+	 *
+	 * @param	context			Context of the annotator
+	 * @param	key				Key of the resource dependency in the annotator descriptor
+	 * @param	type			Class of the resource object
+	 * @return					Resource object, shared with every other annotator bound to it
 	 */
-	public static String combineStringArray(String[] proteins) {
-		String returnString = "";
-		for(int iii = 0; iii < proteins.length; iii++) {
-			returnString += (proteins[iii] + " ");
+	public static <T> T getResource(UimaContext context, String key, Class<T> type) throws ResourceInitializationException {
+		Object resource;
+		try {
+			resource = context.getResourceObject(key);
+		} catch(ResourceAccessException e) {
+			throw new ResourceInitializationException(e);
 		}
-		return returnString;
+		if(!type.isInstance(resource)) {
+			throw new ResourceInitializationException(new IllegalStateException(
+					"No " + type.getSimpleName() + " is bound to " + key));
+		}
+		return type.cast(resource);
 	}
 	
 	/*
-	 * Combines an input integer array to output one single string which is separated
-	 * by a space for each element in the array
-	 * 
-	 * @param	proteins			input integer array to combine
-	 * @return						String of concatenation of input integer array
+	 * Reads a text resource from the classpath
+	 *
+	 * @param	name			Absolute resource name, e.g. "/distances.txt"
+	 * @return					Text of the resource, one '\n' after every line
 	 */
-	public static String combineIntArray(int[] proteins) {
-		String returnString = "";
-		for(int iii = 0; iii < proteins.length; iii++) {
-			returnString += (proteins[iii] + " ");
+	public static String readResource(String name) {
+		InputStream in = Utils.class.getResourceAsStream(name);
+		if(in == null) {
+			throw new IllegalStateException("Resource not found on the classpath: " + name);
+		}
+		try {
+			return readText(in);
+		} catch(IOException e) {
+			throw new IllegalStateException("Could not read resource " + name, e);
 		}
-		return returnString;
 	}
 	
 	/*
-	 * Reads from a file and returns the string that represents
-	 * the data in the file.
+	 * Reads ASCII text from a stream and closes it
 	 *
-	 * @param inputFile
-	 * @return	String read from input file
+	 * @param	in				Stream to read
+	 * @return					Text of the stream, one '\n' after every line
 	 */
-	public static String readInputFile(String inputFile) {
-		BufferedReader br = null;
-		String fileText = "";
+	public static String readText(InputStream in) throws IOException {
+		StringBuilder text = new StringBuilder();
+		BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
 		try {
-			br = new BufferedReader(new FileReader(inputFile));
 			String currentLine;
 			while((currentLine = br.readLine()) != null) {
-				fileText += (currentLine + "\n");
+				text.append(currentLine).append('\n');
 			}
-		} catch(IOException e) {
-			System.out.println("File not found: " + inputFile);
-			System.exit(-1);
 		} finally {
-			try {
-				if(br != null)	br.close();
-			} catch(IOException e) {
-				e.printStackTrace();
-			}
+			br.close();
 		}
-		return fileText;
+		return text.toString();
 	}
 	
 	/*
-	 * Initializes the similarity map which stores similarity score for alignment of
+	 * Initializes the substitution matrix which stores similarity score for alignment of
 	 * all possible proteins. This is used to calculate the scores for an alignment
-	 * of proteins.
+	 * of proteins. The matrix is read from the classpath once per JVM and shared,
+	 * as it is immutable.
 	 * 
-	 * @return					HashMap of similarity of all pairs of characters of proteins
+	 * @return					Substitution matrix of similarity of all pairs of characters of proteins
 	 */
-	public static HashMap<Character, HashMap<Character, Integer>> initSimilarityMap() {
-		HashMap<Character, HashMap<Character, Integer>> distancesMap = new HashMap<Character, HashMap<Character, Integer>>(); 
-		String distancesFile = Utils.readInputFile(DISTANCES_FILE_NAME);
-		String[] distancesFileArray = distancesFile.split("\n");
-		String[] firstLine = distancesFileArray[0].split("\t");
-		for(int iii = 1; iii < distancesFileArray.length; iii++) {
-			HashMap<Character, Integer> tempMap = new HashMap<Character, Integer>();
-			String[] singleLineArray = distancesFileArray[iii].split("\t");
-			for(int jjj = 0; jjj < singleLineArray.length; jjj++) {
-				tempMap.put(firstLine[jjj].charAt(0), Integer.parseInt(singleLineArray[jjj]));
-			}
-			distancesMap.put(firstLine[iii - 1].charAt(0), tempMap);
-		}
-		return distancesMap;
+	public static SubstitutionMatrix initSubstitutionMatrix() {
+		return Distances.MATRIX;
+	}
+	
+	/*
+	 * Holders of the data files, read when first used
+	 */
+	private static final class Distances {
+		static final SubstitutionMatrix MATRIX = SubstitutionMatrix.parse(readResource(DISTANCES_RESOURCE));
+	}
+	
+	private static final class CodonTable {
+		static final CodonTranslator TRANSLATOR = CodonTranslator.parse(readResource(CODON_RESOURCE));
 	}
 }
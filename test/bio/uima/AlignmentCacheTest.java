@@ -0,0 +1,178 @@
+package bio.uima;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ * Checks the results of the AlignmentCache through both tiers: the LRU
+ * memory tier against its budget, and the MappedPairStore on disk across
+ * index growth and a release and reopen of its directory.
+ */
+public class AlignmentCacheTest {
+
+	private static final String RESIDUES = "ARNDCQEGHILKMFPSTWYV";
+	private static final int KEYS = 60000;										// Past the load limit of the initial index
+	private static final int INITIAL_INDEX_LENGTH = 64 + (1 << 16) * 32;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final SubstitutionMatrix matrix = Utils.initSubstitutionMatrix();
+	private final long parameters = AlignmentCache.parameters(matrix, -2, 0);
+
+	@Test
+	public void cigarsRoundTrip() {
+		Random random = new Random(13);
+		AlignmentEngine engine = new AlignmentEngine(matrix, -2);
+		for(int iii = 0; iii < 300; iii++) {
+			String protein1 = protein(random, random.nextInt(60));
+			String protein2 = protein(random, random.nextInt(60));
+			Cigar cigar = engine.align(protein1, protein2);
+			AlignmentCache.Result result = AlignmentCache.Result.aligned(cigar);
+			assertTrue(result.hasAlignment());
+			assertEquals(cigar.getScore(), result.getScore());
+			Cigar read = result.cigar();
+			assertEquals(cigar.toString(), read.toString());
+			assertEquals(cigar.getScore(), read.getScore());
+			assertEquals(cigar.getColumns(), read.getColumns());
+		}
+	}
+
+	@Test
+	public void diskTierGrowsAndSurvivesReopen() throws IOException {
+		File directory = folder.newFolder("cache");
+		AlignmentCache cache = new AlignmentCache(parameters, 0, directory);
+		for(int iii = 0; iii < KEYS; iii++) {
+			cache.put(key(cache, iii), result(iii));
+		}
+		assertTrue("Index did not grow", new File(directory, "pairs.idx").length() > INITIAL_INDEX_LENGTH);
+		assertFalse(new File(directory, "pairs.idx.tmp").exists());
+		assertResults(cache);
+		cache.close();
+
+		cache = new AlignmentCache(parameters, 0, directory);
+		try {
+			assertResults(cache);
+			assertNull(cache.get(key(cache, KEYS)));
+			AlignmentCache other = new AlignmentCache(parameters ^ 1, 0, directory);
+			try {
+				assertNull("Key ignores the parameters", other.get(key(other, 0)));
+			} finally {
+				other.close();
+			}
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void scoreIsUpgradedToAlignment() throws IOException {
+		File directory = folder.newFolder("cache");
+		AlignmentCache cache = new AlignmentCache(parameters, 0, directory);
+		Cigar cigar = Cigar.parse("3M1I2M", 11, 0, 0);
+		AlignmentCache.Key upgraded = key(cache, 1);
+		AlignmentCache.Key kept = key(cache, 2);
+		try {
+			cache.put(upgraded, AlignmentCache.Result.scoreOnly(11));
+			assertFalse(cache.get(upgraded).hasAlignment());
+			cache.put(upgraded, AlignmentCache.Result.aligned(cigar));
+			cache.put(kept, AlignmentCache.Result.aligned(cigar));
+			cache.put(kept, AlignmentCache.Result.scoreOnly(11));
+		} finally {
+			cache.close();
+		}
+
+		cache = new AlignmentCache(parameters, 0, directory);
+		try {
+			for(AlignmentCache.Key key : new AlignmentCache.Key[] {upgraded, kept}) {
+				AlignmentCache.Result result = cache.get(key);
+				assertTrue(result.hasAlignment());
+				assertEquals("3M1I2M", result.cigar().toString());
+				assertEquals(11, result.getScore());
+			}
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void memoryTierEvictsLeastRecentlyUsed() throws IOException {
+		long entry = AlignmentCache.Result.scoreOnly(0).size();
+		AlignmentCache cache = new AlignmentCache(parameters, 10 * entry, null);
+		for(int iii = 0; iii < 10; iii++) {
+			cache.put(key(cache, iii), AlignmentCache.Result.scoreOnly(iii));
+		}
+		assertNotNull(cache.get(key(cache, 0)));									// now the most recent
+		for(int iii = 10; iii < 15; iii++) {
+			cache.put(key(cache, iii), AlignmentCache.Result.scoreOnly(iii));
+		}
+		assertEquals(0, cache.get(key(cache, 0)).getScore());
+		for(int iii = 1; iii < 6; iii++) {
+			assertNull("Key " + iii + " not evicted", cache.get(key(cache, iii)));
+		}
+		for(int iii = 6; iii < 15; iii++) {
+			assertEquals(iii, cache.get(key(cache, iii)).getScore());
+		}
+
+		AlignmentCache.Result large = AlignmentCache.Result.aligned(Cigar.parse((entry * 16) + "M", 5, 0, 0));
+		cache.put(key(cache, 15), large);										// takes the room of several entries
+		assertNotNull(cache.get(key(cache, 15)));
+		int kept = 0;
+		for(int iii = 0; iii < 15; iii++) {
+			if(cache.get(key(cache, iii)) != null) kept++;
+		}
+		assertTrue(kept * entry + large.size() <= 10 * entry);
+
+		AlignmentCache none = new AlignmentCache(parameters, 0, null);
+		none.put(key(none, 0), AlignmentCache.Result.scoreOnly(0));
+		assertNull(none.get(key(none, 0)));
+	}
+
+	private void assertResults(AlignmentCache cache) throws IOException {
+		for(int iii = 0; iii < KEYS; iii++) {
+			AlignmentCache.Result expected = result(iii);
+			AlignmentCache.Result result = cache.get(key(cache, iii));
+			assertNotNull("Key " + iii, result);
+			assertEquals(expected.getScore(), result.getScore());
+			assertEquals(expected.hasAlignment(), result.hasAlignment());
+			if(expected.hasAlignment()) {
+				assertEquals(expected.cigar().toString(), result.cigar().toString());
+			}
+		}
+	}
+
+	private static AlignmentCache.Key key(AlignmentCache cache, int pair) {
+		return cache.key(AlignmentCache.digest("P" + pair), AlignmentCache.digest("Q" + (pair % 7)));
+	}
+
+	/*
+	 * Result stored for a pair: every 50th pair aligned, the others scored
+	 */
+	private static AlignmentCache.Result result(int pair) {
+		if(pair % 50 != 0) return AlignmentCache.Result.scoreOnly(pair - KEYS / 2);
+		StringBuilder cigar = new StringBuilder();
+		for(int iii = 0; iii <= pair % 5; iii++) {
+			cigar.append(1 + (pair + iii) % 9).append("MID".charAt(iii % 3));
+		}
+		return AlignmentCache.Result.aligned(Cigar.parse(cigar.toString(), pair, 0, 0));
+	}
+
+	private static String protein(Random random, int length) {
+		StringBuilder protein = new StringBuilder();
+		for(int iii = 0; iii < length; iii++) {
+			protein.append(RESIDUES.charAt(random.nextInt(RESIDUES.length())));
+		}
+		return protein.toString();
+	}
+}
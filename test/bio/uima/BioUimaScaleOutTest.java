@@ -0,0 +1,73 @@
+package bio.uima;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+/*
+ * Checks that the scaled-out pipeline, with its alignment stage cut into
+ * work units, gives the rows of BioDescriptor on the sample data, run in
+ * this process and deployed as services on an embedded broker.
+ */
+public class BioUimaScaleOutTest {
+
+	private static final String[] INPUT = {"data/dna.txt"};
+
+	@Test
+	public void inProcessMatchesBioDescriptor() throws Exception {
+		ByteArrayOutputStream rows = new ByteArrayOutputStream();
+		ResultWriter writer = new ResultWriter(Channels.newChannel(rows), ResultWriter.Format.TSV);
+		BioUimaScaleOut.runInProcess(INPUT, writer);
+		writer.flush();
+		assertEquals(bioDescriptorRows(), rows.toString(StandardCharsets.US_ASCII.name()));
+	}
+
+	/*
+	 * Needs a UIMA-AS installation to deploy the services, skipped without one
+	 */
+	@Test
+	public void servicesMatchBioDescriptor() throws Exception {
+		String uimaHome = System.getenv("UIMA_HOME");
+		assumeNotNull(uimaHome);
+		ByteArrayOutputStream rows = new ByteArrayOutputStream();
+		ResultWriter writer = new ResultWriter(Channels.newChannel(rows), ResultWriter.Format.TSV);
+		BioUimaScaleOut.runServices(null, uimaHome, INPUT, writer);
+		writer.flush();
+		assertEquals(bioDescriptorRows(), rows.toString(StandardCharsets.US_ASCII.name()));
+	}
+
+	/*
+	 * Returns the rows BioDescriptor gives for the input
+	 */
+	private static String bioDescriptorRows() throws Exception {
+		ByteArrayOutputStream rows = new ByteArrayOutputStream();
+		ResultWriter writer = new ResultWriter(Channels.newChannel(rows), ResultWriter.Format.TSV);
+		AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(BioUima.parsePipeline(null));
+		try {
+			JCas jCas = ae.newJCas();
+			CollectionReader reader = BioUima.createReader(INPUT, null);
+			while(reader.hasNext()) {
+				jCas.reset();
+				reader.getNext(jCas.getCas());
+				BioUima.process(ae, jCas, writer);
+			}
+			reader.close();
+		} finally {
+			ae.destroy();
+		}
+		writer.flush();
+		String text = rows.toString(StandardCharsets.US_ASCII.name());
+		assertTrue("No pairs: " + text, text.split("\n").length > 2);
+		return text;
+	}
+}
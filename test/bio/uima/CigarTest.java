@@ -0,0 +1,185 @@
+package bio.uima;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/*
+ * Checks the alignments of the engine, traced back through 2-bit moves and
+ * kept as Cigar runs, against the gapped strings of the alignment as it was
+ * built before: the same Hirschberg recursion, with a base case that traces
+ * back through its full score matrix and appends characters.
+ */
+public class CigarTest {
+
+	private static final String RESIDUES = "ARNDCQEGHILKMFPSTWYVBZX.";
+	private static final String FEW_RESIDUES = "AAW";							// Many ties
+	private static final int[] GAP_PENALTIES = {-2, -1, -4};
+
+	private final SubstitutionMatrix matrix = Utils.initSubstitutionMatrix();
+
+	@Test
+	public void sameAlignmentsAsBefore() {
+		Random random = new Random(23);
+		for(int gapPenalty : GAP_PENALTIES) {
+			AlignmentEngine engine = new AlignmentEngine(matrix, gapPenalty);
+			for(int iii = 0; iii < 600; iii++) {
+				String residues = (iii % 3 == 0) ? FEW_RESIDUES : RESIDUES;
+				String protein1 = protein(random, residues, random.nextInt((iii < 300) ? 8 : 120));
+				String protein2 = protein(random, residues, random.nextInt((iii < 300) ? 8 : 120));
+				String[] expected = referenceAlignment(engine, protein1, protein2);
+				assertArrayEquals(protein1 + " " + protein2, expected, engine.hirschberg(protein1, protein2));
+				Cigar cigar = engine.align(protein1, protein2);
+				assertEquals(Cigar.fromGapped(expected[0], expected[1], 0).toString(), cigar.toString());
+				assertEquals(engine.alignmentScore(expected[0], expected[1]), cigar.getScore());
+				assertEquals(engine.score(protein1, protein2), cigar.getScore());
+				assertEquals(protein1.length(), cigar.getEnd1());
+				assertEquals(protein2.length(), cigar.getEnd2());
+				assertEquals(expected[0].length(), cigar.getColumns());
+			}
+		}
+	}
+
+	@Test
+	public void parseAndRender() {
+		Cigar cigar = Cigar.parse("3M2I1M1D", 7, 1, 0);
+		assertEquals("3M2I1M1D", cigar.toString());
+		assertEquals(7, cigar.getScore());
+		assertEquals(4, cigar.getRunCount());
+		assertEquals(Cigar.INSERTION, cigar.getOperation(1));
+		assertEquals(2, cigar.getLength(1));
+		assertEquals(1, cigar.getStart1());
+		assertEquals(6, cigar.getEnd1());
+		assertEquals(6, cigar.getEnd2());
+		assertEquals(7, cigar.getColumns());
+		assertArrayEquals(new String[] {"ARN--DC", "RNDCQE-"}, cigar.render("XARNDCX", "RNDCQE"));
+		assertEquals("3M2I1M1D", Cigar.fromGapped("ARN--DC", "RNDCQE-", 7).toString());
+		assertEquals("12M", Cigar.parse("12M", 0, 0, 0).toString());
+		assertEquals("", Cigar.parse("", 0, 0, 0).toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseRejectsUnknownOperations() {
+		Cigar.parse("3M2X", 0, 0, 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void parseRejectsTrailingCounts() {
+		Cigar.parse("3M2", 0, 0, 0);
+	}
+
+	@Test
+	public void builderMergesRuns() {
+		Cigar.Builder first = new Cigar.Builder();
+		first.add(Cigar.MATCH, 2);
+		first.add(Cigar.MATCH, 3);
+		first.add(Cigar.DELETION, 0);
+		first.add(Cigar.INSERTION, 1);
+		Cigar.Builder second = new Cigar.Builder();
+		second.add(Cigar.INSERTION, 2);
+		for(int iii = 0; iii < 40; iii++) {
+			second.add(iii % 3, 1);
+		}
+		first.add(second);
+		StringBuilder expected = new StringBuilder("5M3I");
+		for(int iii = 0; iii < 40; iii++) {
+			expected.append(1).append("MID".charAt(iii % 3));
+		}
+		assertEquals(expected.toString(), first.build(0, 0, 0).toString());
+	}
+
+	/*
+	 * Aligns two proteins the way the engine did before alignments were
+	 * kept as Cigar runs
+	 */
+	private String[] referenceAlignment(AlignmentEngine engine, String protein1, String protein2) {
+		byte[] sequence1 = matrix.encode(protein1);
+		byte[] sequence2 = matrix.encode(protein2);
+		StringBuilder Z = new StringBuilder();
+		StringBuilder W = new StringBuilder();
+		referenceHirschberg(engine, sequence1, 0, sequence1.length, sequence2, 0, sequence2.length, Z, W);
+		return new String[] {Z.toString(), W.toString()};
+	}
+
+	private void referenceHirschberg(AlignmentEngine engine, byte[] sequence1, int start1, int end1, byte[] sequence2,
+			int start2, int end2, StringBuilder Z, StringBuilder W) {
+		int length1 = end1 - start1;
+		int length2 = end2 - start2;
+		if(length1 == 0) {
+			for(int jjj = start2; jjj < end2; jjj++) {
+				Z.append('-');
+				W.append(matrix.decode(sequence2[jjj]));
+			}
+		} else if(length2 == 0) {
+			for(int iii = start1; iii < end1; iii++) {
+				Z.append(matrix.decode(sequence1[iii]));
+				W.append('-');
+			}
+		} else if(length1 == 1 || length2 == 1) {
+			referenceBaseCase(engine, sequence1, start1, end1, sequence2, start2, end2, Z, W);
+		} else {
+			int mid1 = start1 + (length1 / 2);
+			int[] scoreL = new int[length2 + 1];
+			int[] scoreR = new int[length2 + 1];
+			engine.computeLastNWScore(sequence1, start1, mid1, sequence2, start2, end2, false, scoreL);
+			engine.computeLastNWScore(sequence1, mid1, end1, sequence2, start2, end2, true, scoreR);
+			int maxSum = Integer.MIN_VALUE;
+			int mid2 = start2;
+			for(int iii = 0; iii <= length2; iii++) {
+				int sum = scoreL[iii] + scoreR[length2 - iii];
+				if(sum >= maxSum) {
+					maxSum = sum;
+					mid2 = start2 + iii;
+				}
+			}
+			referenceHirschberg(engine, sequence1, start1, mid1, sequence2, start2, mid2, Z, W);
+			referenceHirschberg(engine, sequence1, mid1, end1, sequence2, mid2, end2, Z, W);
+		}
+	}
+
+	/*
+	 * Traces the alignment back through the full score matrix
+	 */
+	private void referenceBaseCase(AlignmentEngine engine, byte[] sequence1, int start1, int end1, byte[] sequence2,
+			int start2, int end2, StringBuilder Z, StringBuilder W) {
+		int[][] scores = engine.computeNWScore(sequence1, start1, end1, sequence2, start2, end2);
+		int capacity = (end1 - start1) + (end2 - start2);
+		char[] alignmentA = new char[capacity];
+		char[] alignmentB = new char[capacity];
+		int pos = capacity;
+		int iii = end1 - start1;
+		int jjj = end2 - start2;
+		while(iii > 0 || jjj > 0) {
+			byte a = (iii > 0) ? sequence1[start1 + iii - 1] : SubstitutionMatrix.GAP;
+			byte b = (jjj > 0) ? sequence2[start2 + jjj - 1] : SubstitutionMatrix.GAP;
+			pos--;
+			if(iii > 0 && jjj > 0 && scores[iii][jjj] == scores[iii - 1][jjj - 1] + matrix.score(a, b)) {
+				alignmentA[pos] = matrix.decode(a);
+				alignmentB[pos] = matrix.decode(b);
+				iii--;
+				jjj--;
+			} else if(iii > 0 && scores[iii][jjj] == scores[iii - 1][jjj] + engine.getGapPenalty()) {
+				alignmentA[pos] = matrix.decode(a);
+				alignmentB[pos] = '-';
+				iii--;
+			} else {
+				alignmentA[pos] = '-';
+				alignmentB[pos] = matrix.decode(b);
+				jjj--;
+			}
+		}
+		Z.append(alignmentA, pos, capacity - pos);
+		W.append(alignmentB, pos, capacity - pos);
+	}
+
+	private static String protein(Random random, String residues, int length) {
+		StringBuilder protein = new StringBuilder(length);
+		for(int iii = 0; iii < length; iii++) {
+			protein.append(residues.charAt(random.nextInt(residues.length())));
+		}
+		return protein.toString();
+	}
+}
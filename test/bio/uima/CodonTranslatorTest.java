@@ -0,0 +1,86 @@
+package bio.uima;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+/*
+ * Checks the six frames and the ORFs of short sequences against hand
+ * translations, with the coordinates of both strands on the forward strand.
+ */
+public class CodonTranslatorTest {
+
+	/*
+	 * Reverse complement: GGATGAAATAACTTAGGGTTTCATC
+	 */
+	private static final String DNA = "GATGAAACCCTAAGTTATTTCATCC";
+	private static final String[] FRAMES = {"DETLSYFI", "MKP.VISS", ".NPKLFH", "G.NNLGFH", "DEIT.GFI", "MK.LRVS"};
+
+	private final CodonTranslator translator = Utils.initCodonTranslator();
+
+	@Test
+	public void translatesSixFrames() {
+		assertArrayEquals(FRAMES, translator.translate(DNA, true));
+		assertArrayEquals(new String[] {FRAMES[0], FRAMES[1], FRAMES[2]}, translator.translate(DNA, false));
+		assertArrayEquals(new String[] {"MXM", "XX", "XX"}, translator.translate("ATGNNNaug", false));
+		assertArrayEquals(new String[] {"", "", "", "", "", ""}, translator.translate("AT", true));
+	}
+
+	@Test
+	public void chunksTranslateLikeOneSequence() {
+		for(int split = 0; split <= DNA.length(); split++) {
+			CodonTranslator.Translation translation = translator.newTranslation(0, true);
+			translation.feed(DNA, 0, split);
+			translation.feed(DNA.getBytes(), split, DNA.length());
+			assertArrayEquals(FRAMES, translation.finish());
+		}
+	}
+
+	@Test
+	public void frameCoordinates() {
+		// frame, codons, begin, end: the reverse frames count from the 3' end
+		int[][] spans = {{0, 8, 0, 24}, {1, 8, 1, 25}, {2, 7, 2, 23}, {3, 8, 1, 25}, {4, 8, 0, 24}, {5, 7, 2, 23}};
+		for(int[] span : spans) {
+			assertEquals(span[1], FRAMES[span[0]].length());
+			int begin = CodonTranslator.codonsBegin(span[0], DNA.length(), 0, span[1]);
+			assertEquals("Frame " + span[0], span[2], begin);
+			assertEquals("Frame " + span[0], span[3], begin + 3 * span[1]);
+		}
+		assertEquals(4, CodonTranslator.codonsBegin(1, DNA.length(), 1, 3));
+		assertEquals(17, CodonTranslator.codonsBegin(5, DNA.length(), 1, 2));		// "K": reverse complement of TTT
+	}
+
+	@Test
+	public void orfsOnBothStrands() {
+		ArrayList<CodonTranslator.Orf> orfs = translator.findOrfs(DNA, true, 2);
+		assertEquals(2, orfs.size());
+		assertOrf(orfs.get(0), 1, 1, 13, "MKP");									// ATGAAACCCTAA
+		assertOrf(orfs.get(1), 5, 14, 23, "MK");									// TTATTTCAT, ATGAAATAA reversed
+		assertEquals("ATGAAACCCTAA", DNA.substring(1, 13));
+		assertEquals("TTATTTCAT", DNA.substring(14, 23));
+
+		orfs = translator.findOrfs(DNA, true, 3);
+		assertEquals(1, orfs.size());
+		assertOrf(orfs.get(0), 1, 1, 13, "MKP");
+		assertEquals(1, translator.findOrfs(DNA, false, 1).size());
+	}
+
+	@Test
+	public void orfsWithoutStopCodon() {
+		// reverse complement: TTTCATGG
+		ArrayList<CodonTranslator.Orf> orfs = translator.findOrfs("CCATGAAA", true, 1);
+		assertEquals(2, orfs.size());
+		assertOrf(orfs.get(0), 2, 2, 8, "MK");
+		assertOrf(orfs.get(1), 4, 1, 4, "M");										// CAT
+	}
+
+	private static void assertOrf(CodonTranslator.Orf orf, int frame, int begin, int end, String protein) {
+		assertEquals(frame, orf.getFrame());
+		assertEquals(begin, orf.getBegin());
+		assertEquals(end, orf.getEnd());
+		assertEquals(protein, orf.getProtein());
+	}
+}
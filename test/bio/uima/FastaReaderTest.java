@@ -0,0 +1,147 @@
+package bio.uima;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ * Reads small FASTA files written for the corner cases of the format, and
+ * random multi-FASTA files larger than the read buffer, with both line
+ * endings.
+ */
+public class FastaReaderTest {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void crlfLines() throws IOException {
+		assertRecords(">a\r\nAC\r\nGT\r\n\r\n>b \r\nTT\r\n", "a", "ACGT", "b", "TT");
+		assertRecords("# a\r\nAC\r\n\r\nGT", "a", "AC", null, "GT");
+	}
+
+	@Test
+	public void firstRecordWithoutHeader() throws IOException {
+		assertRecords("ACGT\nAA\n>b\nGG\n", null, "ACGTAA", "b", "GG");
+		assertRecords("\n\nAC GT\n", null, "ACGT");
+	}
+
+	@Test
+	public void headersWithoutSequence() throws IOException {
+		assertRecords(">a\n>b\nAC\n>c\n", "a", "", "b", "AC", "c", "");
+		assertRecords(">a\n\n>b\nAC\n\n\n>c", "a", "", "b", "AC", "c", "");
+		assertRecords(">a\n\nAC\n", "a", "AC");
+		assertRecords("");
+	}
+
+	@Test
+	public void whitespaceLinesAreBlank() throws IOException {
+		assertRecords(">a\nAC\n  \t\nGT\n", "a", "AC", null, "GT");
+		assertRecords(">a\nAC\n \r\n>b\nGT\n", "a", "AC", "b", "GT");
+		assertRecords(">a\nA C\t\nG T \n", "a", "ACGT");
+	}
+
+	@Test
+	public void lineEndAcrossBuffers() throws IOException {
+		// header and sequence of a fill the buffer but for the \r; the \n is in the next one
+		String header = ">a\r\n";
+		String sequence = sequence(new Random(7), BUFFER_SIZE - 1 - header.length());
+		assertRecords(header + sequence + "\r\n>b\r\nAC\r\n", "a", sequence, "b", "AC");
+		assertRecords(header + sequence + "\r\n\r\nAC\r\n", "a", sequence, null, "AC");
+	}
+
+	@Test
+	public void recordsAcrossBuffers() throws IOException {
+		for(int seed = 0; seed < 20; seed++) {
+			Random random = new Random(seed);
+			String newline = (seed % 2 == 0) ? "\n" : "\r\n";
+			StringBuilder text = new StringBuilder();
+			ArrayList<String> expected = new ArrayList<String>();
+			while(text.length() < 3 * BUFFER_SIZE) {
+				String name = "seq" + expected.size() + " " + sequence(random, random.nextInt(40));
+				String sequence = sequence(random, random.nextInt(random.nextBoolean() ? 80 : 20000));
+				text.append((random.nextInt(4) == 0) ? "# " : ">").append(name).append(newline);
+				int width = 1 + random.nextInt(80);
+				for(int iii = 0; iii < sequence.length(); iii += width) {
+					text.append(sequence, iii, Math.min(sequence.length(), iii + width)).append(newline);
+				}
+				if(random.nextBoolean()) text.append(newline);
+				expected.add(name.trim());
+				expected.add(sequence);
+			}
+			assertRecords(text.toString(), expected.toArray(new String[expected.size()]));
+		}
+	}
+
+	@Test
+	public void recordsIntoStore() throws IOException {
+		File file = write(">a\nacgt\nNN\n>b\nMKV*\n");
+		SequenceStore store = SequenceStore.open(folder.newFolder("store"));
+		FastaReader reader = new FastaReader(file);
+		try {
+			FastaReader.FastaRecord record = reader.next(store);
+			assertEquals("a", record.getName());
+			assertNull(record.getSequence());
+			assertEquals("ACGTNN", store.sequence(record.getStoreHandle(), record.getLength()).toString());
+			record = reader.next(store);
+			assertEquals("MKV*", store.sequence(record.getStoreHandle(), record.getLength()).toString());
+			assertNull(reader.next(store));
+		} finally {
+			reader.close();
+			store.release();
+		}
+	}
+
+	/*
+	 * Reads a file and checks its records
+	 *
+	 * @param	text			Text of the file
+	 * @param	expected		Name and sequence of every record
+	 */
+	private void assertRecords(String text, String... expected) throws IOException {
+		FastaReader reader = new FastaReader(write(text));
+		try {
+			for(int iii = 0; iii < expected.length; iii += 2) {
+				FastaReader.FastaRecord record = reader.next();
+				assertEquals("Name of record " + iii / 2, expected[iii], record.getName());
+				assertEquals("Sequence of record " + iii / 2, expected[iii + 1], record.getSequence());
+				assertEquals(expected[iii + 1].length(), record.getLength());
+			}
+			assertNull(reader.next());
+			assertEquals(text.length(), reader.getPosition());
+		} finally {
+			reader.close();
+		}
+	}
+
+	private File write(String text) throws IOException {
+		File file = folder.newFile();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes(StandardCharsets.US_ASCII));
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private static String sequence(Random random, int length) {
+		StringBuilder sequence = new StringBuilder(length);
+		for(int iii = 0; iii < length; iii++) {
+			sequence.append("ACGT".charAt(random.nextInt(4)));
+		}
+		return sequence.toString();
+	}
+}
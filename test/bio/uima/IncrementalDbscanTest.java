@@ -0,0 +1,206 @@
+package bio.uima;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ * Applies random sequences of insertions and removals to an
+ * IncrementalDbscan and checks after every step that its clusters are the
+ * ones Dbscan.cluster gives for the live points, in index order. The state
+ * is rebuilt from the live points, as ClusterAnnotator does, whenever it
+ * needs a rebuild, and written to a state file and read back along the way.
+ */
+public class IncrementalDbscanTest {
+
+	private static final int SEEDS = 40;
+	private static final int STEPS = 240;
+	private static final int MAX_POINTS = STEPS + 32;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final AllPairsScheduler scheduler = new AllPairsScheduler(2);
+
+	@After
+	public void shutdown() {
+		scheduler.shutdown();
+	}
+
+	/*
+	 * Points on a line, neighbors when close: chains of clusters with
+	 * border points between them
+	 */
+	@Test
+	public void linePoints() throws IOException {
+		int rebuilds = 0;
+		for(int seed = 0; seed < SEEDS; seed++) {
+			Random random = new Random(seed);
+			int[] positions = new int[MAX_POINTS];
+			for(int iii = 0; iii < MAX_POINTS; iii++) {
+				positions[iii] = random.nextInt(120);
+			}
+			int[][] similarities = new int[MAX_POINTS][MAX_POINTS];
+			for(int iii = 0; iii < MAX_POINTS; iii++) {
+				for(int jjj = 0; jjj < MAX_POINTS; jjj++) {
+					similarities[iii][jjj] = -Math.abs(positions[iii] - positions[jjj]);
+				}
+			}
+			rebuilds += run(random, similarities, -3, 3);
+		}
+		assertTrue("No sequence needed a rebuild", rebuilds > 0);
+	}
+
+	/*
+	 * Random similarities: dense, irregular neighborhoods
+	 */
+	@Test
+	public void randomSimilarities() throws IOException {
+		int rebuilds = 0;
+		for(int seed = 0; seed < SEEDS; seed++) {
+			Random random = new Random(1000 + seed);
+			int[][] similarities = new int[MAX_POINTS][MAX_POINTS];
+			for(int iii = 0; iii < MAX_POINTS; iii++) {
+				similarities[iii][iii] = 100;
+				for(int jjj = 0; jjj < iii; jjj++) {
+					similarities[iii][jjj] = random.nextInt(100);
+					similarities[jjj][iii] = similarities[iii][jjj];
+				}
+			}
+			rebuilds += run(random, similarities, 92 + random.nextInt(6), 2 + random.nextInt(4));
+		}
+		assertTrue("No sequence needed a rebuild", rebuilds > 0);
+	}
+
+	/*
+	 * Runs a random sequence of insertions and removals, insertions first
+	 * and mostly removals later, so the state fills up and then needs
+	 * rebuilds
+	 *
+	 * @param	random			Source of the sequence
+	 * @param	similarities	Similarity of every two points, by the order they are inserted in
+	 * @param	epsilon			Minimum similarity of two neighbors
+	 * @param	minPts			Minimum number of points that must be in epsilon radius
+	 * @return					Number of rebuilds
+	 */
+	private int run(Random random, int[][] similarities, int epsilon, int minPts) throws IOException {
+		ArrayList<Integer> ids = new ArrayList<Integer>();							// Point of every index of the state
+		int nextId = random.nextInt(16);
+		for(int iii = 0; iii < nextId; iii++) {
+			ids.add(iii);
+		}
+		IncrementalDbscan dbscan = new IncrementalDbscan(compute(similarities, ids), epsilon, minPts, scheduler);
+		int live = ids.size();
+		int rebuilds = 0;
+		assertClusters(dbscan, similarities, ids);
+		for(int step = 0; step < STEPS; step++) {
+			int removeRate = (step < STEPS / 2) ? 30 : 75;
+			if(live > 0 && random.nextInt(100) < removeRate) {
+				int point;
+				do {
+					point = random.nextInt(ids.size());
+				} while(dbscan.getPoints().isRemoved(point));
+				dbscan.remove(point);
+				live--;
+			} else {
+				ids.add(nextId++);
+				assertEquals(ids.size() - 1, dbscan.insert(measure(similarities, ids), scheduler));
+				live++;
+			}
+			if(dbscan.needsRebuild(live)) {
+				ArrayList<Integer> liveIds = new ArrayList<Integer>();
+				for(int iii = 0; iii < ids.size(); iii++) {
+					if(!dbscan.getPoints().isRemoved(iii)) liveIds.add(ids.get(iii));
+				}
+				ids = liveIds;
+				dbscan = new IncrementalDbscan(compute(similarities, ids), epsilon, minPts, scheduler);
+				assertEquals(0, dbscan.getPoints().removedCount());
+				rebuilds++;
+			}
+			assertClusters(dbscan, similarities, ids);
+			if(random.nextInt(20) == 0) {
+				int[] clusters = dbscan.clusters();
+				dbscan = roundTrip(dbscan);
+				assertArrayEquals(clusters, dbscan.clusters());
+				assertEquals(epsilon, dbscan.getEpsilon());
+				assertEquals(minPts, dbscan.getMinPts());
+			}
+		}
+		return rebuilds;
+	}
+
+	/*
+	 * Checks that the clusters of the live points are the ones Dbscan gives
+	 * for them alone, in index order, and that removed points are noise
+	 */
+	private void assertClusters(IncrementalDbscan dbscan, int[][] similarities, ArrayList<Integer> ids) {
+		SimilarityCache points = dbscan.getPoints();
+		assertEquals(ids.size(), points.size());
+		ArrayList<Integer> liveIds = new ArrayList<Integer>();
+		for(int iii = 0; iii < ids.size(); iii++) {
+			if(!points.isRemoved(iii)) liveIds.add(ids.get(iii));
+		}
+		int[] expected = Dbscan.cluster(compute(similarities, liveIds), dbscan.getEpsilon(), dbscan.getMinPts());
+		int[] clusters = dbscan.clusters();
+		int next = 0;
+		for(int iii = 0; iii < ids.size(); iii++) {
+			if(points.isRemoved(iii)) {
+				assertEquals("Removed point " + iii, Dbscan.NOISE, clusters[iii]);
+			} else {
+				assertEquals("Point " + iii, expected[next++], clusters[iii]);
+			}
+		}
+	}
+
+	/*
+	 * Writes the state to a file and reads it back
+	 */
+	private IncrementalDbscan roundTrip(IncrementalDbscan dbscan) throws IOException {
+		File state = folder.newFile();
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(state)));
+		try {
+			dbscan.write(out);
+		} finally {
+			out.close();
+		}
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(state)));
+		try {
+			IncrementalDbscan read = IncrementalDbscan.read(in);
+			assertEquals(-1, in.read());
+			return read;
+		} finally {
+			in.close();
+		}
+	}
+
+	private SimilarityCache compute(int[][] similarities, ArrayList<Integer> ids) {
+		int[] lengths = new int[ids.size()];
+		Arrays.fill(lengths, 1);
+		return SimilarityCache.compute(lengths, measure(similarities, ids), scheduler);
+	}
+
+	private static SimilarityCache.Measure measure(final int[][] similarities, final ArrayList<Integer> ids) {
+		return new SimilarityCache.Measure() {
+			public int similarity(int point1, int point2) {
+				return similarities[ids.get(point1)][ids.get(point2)];
+			}
+		};
+	}
+}
@@ -0,0 +1,96 @@
+package bio.uima;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+/*
+ * Checks the candidates of the prefilter against a brute force count of the
+ * distinct words every pair shares, for contiguous and spaced seeds and for
+ * ranges of pairs, on sequences with unknown residues and gaps.
+ */
+public class KmerPrefilterTest {
+
+	private static final String RESIDUES = "ARNDCQEGHILKMFPSTWYVXJ-";
+	private static final String FEW_RESIDUES = "AWX";							// Many shared words
+	private static final String[] SEEDS = {"1", "11", "111", "101", "1101", "11011"};
+
+	private final SubstitutionMatrix matrix = Utils.initSubstitutionMatrix();
+	private final AllPairsScheduler scheduler = new AllPairsScheduler(4);
+
+	@After
+	public void shutdown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void sameCandidatesAsBruteForce() {
+		Random random = new Random(15);
+		for(int round = 0; round < 120; round++) {
+			String seed = SEEDS[random.nextInt(SEEDS.length)];
+			String residues = (round % 3 == 0) ? FEW_RESIDUES : RESIDUES;
+			byte[][] sequences = new byte[1 + random.nextInt(30)][];
+			for(int iii = 0; iii < sequences.length; iii++) {
+				sequences[iii] = matrix.encode(protein(random, residues, random.nextInt(40)));
+			}
+			int minShared = 1 + random.nextInt(4);
+			KmerPrefilter prefilter = new KmerPrefilter(seed, matrix.size(), minShared);
+			boolean[] expected = bruteForce(sequences, seed, minShared);
+			assertArrayEquals("Seed " + seed, expected, prefilter.candidates(sequences, 0, expected.length, scheduler));
+
+			int fromPair = random.nextInt(expected.length + 1);
+			int toPair = fromPair + random.nextInt(expected.length - fromPair + 1);
+			boolean[] range = new boolean[toPair - fromPair];
+			System.arraycopy(expected, fromPair, range, 0, range.length);
+			assertArrayEquals("Pairs " + fromPair + "-" + toPair, range, prefilter.candidates(sequences, fromPair, toPair, scheduler));
+		}
+	}
+
+	/*
+	 * Returns whether every pair, in pair order, shares at least minShared
+	 * distinct words
+	 */
+	private static boolean[] bruteForce(byte[][] sequences, String seed, int minShared) {
+		boolean[] candidates = new boolean[AllPairsScheduler.pairCount(sequences.length)];
+		int pair = 0;
+		for(int first = 0; first < sequences.length; first++) {
+			for(int second = first + 1; second < sequences.length; second++, pair++) {
+				HashSet<String> shared = words(sequences[first], seed);
+				shared.retainAll(words(sequences[second], seed));
+				candidates[pair] = shared.size() >= minShared;
+			}
+		}
+		return candidates;
+	}
+
+	/*
+	 * Returns the words of a sequence as the residue codes at the '1's of
+	 * the seed, skipping windows with a gap
+	 */
+	private static HashSet<String> words(byte[] sequence, String seed) {
+		HashSet<String> words = new HashSet<String>();
+		for(int iii = 0; iii + seed.length() <= sequence.length; iii++) {
+			StringBuilder word = new StringBuilder();
+			boolean gap = false;
+			for(int jjj = 0; jjj < seed.length(); jjj++) {
+				if(seed.charAt(jjj) == '0') continue;
+				gap |= sequence[iii + jjj] == SubstitutionMatrix.GAP;
+				word.append(sequence[iii + jjj]).append(',');
+			}
+			if(!gap) words.add(word.toString());
+		}
+		return words;
+	}
+
+	private static String protein(Random random, String residues, int length) {
+		StringBuilder protein = new StringBuilder();
+		for(int iii = 0; iii < length; iii++) {
+			protein.append(residues.charAt(random.nextInt(residues.length())));
+		}
+		return protein.toString();
+	}
+}
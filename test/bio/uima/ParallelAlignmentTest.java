@@ -0,0 +1,118 @@
+package bio.uima;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+/*
+ * Checks that large pairs, whose score passes run as a wavefront of blocks
+ * and whose Hirschberg steps run as parallel tasks, give exactly the rows,
+ * alignments and scores of an engine without a pool, with both kernels and
+ * from outside and inside the pool.
+ */
+public class ParallelAlignmentTest {
+
+	private static final String RESIDUES = "ARNDCQEGHILKMFPSTWYV";
+	private static final int GAP_PENALTY = -2;
+	private static final long PARALLEL_MIN_CELLS = 1L << 22;						// See AlignmentEngine
+	private static final int WAVEFRONT_BLOCK = 512;
+
+	private final SubstitutionMatrix matrix = Utils.initSubstitutionMatrix();
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+
+	@After
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void wavefrontRows() {
+		Random random = new Random(21);
+		int[][] lengths = {
+				{2100, 2100},
+				{2 * WAVEFRONT_BLOCK, (int) (PARALLEL_MIN_CELLS / (2 * WAVEFRONT_BLOCK)) + 3},
+				{4099, 1031},
+				{2049, 2049}};
+		for(AlignmentEngine.Kernel kernel : AlignmentEngine.Kernel.values()) {
+			AlignmentEngine sequential = new AlignmentEngine(matrix, GAP_PENALTY, kernel);
+			AlignmentEngine parallel = new AlignmentEngine(matrix, GAP_PENALTY, kernel, pool);
+			for(int[] pair : lengths) {
+				byte[] sequence1 = matrix.encode(protein(random, pair[0] + 10));
+				byte[] sequence2 = matrix.encode(protein(random, pair[1] + 10));
+				for(int reverse = 0; reverse < 2; reverse++) {
+					int start1 = random.nextInt(11);
+					int start2 = random.nextInt(11);
+					int[] expected = new int[pair[1] + 1];
+					int[] row = new int[pair[1] + 1];
+					sequential.computeLastNWScore(sequence1, start1, start1 + pair[0], sequence2, start2, start2 + pair[1],
+							reverse == 1, expected);
+					parallel.computeLastNWScore(sequence1, start1, start1 + pair[0], sequence2, start2, start2 + pair[1],
+							reverse == 1, row);
+					assertArrayEquals(kernel + " " + pair[0] + "x" + pair[1], expected, row);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void parallelHirschberg() throws Exception {
+		Random random = new Random(22);
+		for(AlignmentEngine.Kernel kernel : AlignmentEngine.Kernel.values()) {
+			AlignmentEngine sequential = new AlignmentEngine(matrix, GAP_PENALTY, kernel);
+			final AlignmentEngine parallel = new AlignmentEngine(matrix, GAP_PENALTY, kernel, pool);
+			String protein = protein(random, 2300);
+			String[][] pairs = {
+					{protein, mutate(random, protein)},										// similar, long gap runs
+					{protein(random, 2200), protein(random, 2100)},
+					{protein(random, 4300), protein(random, 1100)}};
+			for(final String[] pair : pairs) {
+				Cigar expected = sequential.align(pair[0], pair[1]);
+				assertSameAlignment(expected, parallel.align(pair[0], pair[1]));
+				assertSameAlignment(expected, pool.submit(new Callable<Cigar>() {			// a pair running on the pool itself
+					public Cigar call() {
+						return parallel.align(pair[0], pair[1]);
+					}
+				}).get());
+				assertEquals(expected.getScore(), parallel.score(pair[0], pair[1]));
+				assertEquals(expected.getScore(), sequential.score(pair[0], pair[1]));
+			}
+		}
+	}
+
+	private static void assertSameAlignment(Cigar expected, Cigar cigar) {
+		assertEquals(expected.toString(), cigar.toString());
+		assertEquals(expected.getScore(), cigar.getScore());
+	}
+
+	private static String protein(Random random, int length) {
+		StringBuilder protein = new StringBuilder(length);
+		for(int iii = 0; iii < length; iii++) {
+			protein.append(RESIDUES.charAt(random.nextInt(RESIDUES.length())));
+		}
+		return protein.toString();
+	}
+
+	/*
+	 * Returns a copy of a protein with substitutions, and with a few runs of
+	 * residues deleted or inserted
+	 */
+	private static String mutate(Random random, String protein) {
+		StringBuilder mutated = new StringBuilder(protein.length() + 64);
+		for(int iii = 0; iii < protein.length(); iii++) {
+			if(random.nextInt(400) == 0) {
+				iii += random.nextInt(40);
+			} else if(random.nextInt(400) == 0) {
+				mutated.append(protein(random, 1 + random.nextInt(40)));
+			} else {
+				mutated.append((random.nextInt(10) == 0) ? RESIDUES.charAt(random.nextInt(RESIDUES.length())) : protein.charAt(iii));
+			}
+		}
+		return mutated.toString();
+	}
+}
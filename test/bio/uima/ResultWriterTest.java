@@ -0,0 +1,155 @@
+package bio.uima;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.JCasIterator;
+import org.apache.uima.collection.CollectionReader;
+import org.apache.uima.jcas.JCas;
+import org.junit.Test;
+
+/*
+ * Writes the results of the pipeline on the sample data in both formats and
+ * checks that the BINARY results, decoded, give the TSV rows: aligned,
+ * score-only and prefiltered pairs.
+ */
+public class ResultWriterTest {
+
+	private static final String[] INPUT = {"data/dna.txt"};
+
+	@Test
+	public void alignedPairs() throws Exception {
+		String rows = assertSameRows();
+		assertTrue(rows.contains("M"));
+	}
+
+	@Test
+	public void scoredPairs() throws Exception {
+		String rows = assertSameRows("ScoreOnly=true");
+		assertTrue(rows.contains("\t.\t.\t.\t.\t.\n"));
+	}
+
+	@Test
+	public void prefilteredPairs() throws Exception {
+		String rows = assertSameRows("PrefilterSeed=11", "PrefilterMinShared=12");
+		assertTrue(rows.matches("(?s).*\n\\d+\t\\d+\t\\.\t[^\t]*\t[^\t]*\t\\.\t[^.\t\n][^\t]*\t[^\t\n]+\n.*"));
+	}
+
+	/*
+	 * Runs the pipeline with some parameters, checks that both formats hold
+	 * the same rows and returns the TSV rows
+	 */
+	private static String assertSameRows(String... parameters) throws Exception {
+		ByteArrayOutputStream tsv = new ByteArrayOutputStream();
+		ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		ResultWriter tsvWriter = new ResultWriter(Channels.newChannel(tsv), ResultWriter.Format.TSV);
+		ResultWriter binaryWriter = new ResultWriter(Channels.newChannel(binary), ResultWriter.Format.BINARY);
+		AnalysisEngineDescription desc = BioUima.parsePipeline(null);
+		for(String parameter : parameters) {
+			BioUima.setParameter(desc, parameter);
+		}
+		AnalysisEngine ae = UIMAFramework.produceAnalysisEngine(desc);
+		try {
+			JCas jCas = ae.newJCas();
+			CollectionReader reader = BioUima.createReader(INPUT, null);
+			while(reader.hasNext()) {
+				jCas.reset();
+				reader.getNext(jCas.getCas());
+				JCasIterator results = ae.processAndOutputNewCASes(jCas);
+				while(results.hasNext()) {
+					JCas result = results.next();
+					tsvWriter.write(result);
+					binaryWriter.write(result);
+					result.release();
+				}
+			}
+			reader.close();
+		} finally {
+			ae.destroy();
+		}
+		tsvWriter.close();
+		binaryWriter.close();
+		String rows = tsv.toString(StandardCharsets.US_ASCII.name());
+		assertTrue("No pairs: " + rows, rows.split("\n").length > 2);
+		assertEquals(rows, decode(binary.toByteArray()));
+		return rows;
+	}
+
+	/*
+	 * Decodes BINARY results into the TSV rows they stand for
+	 */
+	private static String decode(byte[] results) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(results));
+		assertEquals(ResultWriter.MAGIC, in.readLong());
+		assertEquals(ResultWriter.VERSION, in.readInt());
+		StringBuilder rows = new StringBuilder("first\tsecond\tscore\tcluster1\tcluster2\tcigar\talignment1\talignment2\n");
+		while(in.available() > 0) {
+			String[] proteins = new String[readVarint(in)];
+			for(int iii = 0; iii < proteins.length; iii++) {
+				byte[] residues = new byte[readVarint(in)];
+				in.readFully(residues);
+				proteins[iii] = new String(residues, StandardCharsets.US_ASCII);
+			}
+			int pairs = readVarint(in);
+			for(int iii = 0; iii < pairs; iii++) {
+				int first = readVarint(in);
+				int second = readVarint(in);
+				int score = readSignedVarint(in);
+				int cluster1 = readSignedVarint(in);
+				int cluster2 = readSignedVarint(in);
+				int runs = readVarint(in);
+				Cigar cigar = null;
+				if(runs > 0) {
+					Cigar.Builder builder = new Cigar.Builder();
+					for(int jjj = 1; jjj < runs; jjj++) {
+						int run = readVarint(in);
+						builder.add(run & 3, run >>> 2);
+					}
+					cigar = builder.build(score, 0, 0);
+				}
+				boolean filtered = score == KmerPrefilter.FILTERED;
+				rows.append(first).append('\t').append(second).append('\t');
+				rows.append(filtered ? "." : Integer.toString(score)).append('\t');
+				rows.append((cluster1 == ResultWriter.NOT_CLUSTERED) ? "." : Integer.toString(cluster1)).append('\t');
+				rows.append((cluster2 == ResultWriter.NOT_CLUSTERED) ? "." : Integer.toString(cluster2)).append('\t');
+				if(cigar != null) {
+					String[] aligned = cigar.render(proteins[first], proteins[second]);
+					rows.append(cigar).append('\t').append(aligned[0]).append('\t').append(aligned[1]);
+				} else if(filtered) {
+					rows.append(".\t").append(proteins[first]).append('\t').append(proteins[second]);
+				} else {
+					rows.append(".\t.\t.");
+				}
+				rows.append('\n');
+			}
+			rows.append('\n');
+		}
+		return rows.toString();
+	}
+
+	private static int readVarint(DataInputStream in) throws IOException {
+		int value = 0;
+		for(int shift = 0; ; shift += 7) {
+			int read = in.read();
+			if(read < 0) throw new EOFException();
+			value |= (read & 0x7f) << shift;
+			if((read & 0x80) == 0) return value;
+		}
+	}
+
+	private static int readSignedVarint(DataInputStream in) throws IOException {
+		int value = readVarint(in);
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -0,0 +1,87 @@
+package bio.uima;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ * Packs random sequences of both alphabets, in both cases and longer than
+ * one packing chunk, back to back into the store and reads every one of
+ * them back once all are appended.
+ */
+public class SequenceStoreTest {
+
+	private static final String NUCLEOTIDES = "ACGTacgt";
+	private static final String LETTERS = "ACGTNacgtnRYKMSWBDHVXrykmswbdhvx*-.0 ";
+	private static final int[] LENGTHS = {0, 1, 3, 4, 5, 7, 8, 9, 39, 40, 41,
+			8 * (65536 / 5) - 1, 8 * (65536 / 5), 8 * (65536 / 5) + 1, 4 * 65536 - 1, 4 * 65536 + 3, 300001};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void sequencesRoundTrip() throws IOException {
+		Random random = new Random(22);
+		SequenceStore store = SequenceStore.open(folder.newFolder("store"));
+		try {
+			assertSame(store, SequenceStore.shared());
+			ArrayList<String> expected = new ArrayList<String>();
+			ArrayList<Long> handles = new ArrayList<Long>();
+			for(int length : LENGTHS) {
+				for(String alphabet : new String[] {NUCLEOTIDES, LETTERS}) {
+					String sequence = sequence(random, alphabet, length);
+					byte[] ascii = (sequence + "ACGT").getBytes(StandardCharsets.US_ASCII);	// letters past length are ignored
+					long handle = store.append(ascii, length);
+					assertEquals("Alphabet of " + length + " letters", sequence.matches("[ACGTacgt]*"), (handle & 1) == 0);
+					handles.add(handle);
+					expected.add(packed(sequence));
+				}
+			}
+			for(int iii = 0; iii < handles.size(); iii++) {
+				String sequence = expected.get(iii);
+				CharSequence view = store.sequence(handles.get(iii), sequence.length());
+				assertEquals(sequence.length(), view.length());
+				assertEquals("Sequence " + iii, sequence, view.toString());
+				if(sequence.length() > 10) {
+					int start = random.nextInt(sequence.length() - 10);
+					int end = start + random.nextInt(sequence.length() - start);
+					assertEquals(sequence.substring(start, end), view.subSequence(start, end).toString());
+					assertEquals(sequence.charAt(end), store.charAt(handles.get(iii), end));
+				}
+			}
+		} finally {
+			store.release();
+		}
+		assertEquals(null, SequenceStore.shared());
+	}
+
+	/*
+	 * Returns a sequence as the store reads it back: upper case, letters
+	 * outside its alphabet as 'X'
+	 */
+	private static String packed(String sequence) {
+		StringBuilder packed = new StringBuilder(sequence.length());
+		for(int iii = 0; iii < sequence.length(); iii++) {
+			char letter = Character.toUpperCase(sequence.charAt(iii));
+			boolean known = (letter >= 'A' && letter <= 'Z') || letter == '*' || letter == '-';
+			packed.append(known ? letter : 'X');
+		}
+		return packed.toString();
+	}
+
+	private static String sequence(Random random, String alphabet, int length) {
+		StringBuilder sequence = new StringBuilder(length);
+		for(int iii = 0; iii < length; iii++) {
+			sequence.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return sequence.toString();
+	}
+}
@@ -0,0 +1,164 @@
+package bio.uima;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/*
+ * Checks that the striped kernel fills the same rows as the scalar
+ * reference kernel: on random sequences and ranges below and above the
+ * length the engine starts using it at, on both sides of the bound where it
+ * switches from short to int lanes, and on gap runs that the lazy-F loop
+ * has to carry across lanes.
+ */
+public class StripedKernelTest {
+
+	private static final String RESIDUES = "ARNDCQEGHILKMFPSTWYVBZX.";
+	private static final int STRIPED_MIN_LENGTH = 16;								// See AlignmentEngine
+	private static final int[] GAP_PENALTIES = {-2, -1, -4, -11};					// The pipeline's, and cheaper and dearer gaps
+
+	private final SubstitutionMatrix matrix = Utils.initSubstitutionMatrix();
+
+	@Test
+	public void randomRanges() {
+		Random random = new Random(4);
+		for(int gapPenalty : GAP_PENALTIES) {
+			for(int length1 = 0; length1 <= 3 * STRIPED_MIN_LENGTH + 1; length1++) {
+				for(int length2 = 0; length2 <= 3 * STRIPED_MIN_LENGTH + 1; length2 += 1 + random.nextInt(3)) {
+					byte[] sequence1 = matrix.encode(protein(random, length1 + 8));
+					byte[] sequence2 = matrix.encode(protein(random, length2 + 8));
+					int start1 = random.nextInt(9);
+					int start2 = random.nextInt(9);
+					assertSameRow(gapPenalty, sequence1, start1, start1 + length1, sequence2, start2, start2 + length2, false);
+					assertSameRow(gapPenalty, sequence1, start1, start1 + length1, sequence2, start2, start2 + length2, true);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void longRandomSequences() {
+		Random random = new Random(5);
+		for(int iii = 0; iii < 40; iii++) {
+			int length1 = 1 + random.nextInt(600);
+			int length2 = 1 + random.nextInt(600);
+			byte[] sequence1 = matrix.encode(protein(random, length1));
+			byte[] sequence2 = matrix.encode(protein(random, length2));
+			int gapPenalty = GAP_PENALTIES[iii % GAP_PENALTIES.length];
+			assertSameRow(gapPenalty, sequence1, 0, length1, sequence2, 0, length2, (iii & 1) != 0);
+		}
+	}
+
+	/*
+	 * Scores right at the bound of the short lanes, with the highest and
+	 * the lowest scores the matrix has, and random ones
+	 */
+	@Test
+	public void shortOverflowBound() {
+		Random random = new Random(6);
+		for(int gapPenalty : GAP_PENALTIES) {
+			StripedKernel striped = new StripedKernel(matrix, gapPenalty);
+			int length = 1;
+			while(striped.fitsInShort(length + 1, length + 1)) length++;
+			assertTrue(striped.fitsInShort(length, length));
+			assertFalse(striped.fitsInShort(length + 1, length + 1));
+			for(int lengths = length; lengths <= length + 1; lengths++) {
+				String best = repeat('W', lengths);										// W/W is the highest score
+				String worst = repeat('.', lengths);
+				assertSameRow(gapPenalty, best, best);
+				assertSameRow(gapPenalty, best, worst);
+				assertSameRow(gapPenalty, protein(random, lengths), protein(random, lengths));
+			}
+			// one long side and one short side, at the bound as well
+			int total = 2 * length;
+			assertSameRow(gapPenalty, repeat('W', total - 40), repeat('W', 40));
+			assertSameRow(gapPenalty, repeat('W', 40), repeat('.', total - 39));
+		}
+	}
+
+	/*
+	 * Long runs of insertions and deletions, which the lazy-F loop carries
+	 * from lane to lane
+	 */
+	@Test
+	public void gapRuns() {
+		Random random = new Random(7);
+		for(int gapPenalty : GAP_PENALTIES) {
+			for(int iii = 0; iii < 20; iii++) {
+				String protein = protein(random, STRIPED_MIN_LENGTH + random.nextInt(300));
+				int from = random.nextInt(protein.length());
+				int to = from + random.nextInt(protein.length() - from + 1);
+				String deleted = protein.substring(0, from) + protein.substring(to);
+				String inserted = protein.substring(0, from) + repeat('W', 1 + random.nextInt(200)) + protein.substring(from);
+				assertSameRow(gapPenalty, protein, deleted);
+				assertSameRow(gapPenalty, deleted, protein);
+				assertSameRow(gapPenalty, protein, inserted);
+				assertSameRow(gapPenalty, inserted, protein);
+			}
+			assertSameRow(gapPenalty, protein(random, 1000), protein(random, 20));
+			assertSameRow(gapPenalty, protein(random, 20), protein(random, 1000));
+			assertSameRow(gapPenalty, repeat('A', 500), repeat('A', 17));
+		}
+	}
+
+	/*
+	 * Checks that an engine on the striped kernel aligns like the scalar one,
+	 * on pairs that it splits into ranges on both sides of the length it
+	 * starts using the striped kernel at
+	 */
+	@Test
+	public void alignments() {
+		Random random = new Random(8);
+		AlignmentEngine scalar = new AlignmentEngine(matrix, GAP_PENALTIES[0], AlignmentEngine.Kernel.SCALAR);
+		AlignmentEngine striped = new AlignmentEngine(matrix, GAP_PENALTIES[0], AlignmentEngine.Kernel.STRIPED);
+		for(int iii = 0; iii < 200; iii++) {
+			String protein1 = protein(random, random.nextInt(4 * STRIPED_MIN_LENGTH));
+			String protein2 = protein(random, random.nextInt(4 * STRIPED_MIN_LENGTH));
+			Cigar expected = scalar.align(protein1, protein2);
+			Cigar cigar = striped.align(protein1, protein2);
+			assertEquals(expected.toString(), cigar.toString());
+			assertEquals(expected.getScore(), cigar.getScore());
+			assertEquals(scalar.score(protein1, protein2), striped.score(protein1, protein2));
+		}
+	}
+
+	private void assertSameRow(int gapPenalty, String protein1, String protein2) {
+		byte[] sequence1 = matrix.encode(protein1);
+		byte[] sequence2 = matrix.encode(protein2);
+		assertSameRow(gapPenalty, sequence1, 0, sequence1.length, sequence2, 0, sequence2.length, false);
+		assertSameRow(gapPenalty, sequence1, 0, sequence1.length, sequence2, 0, sequence2.length, true);
+	}
+
+	private void assertSameRow(int gapPenalty, byte[] sequence1, int start1, int end1, byte[] sequence2, int start2,
+			int end2, boolean reverse) {
+		int[] expected = new int[end2 - start2 + 1];
+		new AlignmentEngine(matrix, gapPenalty).computeLastNWScore(sequence1, start1, end1, sequence2, start2, end2,
+				reverse, expected);
+		int[] row = new int[end2 - start2 + 1];
+		new StripedKernel(matrix, gapPenalty).computeLastNWScore(sequence1, start1, end1, sequence2, start2, end2,
+				reverse, row);
+		assertArrayEquals("Gap " + gapPenalty + ", [" + start1 + ", " + end1 + ") x [" + start2 + ", " + end2 + ")"
+				+ (reverse ? " reversed" : ""), expected, row);
+	}
+
+	private static String protein(Random random, int length) {
+		StringBuilder protein = new StringBuilder(length);
+		for(int iii = 0; iii < length; iii++) {
+			protein.append(RESIDUES.charAt(random.nextInt(RESIDUES.length())));
+		}
+		return protein.toString();
+	}
+
+	private static String repeat(char residue, int length) {
+		StringBuilder repeated = new StringBuilder(length);
+		for(int iii = 0; iii < length; iii++) {
+			repeated.append(residue);
+		}
+		return repeated.toString();
+	}
+}